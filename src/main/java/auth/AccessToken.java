@@ -0,0 +1,38 @@
+package auth;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A token handed out by a {@link TokenSource} and the time it stops being accepted.
+ *
+ * @param value     the token as sent to the API
+ * @param expiresAt end of the lifetime, {@link Instant#MAX} for tokens without one
+ */
+public record AccessToken(String value, Instant expiresAt) {
+
+    public AccessToken {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Token value is missing");
+        }
+    }
+
+    /**
+     * @return a token valid for {@code lifetime} from {@code issuedAt}, e.g. from an OAuth2 {@code expires_in}
+     */
+    public static AccessToken of(String value, Instant issuedAt, Duration lifetime) {
+        return new AccessToken(value, issuedAt.plus(lifetime));
+    }
+
+    public static AccessToken withoutExpiry(String value) {
+        return new AccessToken(value, Instant.MAX);
+    }
+
+    /**
+     * Keeps the value out of logs and assertion messages.
+     */
+    @Override
+    public String toString() {
+        return "AccessToken[expiresAt=" + this.expiresAt + "]";
+    }
+}
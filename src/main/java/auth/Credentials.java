@@ -0,0 +1,15 @@
+package auth;
+
+/**
+ * A username and password, e.g. for restful-booker's {@code POST /auth}.
+ */
+public record Credentials(String username, String password) {
+
+    /**
+     * Keeps the password out of logs and assertion messages.
+     */
+    @Override
+    public String toString() {
+        return "Credentials[username=" + this.username + "]";
+    }
+}
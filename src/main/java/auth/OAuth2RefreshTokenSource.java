@@ -0,0 +1,68 @@
+package auth;
+
+import extraction.ParsedResponse;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Gets OAuth2 access tokens with the {@code refresh_token} grant, e.g. from {@code https://api.imgur.com/oauth2/token}.
+ * The lifetime comes from the {@code expires_in} of the response.
+ */
+public class OAuth2RefreshTokenSource implements TokenSource<OAuth2RefreshTokenSource.Client> {
+
+    private final String tokenUri;
+
+    public OAuth2RefreshTokenSource(String tokenUri) {
+        this.tokenUri = tokenUri;
+    }
+
+    @Override
+    public AccessToken fetch(Client client) {
+        Instant issuedAt = Instant.now();
+        Response response = RestAssured.given()
+                                       .and().baseUri(this.tokenUri)
+                                       .and().contentType(ContentType.MULTIPART)
+                                       .and().multiPart("refresh_token", client.refreshToken())
+                                       .and().multiPart("client_id", client.clientId())
+                                       .and().multiPart("client_secret", client.clientSecret())
+                                       .and().multiPart("grant_type", "refresh_token")
+                                       .when().post();
+        if (response.getStatusCode() != 200) {
+            throw new IllegalStateException("No access token for " + client + ": HTTP " + response.getStatusCode()
+                    + " " + response.asString());
+        }
+        ParsedResponse parsedResponse = ParsedResponse.of(response);
+        Number expiresIn = parsedResponse.get("expires_in");
+        String accessToken = parsedResponse.getString("access_token");
+        return expiresIn == null
+                ? AccessToken.withoutExpiry(accessToken)
+                : AccessToken.of(accessToken, issuedAt, Duration.ofSeconds(expiresIn.longValue()));
+    }
+
+    /**
+     * A registered client and the refresh token of the user it acts for.
+     */
+    public record Client(String clientId, String clientSecret, String refreshToken) {
+
+        /**
+         * @param prefix e.g. {@code IMGUR} for {@code IMGUR_CLIENT_ID}, {@code IMGUR_CLIENT_SECRET} and
+         *               {@code IMGUR_REFRESH_TOKEN}
+         */
+        public static Client fromEnvironment(String prefix) {
+            return new Client(System.getenv(prefix + "_CLIENT_ID"), System.getenv(prefix + "_CLIENT_SECRET"),
+                    System.getenv(prefix + "_REFRESH_TOKEN"));
+        }
+
+        /**
+         * Keeps the secrets out of logs and assertion messages.
+         */
+        @Override
+        public String toString() {
+            return "Client[clientId=" + this.clientId + "]";
+        }
+    }
+}
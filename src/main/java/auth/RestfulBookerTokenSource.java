@@ -0,0 +1,67 @@
+package auth;
+
+import config.ApiHosts;
+import extraction.ParsedResponse;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import server.RestfulBookerStubServer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Creates restful-booker tokens with {@code POST /auth}, sent back by the API as the {@code token} cookie.
+ * <p>
+ * Restful-booker does not say how long a token lives, so every token is treated as valid for a fixed lifetime.
+ */
+public class RestfulBookerTokenSource implements TokenSource<Credentials> {
+
+    public static final Credentials ADMIN =
+            new Credentials(RestfulBookerStubServer.ADMIN_USERNAME, RestfulBookerStubServer.ADMIN_PASSWORD);
+
+    private final String baseUri;
+    private final Duration lifetime;
+
+    /**
+     * @param lifetime how long a token is used before a new one is created
+     */
+    public RestfulBookerTokenSource(String baseUri, Duration lifetime) {
+        this.baseUri = baseUri;
+        this.lifetime = lifetime;
+    }
+
+    /**
+     * @return tokens for {@link ApiHosts#restfulBooker()}, valid for 10 minutes, shared by the JVM
+     */
+    public static TokenProvider<Credentials> sharedProvider() {
+        return DefaultHolder.PROVIDER;
+    }
+
+    @Override
+    public AccessToken fetch(Credentials credentials) {
+        Instant issuedAt = Instant.now();
+        Response response = RestAssured.given()
+                                       .and().baseUri(this.baseUri)
+                                       .and().basePath("/auth")
+                                       .and().contentType(ContentType.JSON)
+                                       .and().body(Map.of("username", credentials.username(),
+                                               "password", credentials.password()))
+                                       .when().post();
+        // Wrong credentials are answered with 200 and a reason instead of a token
+        String token = response.getStatusCode() == 200 ? ParsedResponse.of(response).getString("token") : null;
+        if (token == null) {
+            throw new IllegalStateException("No restful-booker token for " + credentials + ": HTTP "
+                    + response.getStatusCode() + " " + response.asString());
+        }
+        return AccessToken.of(token, issuedAt, this.lifetime);
+    }
+
+    private static final class DefaultHolder {
+
+        private static final TokenProvider<Credentials> PROVIDER =
+                TokenProvider.builder(new RestfulBookerTokenSource(ApiHosts.restfulBooker(), Duration.ofMinutes(10)))
+                             .build();
+    }
+}
@@ -0,0 +1,261 @@
+package auth;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches tokens per credentials and refreshes them with one call at a time, no matter how many threads ask.
+ * <p>
+ * Parallel tests that each log in send one token request per test, and a burst of them at the start of a run can
+ * trip the API's rate limits. This provider keeps the last token for every credentials and hands it to every caller
+ * while it is valid:
+ * <ul>
+ *     <li>Single flight: when there is no valid token, one caller fetches it from the {@link TokenSource} and the
+ *     others wait for that result instead of sending their own request.</li>
+ *     <li>Refresh ahead: within {@link Builder#refreshAhead(Duration)} of the expiry the current token is still
+ *     returned while a new one is fetched in the background, so callers do not wait at the expiry. For tokens that
+ *     live less than twice that long, the refresh starts halfway through their lifetime instead.</li>
+ *     <li>A token the API rejects can be dropped with {@link #invalidate(Object, String)}, the next caller fetches a
+ *     new one.</li>
+ * </ul>
+ * <pre>{@code
+ * TokenProvider<Credentials> tokens = TokenProvider.builder(new RestfulBookerTokenSource(baseUri)).build();
+ * String token = tokens.token(new Credentials("admin", "password123"));
+ * }</pre>
+ * Use {@link filters.TokenAuthFilter} to add the token to requests.
+ *
+ * @param <C> the credentials, one cached token per distinct value
+ */
+public class TokenProvider<C> {
+
+    private final TokenSource<C> source;
+    private final Duration refreshAhead;
+    private final ConcurrentMap<C, Slot> slots = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshesAhead = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    private TokenProvider(Builder<C> builder) {
+        this.source = builder.source;
+        this.refreshAhead = builder.refreshAhead;
+    }
+
+    public static <C> Builder<C> builder(TokenSource<C> source) {
+        return new Builder<>(source);
+    }
+
+    /**
+     * @return the token value for the credentials, fetched if there is no valid one
+     */
+    public String token(C credentials) {
+        return this.accessToken(credentials).value();
+    }
+
+    public AccessToken accessToken(C credentials) {
+        Slot slot = this.slot(credentials);
+        Cached current = slot.cached;
+        Instant now = Instant.now();
+        if (current != null && now.isBefore(current.token().expiresAt())) {
+            if (now.isBefore(current.refreshAt())) {
+                this.hits.increment();
+            } else {
+                this.refreshAhead(credentials, slot);
+            }
+            return current.token();
+        }
+        return this.refresh(credentials, slot);
+    }
+
+    /**
+     * Fetches a new token even if the cached one is valid, or joins a fetch that is already in flight.
+     */
+    public AccessToken refresh(C credentials) {
+        return this.refresh(credentials, this.slot(credentials));
+    }
+
+    /**
+     * Drops the cached token if it still is {@code rejectedToken}, e.g. after a 401 or 403. A token another caller
+     * refreshed in the meantime is kept.
+     */
+    public void invalidate(C credentials, String rejectedToken) {
+        Slot slot = this.slots.get(credentials);
+        if (slot != null) {
+            synchronized (slot) {
+                if (slot.cached != null && slot.cached.token().value().equals(rejectedToken)) {
+                    slot.cached = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Caches a token obtained elsewhere, e.g. one passed in through an environment variable.
+     */
+    public void seed(C credentials, AccessToken token) {
+        this.slot(credentials).cached = this.cache(token);
+    }
+
+    public Stats stats() {
+        return new Stats(this.hits.sum(), this.refreshes.sum(), this.refreshesAhead.sum(), this.failures.sum(),
+                this.waits.sum(), TimeUnit.NANOSECONDS.toMillis(this.waitNanos.sum()), this.slots.size());
+    }
+
+    private Slot slot(C credentials) {
+        return this.slots.computeIfAbsent(credentials, key -> new Slot());
+    }
+
+    private AccessToken refresh(C credentials, Slot slot) {
+        CompletableFuture<AccessToken> inFlight;
+        boolean leader = false;
+        synchronized (slot) {
+            if (slot.inFlight == null) {
+                slot.inFlight = new CompletableFuture<>();
+                leader = true;
+            }
+            inFlight = slot.inFlight;
+        }
+        if (leader) {
+            this.fetch(credentials, slot, inFlight);
+            return await(inFlight);
+        }
+        this.waits.increment();
+        long start = System.nanoTime();
+        try {
+            return await(inFlight);
+        } finally {
+            this.waitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private void refreshAhead(C credentials, Slot slot) {
+        CompletableFuture<AccessToken> inFlight;
+        synchronized (slot) {
+            if (slot.inFlight != null) {
+                return;
+            }
+            inFlight = new CompletableFuture<>();
+            slot.inFlight = inFlight;
+        }
+        this.refreshesAhead.increment();
+        // The current token stays valid meanwhile, so a failure here only shows up in the stats
+        Thread.ofVirtual().name("token-refresh").start(() -> this.fetch(credentials, slot, inFlight));
+    }
+
+    private void fetch(C credentials, Slot slot, CompletableFuture<AccessToken> inFlight) {
+        AccessToken token = null;
+        Throwable failure = null;
+        try {
+            token = this.source.fetch(credentials);
+            this.refreshes.increment();
+        } catch (Throwable e) {
+            this.failures.increment();
+            failure = e;
+        } finally {
+            // Cleared before the waiters wake up, so a caller retrying after a failure starts a new fetch
+            synchronized (slot) {
+                if (token != null) {
+                    slot.cached = this.cache(token);
+                }
+                slot.inFlight = null;
+            }
+        }
+        if (failure == null) {
+            inFlight.complete(token);
+        } else {
+            inFlight.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * @return the token with the time to refresh it, {@link Builder#refreshAhead(Duration)} before the expiry but
+     * no earlier than halfway through its lifetime
+     */
+    private Cached cache(AccessToken token) {
+        Instant now = Instant.now();
+        Duration halfLifetime = now.isBefore(token.expiresAt())
+                ? Duration.between(now, token.expiresAt()).dividedBy(2) : Duration.ZERO;
+        return new Cached(token, token.expiresAt().minus(
+                this.refreshAhead.compareTo(halfLifetime) < 0 ? this.refreshAhead : halfLifetime));
+    }
+
+    private static AccessToken await(CompletableFuture<AccessToken> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cached token and the fetch in flight of one credentials, both guarded by the slot's monitor.
+     */
+    private static final class Slot {
+
+        private volatile Cached cached;
+        private CompletableFuture<AccessToken> inFlight;
+    }
+
+    /**
+     * @param refreshAt when a background refresh starts, before the token expires
+     */
+    private record Cached(AccessToken token, Instant refreshAt) {
+    }
+
+    /**
+     * Counters of the provider.
+     *
+     * @param hits           calls answered from the cache
+     * @param refreshes      tokens fetched from the source
+     * @param refreshesAhead fetches started before the cached token expired
+     * @param failures       fetches that failed
+     * @param waits          calls that waited for another caller's fetch
+     * @param waitMillis     time spent waiting for other callers' fetches
+     * @param credentials    distinct credentials seen
+     */
+    public record Stats(long hits, long refreshes, long refreshesAhead, long failures, long waits, long waitMillis,
+                        int credentials) {
+    }
+
+    public static class Builder<C> {
+
+        private final TokenSource<C> source;
+        private Duration refreshAhead = Duration.ofSeconds(30);
+
+        private Builder(TokenSource<C> source) {
+            this.source = source;
+        }
+
+        /**
+         * @param refreshAhead how long before the expiry a new token is fetched in the background, 30 seconds by
+         *                     default. Capped at half the lifetime of each token, so short-lived tokens are not
+         *                     refreshed on every call.
+         * @throws IllegalArgumentException if it is negative
+         */
+        public Builder<C> refreshAhead(Duration refreshAhead) {
+            if (refreshAhead.isNegative()) {
+                throw new IllegalArgumentException("refreshAhead must not be negative, got " + refreshAhead);
+            }
+            this.refreshAhead = refreshAhead;
+            return this;
+        }
+
+        public TokenProvider<C> build() {
+            return new TokenProvider<>(this);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package auth;
+
+/**
+ * Obtains a new token for one set of credentials, usually with an HTTP call to the API's token endpoint.
+ * {@link TokenProvider} makes sure only one call per credentials is in flight.
+ *
+ * @param <C> the credentials, compared with {@code equals} to find cached tokens
+ */
+@FunctionalInterface
+public interface TokenSource<C> {
+
+    /**
+     * @throws RuntimeException if the API does not hand out a token, waiting callers get the same exception
+     */
+    AccessToken fetch(C credentials);
+}
@@ -0,0 +1,92 @@
+package config;
+
+import server.RestfulBookerStubServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Central place for the base URIs used by the practice tests.
+ * <p>
+ * Every host can be overridden with a system property, so the same tests run against the public
+ * practice APIs or against a local stand-in:
+ * <ul>
+ *     <li>{@code -DrestfulBooker.baseUri=...} for restful-booker</li>
+ *     <li>{@code -DtheInternet.baseUri=...} for the basic/digest auth pages of the-internet</li>
+ *     <li>{@code -Dapi.hosts=local} switches every host above to the in-process stub</li>
+ * </ul>
+ * The value {@value #LOCAL} starts a {@link RestfulBookerStubServer} on a loopback port the first time it is
+ * needed and reuses it for the rest of the JVM, e.g. {@code mvn test -Dapi.hosts=local}.
+ */
+public final class ApiHosts {
+
+    public static final String LOCAL = "local";
+    public static final String ALL_HOSTS_PROPERTY = "api.hosts";
+    public static final String RESTFUL_BOOKER_PROPERTY = "restfulBooker.baseUri";
+    public static final String THE_INTERNET_PROPERTY = "theInternet.baseUri";
+
+    private static final String RESTFUL_BOOKER_DEFAULT = "https://restful-booker.herokuapp.com";
+    private static final String THE_INTERNET_DEFAULT = "https://the-internet.herokuapp.com/";
+
+    private ApiHosts() {
+    }
+
+    /**
+     * @return base URI of restful-booker, without a trailing slash
+     */
+    public static String restfulBooker() {
+        return resolve(RESTFUL_BOOKER_PROPERTY, RESTFUL_BOOKER_DEFAULT, "");
+    }
+
+    /**
+     * @return base URI of the-internet, with a trailing slash as the auth tests use relative base paths
+     */
+    public static String theInternet() {
+        return resolve(THE_INTERNET_PROPERTY, THE_INTERNET_DEFAULT, "/");
+    }
+
+    /**
+     * @return true if restful-booker calls go to the in-process stub
+     */
+    public static boolean isRestfulBookerLocal() {
+        return LOCAL.equalsIgnoreCase(valueOf(RESTFUL_BOOKER_PROPERTY));
+    }
+
+    /**
+     * @return the shared local stub, started on first use
+     */
+    public static RestfulBookerStubServer localServer() {
+        return LocalServerHolder.SERVER;
+    }
+
+    private static String resolve(String property, String defaultUri, String localSuffix) {
+        String value = valueOf(property);
+        if (value == null || value.isBlank()) {
+            return defaultUri;
+        }
+        return LOCAL.equalsIgnoreCase(value) ? localServer().getBaseUri() + localSuffix : value;
+    }
+
+    private static String valueOf(String property) {
+        String value = System.getProperty(property);
+        return value != null ? value : System.getProperty(ALL_HOSTS_PROPERTY);
+    }
+
+    /**
+     * Lazy holder so the server only starts when a test actually asks for a local host.
+     */
+    private static final class LocalServerHolder {
+
+        private static final RestfulBookerStubServer SERVER = startServer();
+
+        private static RestfulBookerStubServer startServer() {
+            try {
+                RestfulBookerStubServer server = RestfulBookerStubServer.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(server::close, "restful-booker-stub-shutdown"));
+                return server;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start the local restful-booker stub", e);
+            }
+        }
+    }
+}
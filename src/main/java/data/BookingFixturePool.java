@@ -0,0 +1,423 @@
+package data;
+
+import config.ApiHosts;
+import pojo.request.BookingDates;
+import pojo.request.CreateBookingRequest;
+import specs.RequestSpecFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bookings created once for the suite and leased to the tests that need an existing booking, instead of a
+ * hard-coded id that may be gone on the public API or a create call at the start of every test.
+ * <p>
+ * All bookings are created concurrently on virtual threads as soon as the pool is built, capped like
+ * {@link BulkBookingCreator}, so they are usually ready before the first test asks. Two kinds of lease:
+ * <ul>
+ *     <li>{@link #shared()} for tests that only read. The shared bookings are never changed, so any number of
+ *     tests read the same ones at the same time, handed out in turn.</li>
+ *     <li>{@link #exclusive()} for tests that update or delete. The booking is leased to one test until the lease
+ *     is closed. Closed unchanged, it goes back to the pool. After {@link Lease#consume()} it is dropped and a new
+ *     booking is created in the background, so the next test finds one ready.</li>
+ * </ul>
+ * A lease only waits if no booking is ready yet, {@link Stats#waitedLeases()} counts those; raise
+ * {@value #EXCLUSIVE_PROPERTY} if it is not 0. A failed create is retried {@value #CREATE_ATTEMPTS} times with a
+ * growing delay. When it still fails, a shared booking is created again by the next {@link #shared()}, and an
+ * exclusive booking by the next {@link #exclusive()} that finds nothing ready or being created; that lease fails right
+ * away with the cause while the last create failed. Fixtures are left on
+ * the API when the pool is closed, like the bookings other tests create.
+ * <pre>{@code
+ * int bookingId = BookingFixturePool.getDefault().shared().bookingId();
+ *
+ * try (BookingFixturePool.Lease lease = BookingFixturePool.getDefault().exclusive()) {
+ *     // delete lease.bookingId()
+ *     lease.consume();
+ * }
+ * }</pre>
+ */
+public class BookingFixturePool implements AutoCloseable {
+
+    public static final String SHARED_PROPERTY = "fixtures.sharedBookings";
+    public static final String EXCLUSIVE_PROPERTY = "fixtures.exclusiveBookings";
+    public static final String LEASE_TIMEOUT_PROPERTY = "fixtures.leaseTimeout";
+
+    private static final int CREATE_ATTEMPTS = 3;
+    private static final long FIRST_RETRY_DELAY_MILLIS = 200;
+
+    private final BulkBookingCreator creator;
+    private final Supplier<CreateBookingRequest> bookings;
+    private final int sharedBookings;
+    private final int exclusiveBookings;
+    private final Duration leaseTimeout;
+    private final List<CompletableFuture<Fixture>> shared = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Fixture> ready = new LinkedBlockingQueue<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger nextShared = new AtomicInteger();
+    private final AtomicInteger creating = new AtomicInteger();
+    private final AtomicInteger lost = new AtomicInteger();
+    private final LongAdder sharedLeases = new LongAdder();
+    private final LongAdder exclusiveLeases = new LongAdder();
+    private final LongAdder recycled = new LongAdder();
+    private final LongAdder consumed = new LongAdder();
+    private final LongAdder waitedLeases = new LongAdder();
+    private volatile RuntimeException lastFailure;
+    private volatile boolean closed;
+
+    private BookingFixturePool(Builder builder) {
+        this.creator = new BulkBookingCreator(builder.requestSpecFactory, 0, builder.maxInFlight);
+        this.bookings = builder.bookings;
+        this.sharedBookings = builder.sharedBookings;
+        this.exclusiveBookings = builder.exclusiveBookings;
+        this.leaseTimeout = builder.leaseTimeout;
+    }
+
+    public static Builder builder(RequestSpecFactory requestSpecFactory) {
+        return new Builder(requestSpecFactory);
+    }
+
+    /**
+     * @return a pool of {@value #SHARED_PROPERTY} (2) shared and {@value #EXCLUSIVE_PROPERTY} (4) exclusive
+     * bookings, leases waiting up to {@value #LEASE_TIMEOUT_PROPERTY} (30000) ms, creating at most
+     * {@value BulkBookingCreator#MAX_IN_FLIGHT_PROPERTY} (16) at a time
+     */
+    public static BookingFixturePool fromSystemProperties(RequestSpecFactory requestSpecFactory) {
+        return builder(requestSpecFactory).sharedBookings(Integer.getInteger(SHARED_PROPERTY, 2))
+                                          .exclusiveBookings(Integer.getInteger(EXCLUSIVE_PROPERTY, 4))
+                                          .leaseTimeout(Duration.ofMillis(Long.getLong(LEASE_TIMEOUT_PROPERTY, 30_000)))
+                                          .maxInFlight(Integer.getInteger(BulkBookingCreator.MAX_IN_FLIGHT_PROPERTY, 16))
+                                          .build();
+    }
+
+    /**
+     * @return the pool shared by every test of the JVM, on {@link ApiHosts#restfulBooker()}, created on first use
+     */
+    public static BookingFixturePool getDefault() {
+        return DefaultHolder.POOL;
+    }
+
+    /**
+     * @return the booking the fixtures are created from by default, with the values the practice tests assert on
+     */
+    public static CreateBookingRequest fixtureBooking() {
+        BookingDates bookingDates = new BookingDates();
+        bookingDates.setCheckIn("2018-01-01");
+        bookingDates.setCheckOut("2019-01-01");
+        CreateBookingRequest booking = new CreateBookingRequest();
+        booking.setFirstName("Fixture");
+        booking.setLastName("Booking");
+        booking.setTotalPrice(111);
+        booking.setDepositPaid(true);
+        booking.setAdditionalNeeds("Breakfast");
+        booking.setBookingDates(bookingDates);
+        return booking;
+    }
+
+    private BookingFixturePool start() {
+        for (int i = 0; i < this.sharedBookings; i++) {
+            this.shared.add(this.createShared());
+        }
+        for (int i = 0; i < this.exclusiveBookings; i++) {
+            this.replenish();
+        }
+        return this;
+    }
+
+    /**
+     * @return one of the shared bookings, which must not be changed
+     * @throws IllegalStateException if the pool has no shared bookings, or the booking could not be created in time
+     */
+    public Fixture shared() {
+        if (this.shared.isEmpty()) {
+            throw new IllegalStateException("No shared booking fixtures, set -D" + SHARED_PROPERTY);
+        }
+        CompletableFuture<Fixture> fixture =
+                this.sharedFixture(Math.floorMod(this.nextShared.getAndIncrement(), this.shared.size()));
+        if (!fixture.isDone()) {
+            this.waitedLeases.increment();
+        }
+        try {
+            Fixture leased = fixture.get(this.leaseTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            this.sharedLeases.increment();
+            return leased;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Shared booking fixture not created", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Shared booking fixture not created within " + this.leaseTimeout, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a booking fixture", e);
+        }
+    }
+
+    /**
+     * @return a booking only this lease uses until it is closed
+     * @throws IllegalStateException if no booking is ready within the lease timeout
+     */
+    public Lease exclusive() {
+        Fixture fixture = this.ready.poll();
+        if (fixture == null && this.creating.get() == 0 && this.lost.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            // Nothing is being created and nothing else replaces the lost booking
+            this.replenish();
+            RuntimeException failure = this.lastFailure;
+            if (failure != null) {
+                throw new IllegalStateException("Booking fixture could not be created, trying again for the next"
+                        + " lease: " + this.stats(), failure);
+            }
+        }
+        if (fixture == null) {
+            this.waitedLeases.increment();
+            try {
+                fixture = this.ready.poll(this.leaseTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a booking fixture", e);
+            }
+            if (fixture == null) {
+                throw new IllegalStateException("No booking fixture ready within " + this.leaseTimeout + ": "
+                        + this.stats(), this.lastFailure);
+            }
+        }
+        this.exclusiveLeases.increment();
+        return new Lease(fixture);
+    }
+
+    public Stats stats() {
+        BulkBookingCreator.Stats creatorStats = this.creator.stats();
+        return new Stats(creatorStats.created(), creatorStats.failed(), this.ready.size(), this.sharedLeases.sum(),
+                this.exclusiveLeases.sum(), this.recycled.sum(), this.consumed.sum(), this.waitedLeases.sum());
+    }
+
+    /**
+     * Stops creating bookings in place of consumed ones. Bookings already created can still be leased.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.executor.shutdown();
+    }
+
+    private void release(Fixture fixture, boolean changed) {
+        if (changed) {
+            this.consumed.increment();
+            this.replenish();
+        } else {
+            this.recycled.increment();
+            this.ready.offer(fixture);
+        }
+    }
+
+    /**
+     * @return the shared booking at the index, created again if creating it failed
+     */
+    private CompletableFuture<Fixture> sharedFixture(int index) {
+        CompletableFuture<Fixture> fixture = this.shared.get(index);
+        if (!fixture.isCompletedExceptionally() || this.closed) {
+            return fixture;
+        }
+        synchronized (this.shared) {
+            fixture = this.shared.get(index);
+            if (fixture.isCompletedExceptionally()) {
+                fixture = this.createShared();
+                this.shared.set(index, fixture);
+            }
+            return fixture;
+        }
+    }
+
+    private CompletableFuture<Fixture> createShared() {
+        return CompletableFuture.supplyAsync(this::createFixture, this.executor);
+    }
+
+    private void replenish() {
+        if (this.closed) {
+            return;
+        }
+        this.creating.incrementAndGet();
+        this.executor.execute(() -> {
+            try {
+                this.ready.offer(this.createFixture());
+            } catch (RuntimeException e) {
+                // Also counted in failed, exclusive() creates it again once nothing else is being created
+                this.lastFailure = e;
+                this.lost.incrementAndGet();
+            } finally {
+                this.creating.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Creates a booking, retrying with a doubling delay so a short outage of the API does not shrink the pool.
+     */
+    private Fixture createFixture() {
+        long delayMillis = FIRST_RETRY_DELAY_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            CreateBookingRequest booking = this.bookings.get();
+            try {
+                Fixture fixture = new Fixture(this.creator.create(booking), booking);
+                this.lastFailure = null;
+                return fixture;
+            } catch (RuntimeException e) {
+                if (attempt == CREATE_ATTEMPTS || this.closed) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while creating a booking fixture", e);
+            }
+            delayMillis *= 2;
+        }
+    }
+
+    /**
+     * A created booking.
+     *
+     * @param bookingId id of the booking
+     * @param booking   the booking as it was created, not to be modified
+     */
+    public record Fixture(int bookingId, CreateBookingRequest booking) {
+    }
+
+    /**
+     * An exclusive lease, to be closed when the test is done with the booking, best with try-with-resources.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Fixture fixture;
+        private boolean changed;
+        private boolean closed;
+
+        private Lease(Fixture fixture) {
+            this.fixture = fixture;
+        }
+
+        public int bookingId() {
+            return this.fixture.bookingId();
+        }
+
+        /**
+         * @return the booking as it was created, not as the test may have changed it
+         */
+        public CreateBookingRequest booking() {
+            return this.fixture.booking();
+        }
+
+        /**
+         * Marks the booking as updated or deleted, so it is not leased again and a new one is created in its place.
+         */
+        public void consume() {
+            this.changed = true;
+        }
+
+        @Override
+        public void close() {
+            if (!this.closed) {
+                this.closed = true;
+                BookingFixturePool.this.release(this.fixture, this.changed);
+            }
+        }
+    }
+
+    /**
+     * Counters of the pool.
+     *
+     * @param created         bookings created, shared, exclusive and in place of consumed ones
+     * @param failed          create requests that failed, retries included
+     * @param ready           exclusive bookings ready to be leased now
+     * @param sharedLeases    shared bookings handed out
+     * @param exclusiveLeases exclusive leases handed out
+     * @param recycled        exclusive leases closed without a change, their booking was leased again
+     * @param consumed        exclusive leases whose booking was changed or deleted and replaced
+     * @param waitedLeases    leases that had to wait for a booking to be created
+     */
+    public record Stats(long created, long failed, int ready, long sharedLeases, long exclusiveLeases, long recycled,
+                        long consumed, long waitedLeases) {
+    }
+
+    public static class Builder {
+
+        private final RequestSpecFactory requestSpecFactory;
+        private Supplier<CreateBookingRequest> bookings = BookingFixturePool::fixtureBooking;
+        private int sharedBookings = 2;
+        private int exclusiveBookings = 4;
+        private Duration leaseTimeout = Duration.ofSeconds(30);
+        private int maxInFlight = 16;
+
+        private Builder(RequestSpecFactory requestSpecFactory) {
+            this.requestSpecFactory = requestSpecFactory;
+        }
+
+        /**
+         * @param bookings called for every booking created, {@link #fixtureBooking()} by default
+         */
+        public Builder bookings(Supplier<CreateBookingRequest> bookings) {
+            this.bookings = bookings;
+            return this;
+        }
+
+        public Builder sharedBookings(int sharedBookings) {
+            this.sharedBookings = sharedBookings;
+            return this;
+        }
+
+        /**
+         * Bookings kept ready for exclusive leases, about the number of tests changing a booking at the same time.
+         */
+        public Builder exclusiveBookings(int exclusiveBookings) {
+            this.exclusiveBookings = exclusiveBookings;
+            return this;
+        }
+
+        /**
+         * Longest a lease waits for a booking to be created.
+         */
+        public Builder leaseTimeout(Duration leaseTimeout) {
+            this.leaseTimeout = leaseTimeout;
+            return this;
+        }
+
+        /**
+         * Create requests allowed at the same time.
+         */
+        public Builder maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * @return the pool, already creating its bookings
+         */
+        public BookingFixturePool build() {
+            return new BookingFixturePool(this).start();
+        }
+    }
+
+    private static final class DefaultHolder {
+
+        private static final BookingFixturePool POOL = createDefault();
+
+        private static BookingFixturePool createDefault() {
+            // No logging filters, the fixtures are not what the tests are about
+            BookingFixturePool pool = fromSystemProperties(RequestSpecFactory.forBaseUri(ApiHosts.restfulBooker(),
+                    List::of));
+            Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "booking-fixture-pool-shutdown"));
+            return pool;
+        }
+    }
+}
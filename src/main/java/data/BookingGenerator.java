@@ -0,0 +1,105 @@
+package data;
+
+import pojo.request.BookingDates;
+import pojo.request.CreateBookingRequest;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Generates varied {@link CreateBookingRequest}s that are the same on every run with the same seed.
+ * <p>
+ * Booking {@code i} only depends on the seed and {@code i}, so bookings can be generated in any order and on any
+ * thread, and a later phase can regenerate booking {@code i} to know what was sent instead of keeping it in memory.
+ * Names come from small pools, so the {@code firstname} and {@code lastname} filters of {@code GET /booking} find
+ * several bookings for most combinations once a few thousand are created.
+ * <pre>{@code
+ * BookingGenerator generator = new BookingGenerator(42);
+ *
+ * @DataProvider(parallel = true)
+ * public Iterator<Object[]> bookings() {
+ *     return generator.rows(5000);
+ * }
+ * }</pre>
+ */
+public class BookingGenerator {
+
+    private static final String[] FIRST_NAMES = {
+            "Sam", "Mary", "John", "Sally", "Jim", "Susan", "Mark", "Eric", "Jane", "Elon",
+            "Ada", "Alan", "Grace", "Linus", "Barbara", "Ken"
+    };
+    private static final String[] LAST_NAMES = {
+            "Alton", "Smith", "Jones", "Wilson", "Jackson", "Brown", "Ericsson", "Doe", "Musk", "Lovelace",
+            "Turing", "Hopper", "Torvalds", "Liskov", "Thompson", "Ritchie"
+    };
+    private static final String[] ADDITIONAL_NEEDS = {"Breakfast", "Late checkout", "Parking", "Nothing else"};
+    private static final LocalDate FIRST_CHECK_IN = LocalDate.of(2024, 1, 1);
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+
+    public BookingGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return booking {@code index}, the same for the same seed and index
+     */
+    public CreateBookingRequest booking(int index) {
+        SplittableRandom random = this.random(index);
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setFirstName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+        request.setLastName(LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        request.setTotalPrice(random.nextInt(50, 2000));
+        request.setDepositPaid(random.nextBoolean());
+        request.setAdditionalNeeds(ADDITIONAL_NEEDS[random.nextInt(ADDITIONAL_NEEDS.length)]);
+
+        LocalDate checkIn = FIRST_CHECK_IN.plusDays(random.nextInt(365));
+        BookingDates bookingDates = new BookingDates();
+        bookingDates.setCheckIn(checkIn.toString());
+        bookingDates.setCheckOut(checkIn.plusDays(random.nextInt(1, 15)).toString());
+        request.setBookingDates(bookingDates);
+        return request;
+    }
+
+    /**
+     * @return bookings {@code 0} to {@code count - 1}, generated as they are consumed
+     */
+    public Stream<CreateBookingRequest> bookings(int count) {
+        return IntStream.range(0, count).mapToObj(this::booking);
+    }
+
+    /**
+     * Rows {@code {index, booking}} for a TestNG {@code @DataProvider}. They are generated when TestNG asks for them,
+     * so a large count does not keep every booking in memory.
+     */
+    public Iterator<Object[]> rows(int count) {
+        return new Iterator<>() {
+
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < count;
+            }
+
+            @Override
+            public Object[] next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int index = this.next++;
+                return new Object[]{index, BookingGenerator.this.booking(index)};
+            }
+        };
+    }
+
+    private SplittableRandom random(int index) {
+        // SplittableRandom mixes its seed, neighbouring indexes still get unrelated sequences
+        return new SplittableRandom(this.seed * GOLDEN_GAMMA + index);
+    }
+}
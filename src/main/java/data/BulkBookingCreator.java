@@ -0,0 +1,179 @@
+package data;
+
+import extraction.ParsedResponse;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import mapping.SharedObjectMapper;
+import pojo.request.CreateBookingRequest;
+import specs.RequestSpecFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Creates bookings concurrently with a cap on the requests in flight, and keeps the returned ids by index.
+ * <p>
+ * The cap applies across every thread using the creator, so a wide TestNG data provider pool or
+ * {@link #createAll(BookingGenerator)} cannot open more connections than the API or the connection pool can take.
+ * Ids are stored in an {@code int} per booking index, {@code 0} for bookings not created (yet), and
+ * {@link #bookingIds()} hands them to the phases that read, update or delete the bookings.
+ * <pre>{@code
+ * BulkBookingCreator creator = new BulkBookingCreator(RequestSpecFactory.restfulBooker(), 5000, 16);
+ * int[] bookingIds = creator.createAll(new BookingGenerator(42));
+ * }</pre>
+ */
+public class BulkBookingCreator {
+
+    public static final String MAX_IN_FLIGHT_PROPERTY = "bulk.maxInFlight";
+
+    private final RequestSpecFactory requestSpecFactory;
+    private final AtomicIntegerArray bookingIds;
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * @param requestSpecFactory specs for restful-booker, preferably without logging filters
+     * @param capacity           number of booking indexes, {@code 0} to {@code capacity - 1}
+     * @param maxInFlight        create requests allowed at the same time
+     */
+    public BulkBookingCreator(RequestSpecFactory requestSpecFactory, int capacity, int maxInFlight) {
+        this.requestSpecFactory = requestSpecFactory;
+        this.bookingIds = new AtomicIntegerArray(capacity);
+        this.permits = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * @return a creator allowing {@value #MAX_IN_FLIGHT_PROPERTY} (16) requests at the same time, the per-route
+     * limit of the shared connection pool
+     */
+    public static BulkBookingCreator fromSystemProperties(RequestSpecFactory requestSpecFactory, int capacity) {
+        return new BulkBookingCreator(requestSpecFactory, capacity, Integer.getInteger(MAX_IN_FLIGHT_PROPERTY, 16));
+    }
+
+    /**
+     * Creates one booking, waiting while the cap is reached.
+     *
+     * @return the booking id, also stored at {@code index}
+     * @throws IllegalStateException if the API does not create the booking
+     */
+    public int create(int index, CreateBookingRequest request) {
+        this.acquire();
+        try {
+            return this.send(index, request);
+        } finally {
+            this.permits.release();
+        }
+    }
+
+    /**
+     * Creates one booking without keeping its id, under the same cap, e.g. for {@link BookingFixturePool}.
+     *
+     * @return the booking id
+     * @throws IllegalStateException if the API does not create the booking
+     */
+    public int create(CreateBookingRequest request) {
+        return this.create(-1, request);
+    }
+
+    /**
+     * Creates booking {@code 0} to {@code capacity - 1} of the generator on virtual threads, at most
+     * {@code maxInFlight} at a time. Failed creates are counted and leave a {@code 0} id.
+     *
+     * @return the booking ids by index
+     */
+    public int[] createAll(BookingGenerator generator) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < this.bookingIds.length(); i++) {
+                int index = i;
+                // Acquire before starting the thread, so waiting creates do not pile up as threads
+                this.acquire();
+                executor.execute(() -> {
+                    try {
+                        this.send(index, generator.booking(index));
+                    } catch (RuntimeException e) {
+                        // Counted in failed, the id stays 0
+                    } finally {
+                        this.permits.release();
+                    }
+                });
+            }
+        }
+        return this.bookingIds();
+    }
+
+    /**
+     * @return a copy of the ids by booking index, {@code 0} where no booking was created
+     */
+    public int[] bookingIds() {
+        int[] ids = new int[this.bookingIds.length()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = this.bookingIds.get(i);
+        }
+        return ids;
+    }
+
+    public int bookingId(int index) {
+        return this.bookingIds.get(index);
+    }
+
+    public Stats stats() {
+        return new Stats(this.created.sum(), this.failed.sum(), this.maxInFlight, this.peakInFlight.get());
+    }
+
+    private int send(int index, CreateBookingRequest request) {
+        this.peakInFlight.accumulateAndGet(this.inFlight.incrementAndGet(), Math::max);
+        Response response;
+        try {
+            response = this.requestSpecFactory.newRequest()
+                                              .and().basePath("/booking")
+                                              .and().contentType(ContentType.JSON)
+                                              .and().body(SharedObjectMapper.getDefault().toBytes(request))
+                                              .when().post();
+        } catch (RuntimeException e) {
+            this.failed.increment();
+            throw e;
+        } finally {
+            this.inFlight.decrementAndGet();
+        }
+        if (response.getStatusCode() != 200) {
+            this.failed.increment();
+            throw new IllegalStateException((index < 0 ? "Booking" : "Booking " + index) + " not created: HTTP "
+                    + response.getStatusCode());
+        }
+        int bookingId = ParsedResponse.of(response).getInt("bookingid");
+        if (index >= 0) {
+            this.bookingIds.set(index, bookingId);
+        }
+        this.created.increment();
+        return bookingId;
+    }
+
+    private void acquire() {
+        try {
+            this.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to create a booking", e);
+        }
+    }
+
+    /**
+     * Counters of the creator.
+     *
+     * @param created      bookings created
+     * @param failed       create requests that failed or were not answered with 200
+     * @param maxInFlight  cap on concurrent create requests
+     * @param peakInFlight most create requests seen in flight at the same time
+     */
+    public record Stats(long created, long failed, int maxInFlight, int peakInFlight) {
+    }
+}
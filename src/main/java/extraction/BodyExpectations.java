@@ -0,0 +1,333 @@
+package extraction;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.restassured.response.Response;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of {@code path → matcher} expectations on a JSON body, compiled once and checked in a single pass of a
+ * streaming parser.
+ * <p>
+ * Each {@code .body(path, matcher)} of a {@code ValidatableResponse} evaluates its path with Groovy GPath on its own.
+ * These expectations are compiled into a tree of the fields they need, the body is read once from start to end,
+ * fields nobody asked for are skipped without being materialized, and only the values under an expectation are
+ * read into maps, lists and scalars for the matcher:
+ * <pre>{@code
+ * private static final BodyExpectations BOOKING = BodyExpectations.builder()
+ *         .body("totalprice", is(equalTo(111)))
+ *         .rootPath("bookingdates")
+ *         .body("checkin", is(notNullValue()))
+ *         .body("checkout", is(notNullValue()))
+ *         .detachRootPath()
+ *         .body("depositpaid", is(true))
+ *         .build();
+ *
+ * BOOKING.assertThat(response);
+ * }</pre>
+ * Every expectation is checked, and the {@link AssertionError} lists all that failed, in the same format as
+ * RestAssured. Paths are dotted field names with optional array indexes, e.g. {@code bookings[0].bookingid}, an
+ * empty path is the whole document. GPath expressions like {@code findAll} or collecting a field over a list are not
+ * supported, use {@code .body(path, matcher)} for those. A path that does not exist is matched as {@code null}.
+ * Numbers are read like {@link ParsedResponse} reads them: {@code Integer}, {@code Long}, {@code BigInteger} or
+ * {@code Double}.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+public class BodyExpectations {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Node root;
+    private final int nodeCount;
+    private final int expectationCount;
+
+    private BodyExpectations(Builder builder) {
+        this.root = new Node(0);
+        int[] nodeCount = {1};
+        for (Expectation expectation : builder.expectations) {
+            Node node = this.root;
+            for (Object segment : segments(expectation.path)) {
+                node = node.child(segment, nodeCount);
+            }
+            node.expectations.add(expectation);
+        }
+        this.nodeCount = nodeCount[0];
+        this.expectationCount = builder.expectations.size();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @throws AssertionError listing every expectation that failed
+     */
+    public void assertThat(Response response) {
+        throwIfFailed(this.validate(response.asByteArray()));
+    }
+
+    /**
+     * @throws AssertionError listing every expectation that failed
+     */
+    public void assertThat(byte[] json) {
+        throwIfFailed(this.validate(json));
+    }
+
+    /**
+     * @return one message per failed expectation, empty when the body matches
+     */
+    public List<String> validate(byte[] json) {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(json)) {
+            return this.validate(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Response body is not JSON", e);
+        }
+    }
+
+    /**
+     * Reads the body from the stream, then closes it.
+     *
+     * @return one message per failed expectation, empty when the body matches
+     */
+    public List<String> validate(InputStream json) {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(json)) {
+            return this.validate(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Response body is not JSON", e);
+        }
+    }
+
+    /**
+     * @return the number of expectations
+     */
+    public int size() {
+        return this.expectationCount;
+    }
+
+    private List<String> validate(JsonParser parser) throws IOException {
+        Walk walk = new Walk(parser, new boolean[this.nodeCount]);
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new IOException("Empty body");
+        }
+        walk.stream(this.root, token);
+        return walk.failures;
+    }
+
+    /**
+     * @return field names and array indexes of the path, e.g. {@code ["bookings", 0, "bookingid"]}
+     */
+    private static List<Object> segments(String path) {
+        List<Object> segments = new ArrayList<>();
+        int position = 0;
+        while (position < path.length()) {
+            if (path.charAt(position) == '[') {
+                int close = path.indexOf(']', position);
+                if (close < position + 2 || !path.substring(position + 1, close).chars().allMatch(Character::isDigit)) {
+                    throw unsupportedPath(path);
+                }
+                segments.add(Integer.valueOf(path.substring(position + 1, close)));
+                position = close + 1;
+                continue;
+            }
+            if (!segments.isEmpty() && path.charAt(position++) != '.') {
+                throw unsupportedPath(path);
+            }
+            int end = position;
+            while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                end++;
+            }
+            if (end == position) {
+                throw unsupportedPath(path);
+            }
+            segments.add(path.substring(position, end));
+            position = end;
+        }
+        return segments;
+    }
+
+    private static IllegalArgumentException unsupportedPath(String path) {
+        return new IllegalArgumentException("Unsupported path '" + path
+                + "', expected field names and array indexes like bookings[0].bookingid");
+    }
+
+    private static void throwIfFailed(List<String> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder().append(failures.size())
+                                                   .append(failures.size() == 1 ? " expectation" : " expectations")
+                                                   .append(" failed.\n");
+        for (String failure : failures) {
+            message.append(failure).append('\n');
+        }
+        throw new AssertionError(message.toString());
+    }
+
+    /**
+     * One pass over a body: streams through the fields the expectations need and collects the failures.
+     */
+    private static final class Walk {
+
+        private final JsonParser parser;
+        private final boolean[] visited;
+        private final List<String> failures = new ArrayList<>(0);
+
+        Walk(JsonParser parser, boolean[] visited) {
+            this.parser = parser;
+            this.visited = visited;
+        }
+
+        /**
+         * @param token the first token of the value of the node, the parser is on it
+         */
+        void stream(Node node, JsonToken token) throws IOException {
+            this.visited[node.id] = true;
+            if (!node.expectations.isEmpty()) {
+                // Matched as a whole, read it and check what lies below from memory
+                this.check(node, this.parser.readValueAs(Object.class));
+            } else if (token == JsonToken.START_OBJECT && !node.fields.isEmpty()) {
+                while (this.parser.nextToken() == JsonToken.FIELD_NAME) {
+                    Node child = node.fields.get(this.parser.getCurrentName());
+                    JsonToken value = this.parser.nextToken();
+                    if (child == null || this.visited[child.id]) {
+                        this.parser.skipChildren();
+                    } else {
+                        this.stream(child, value);
+                    }
+                }
+                this.checkMissing(node.fields);
+            } else if (token == JsonToken.START_ARRAY && !node.indexes.isEmpty()) {
+                int index = 0;
+                while (this.parser.nextToken() != JsonToken.END_ARRAY) {
+                    Node child = node.indexes.get(index++);
+                    if (child == null) {
+                        this.parser.skipChildren();
+                    } else {
+                        this.stream(child, this.parser.currentToken());
+                    }
+                }
+                this.checkMissing(node.indexes);
+            } else {
+                this.parser.skipChildren();
+                this.checkMissing(node.fields);
+                this.checkMissing(node.indexes);
+            }
+        }
+
+        private void checkMissing(Map<?, Node> children) {
+            for (Node child : children.values()) {
+                if (!this.visited[child.id]) {
+                    this.check(child, null);
+                }
+            }
+        }
+
+        /**
+         * Checks the node and everything below it against an already read value.
+         */
+        private void check(Node node, Object value) {
+            this.visited[node.id] = true;
+            for (Expectation expectation : node.expectations) {
+                if (!expectation.matcher.matches(value)) {
+                    this.failures.add("JSON path " + expectation.path + " doesn't match.\nExpected: "
+                            + StringDescription.toString(expectation.matcher) + "\n  Actual: " + value);
+                }
+            }
+            for (Map.Entry<String, Node> field : node.fields.entrySet()) {
+                this.check(field.getValue(), value instanceof Map<?, ?> map ? map.get(field.getKey()) : null);
+            }
+            for (Map.Entry<Integer, Node> index : node.indexes.entrySet()) {
+                this.check(index.getValue(), value instanceof List<?> list && index.getKey() < list.size()
+                        ? list.get(index.getKey()) : null);
+            }
+        }
+    }
+
+    /**
+     * A field or array element some expectation needs, with the expectations on its value.
+     */
+    private static final class Node {
+
+        private final int id;
+        private final Map<String, Node> fields = new LinkedHashMap<>();
+        private final Map<Integer, Node> indexes = new LinkedHashMap<>();
+        private final List<Expectation> expectations = new ArrayList<>();
+
+        Node(int id) {
+            this.id = id;
+        }
+
+        /**
+         * @param nodeCount nodes created so far, the new node takes the next id
+         */
+        Node child(Object segment, int[] nodeCount) {
+            if (segment instanceof Integer index) {
+                return this.indexes.computeIfAbsent(index, key -> new Node(nodeCount[0]++));
+            }
+            return this.fields.computeIfAbsent((String) segment, key -> new Node(nodeCount[0]++));
+        }
+    }
+
+    private record Expectation(String path, Matcher<?> matcher) {
+    }
+
+    public static class Builder {
+
+        private final List<Expectation> expectations = new ArrayList<>();
+        private String rootPath = "";
+
+        private Builder() {
+        }
+
+        /**
+         * Expects the value at the path, relative to the current {@link #rootPath(String)}, to match.
+         */
+        public Builder body(String path, Matcher<?> matcher) {
+            String fullPath = this.rootPath.isEmpty() ? path
+                    : path.isEmpty() ? this.rootPath
+                    : path.startsWith("[") ? this.rootPath + path
+                    : this.rootPath + "." + path;
+            segments(fullPath);
+            this.expectations.add(new Expectation(fullPath, matcher));
+            return this;
+        }
+
+        /**
+         * Prefixes the paths of the following {@link #body(String, Matcher)} calls, like
+         * {@code ValidatableResponse#rootPath(String)}.
+         */
+        public Builder rootPath(String rootPath) {
+            segments(rootPath);
+            this.rootPath = rootPath;
+            return this;
+        }
+
+        /**
+         * Makes the following paths relative to the document again, like
+         * {@code ValidatableResponse#detachRootPath(String)}.
+         */
+        public Builder detachRootPath() {
+            this.rootPath = "";
+            return this;
+        }
+
+        public BodyExpectations build() {
+            if (this.expectations.isEmpty()) {
+                throw new IllegalStateException("At least one expectation is required");
+            }
+            return new BodyExpectations(this);
+        }
+    }
+}
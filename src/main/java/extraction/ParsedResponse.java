@@ -0,0 +1,214 @@
+package extraction;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+import io.restassured.response.Response;
+import org.hamcrest.Matcher;
+import org.hamcrest.MatcherAssert;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A view on the JSON body of a {@link Response} that is parsed once and serves every later extraction and assertion.
+ * <p>
+ * Each call to {@link Response#jsonPath()} parses the body again, and so does each {@code .body(path, matcher)}
+ * expectation. This view parses the body into a tree on first use and evaluates paths against that tree:
+ * <pre>{@code
+ * ParsedResponse booking = ParsedResponse.of(response)
+ *                                        .body("totalprice", is(equalTo(111)))
+ *                                        .body("bookingdates.checkin", is(notNullValue()));
+ * int totalPrice = booking.getInt("totalprice");
+ * Map<String, Object> bookingDates = booking.getMap("bookingdates");
+ * }</pre>
+ * Paths are Jayway JSONPath expressions, a leading {@code $.} is optional, so the dotted paths used with
+ * {@link Response#jsonPath()} keep working. Like there, a path that does not exist reads as {@code null}.
+ * Compiled paths are kept in a bounded LRU cache shared by all threads, see {@link #stats()} for how many parses
+ * and compilations were avoided.
+ */
+public class ParsedResponse {
+
+    /**
+     * Number of compiled paths kept, overridable with the {@code parsedResponse.pathCacheSize} system property.
+     */
+    public static final int DEFAULT_PATH_CACHE_SIZE = Integer.getInteger("parsedResponse.pathCacheSize", 512);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Configuration CONFIGURATION = Configuration.builder()
+                                                                    .jsonProvider(new JacksonJsonProvider(OBJECT_MAPPER))
+                                                                    .mappingProvider(new JacksonMappingProvider(OBJECT_MAPPER))
+                                                                    .options(Option.SUPPRESS_EXCEPTIONS)
+                                                                    .build();
+    private static final PathCache PATH_CACHE = new PathCache(DEFAULT_PATH_CACHE_SIZE);
+    private static final LongAdder PARSES = new LongAdder();
+    private static final LongAdder READS = new LongAdder();
+
+    private final Response response;
+    private volatile Object document;
+
+    private ParsedResponse(Response response) {
+        this.response = response;
+    }
+
+    public static ParsedResponse of(Response response) {
+        return new ParsedResponse(response);
+    }
+
+    /**
+     * @return the value at the path, a list for paths with filters or wildcards
+     */
+    public <T> T get(String path) {
+        READS.increment();
+        return PATH_CACHE.get(path).read(this.document(), CONFIGURATION);
+    }
+
+    /**
+     * @return the value at the path converted to the given type, e.g. a POJO for an object
+     */
+    public <T> T get(String path, Class<T> type) {
+        Object value = this.get(path);
+        return CONFIGURATION.mappingProvider().map(value, type, CONFIGURATION);
+    }
+
+    public int getInt(String path) {
+        return this.<Number>get(path).intValue();
+    }
+
+    public long getLong(String path) {
+        return this.<Number>get(path).longValue();
+    }
+
+    public double getDouble(String path) {
+        return this.<Number>get(path).doubleValue();
+    }
+
+    public boolean getBoolean(String path) {
+        return this.<Boolean>get(path);
+    }
+
+    public String getString(String path) {
+        Object value = this.get(path);
+        return value == null ? null : String.valueOf(value);
+    }
+
+    public <K, V> Map<K, V> getMap(String path) {
+        return this.get(path);
+    }
+
+    public <T> List<T> getList(String path) {
+        return this.get(path);
+    }
+
+    /**
+     * Asserts the value at the path like {@code ValidatableResponse#body(String, Matcher, Object...)}, without
+     * parsing the body again.
+     */
+    public ParsedResponse body(String path, Matcher<?> matcher) {
+        MatcherAssert.assertThat("JSON path " + path + " doesn't match.", this.get(path), matcher);
+        return this;
+    }
+
+    public Response response() {
+        return this.response;
+    }
+
+    /**
+     * @return parse and path compilation counters of every {@link ParsedResponse} in this JVM
+     */
+    public static Stats stats() {
+        return new Stats(PARSES.sum(), READS.sum(), PATH_CACHE.hits.sum(), PATH_CACHE.misses.sum(), PATH_CACHE.size());
+    }
+
+    private Object document() {
+        Object document = this.document;
+        if (document == null) {
+            synchronized (this) {
+                document = this.document;
+                if (document == null) {
+                    try {
+                        document = OBJECT_MAPPER.readValue(this.response.asByteArray(), Object.class);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Response body is not JSON", e);
+                    }
+                    PARSES.increment();
+                    this.document = document;
+                }
+            }
+        }
+        return document;
+    }
+
+    /**
+     * @param parses          bodies parsed
+     * @param reads           paths evaluated, each of them a parse with {@link Response#jsonPath()}
+     * @param pathCacheHits   paths served from the compiled path cache
+     * @param pathCacheMisses paths compiled
+     * @param cachedPaths     compiled paths currently kept
+     */
+    public record Stats(long parses, long reads, long pathCacheHits, long pathCacheMisses, int cachedPaths) {
+
+        /**
+         * @return parses that {@link Response#jsonPath()} would have done on top of ours
+         */
+        public long avoidedParses() {
+            return Math.max(0, this.reads - this.parses);
+        }
+
+        @Override
+        public String toString() {
+            return "parses=" + this.parses + ", reads=" + this.reads + ", avoidedParses=" + this.avoidedParses()
+                    + ", pathCacheHits=" + this.pathCacheHits + ", pathCacheMisses=" + this.pathCacheMisses
+                    + ", cachedPaths=" + this.cachedPaths;
+        }
+    }
+
+    /**
+     * Compiled paths in access order, the least recently used one is evicted beyond the capacity.
+     */
+    private static final class PathCache {
+
+        private final Map<String, JsonPath> paths;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        PathCache(int capacity) {
+            this.paths = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, JsonPath> eldest) {
+                    return this.size() > capacity;
+                }
+            };
+        }
+
+        JsonPath get(String path) {
+            synchronized (this.paths) {
+                JsonPath compiled = this.paths.get(path);
+                if (compiled != null) {
+                    this.hits.increment();
+                    return compiled;
+                }
+            }
+            // Compile outside the lock, two threads compiling the same path at once is harmless
+            JsonPath compiled = JsonPath.compile(path);
+            this.misses.increment();
+            synchronized (this.paths) {
+                this.paths.putIfAbsent(path, compiled);
+            }
+            return compiled;
+        }
+
+        int size() {
+            synchronized (this.paths) {
+                return this.paths.size();
+            }
+        }
+    }
+}
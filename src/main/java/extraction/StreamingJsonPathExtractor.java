@@ -0,0 +1,210 @@
+package extraction;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs several Jayway JSONPath filters over a JSON array in a single pass of a streaming parser.
+ * <p>
+ * {@code JsonPath.read(responseString, ...)} needs the whole body as a String and parses it again for every
+ * expression. This extractor reads the body from an {@link InputStream}, materializes one array element at a time
+ * and evaluates every filter against it before moving on, so memory is bounded by the largest element instead of
+ * the body:
+ * <pre>{@code
+ * StreamingJsonPathExtractor extractor = StreamingJsonPathExtractor.builder()
+ *         .filter("fiction", "$[?(@.category == 'Fiction')]")
+ *         .filter("cheapFiction", "$[?(@.price < 500 && @.category == 'Fiction')]")
+ *         .build();
+ * InputStream body = RestAssured.given()...when().get().then().extract().asInputStream();
+ * extractor.extract(body, (filterName, match) -> System.out.println(filterName + ": " + match));
+ * }</pre>
+ * A filter is evaluated as if the array contained only the current element, so {@code $[?(...)]},
+ * {@code $[?(...)].title} or {@code $[*].author} work as on the whole document, while expressions that compare
+ * elements with each other ({@code $.length()}) do not. A definite path such as {@code $[0].title} reads the current
+ * element and hands its value to the listener as a single match, a missing or {@code null} value is no match. Matches
+ * are handed to the {@link MatchListener} as soon as the element is read, nothing is kept by the extractor.
+ * <p>
+ * RestAssured only hands out the raw stream when no filter consumed the body, log the response only when needed.
+ * Instances are immutable and can be shared between threads.
+ */
+public class StreamingJsonPathExtractor {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Configuration CONFIGURATION = Configuration.builder()
+                                                                    .jsonProvider(new JacksonJsonProvider(OBJECT_MAPPER))
+                                                                    .mappingProvider(new JacksonMappingProvider(OBJECT_MAPPER))
+                                                                    .options(Option.SUPPRESS_EXCEPTIONS)
+                                                                    .build();
+
+    private final Map<String, JsonPath> filters;
+    private final List<String> arrayPath;
+
+    private StreamingJsonPathExtractor(Builder builder) {
+        this.filters = Collections.unmodifiableMap(new LinkedHashMap<>(builder.filters));
+        this.arrayPath = builder.arrayPath;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Reads the array from the stream and calls the listener for every match, then closes the stream.
+     *
+     * @return how many elements were read and how many matched each filter
+     */
+    public Summary extract(InputStream inputStream, MatchListener listener) {
+        Map<String, Long> matchCounts = new LinkedHashMap<>();
+        this.filters.keySet().forEach(name -> matchCounts.put(name, 0L));
+        long elements = 0;
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(inputStream)) {
+            this.moveToArray(parser);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() == null) {
+                    throw new IllegalStateException("Unexpected end of input inside the array");
+                }
+                // A null element is valid JSON, List.of would reject it
+                List<Object> element = Collections.singletonList(parser.readValueAs(Object.class));
+                elements++;
+                for (Map.Entry<String, JsonPath> filter : this.filters.entrySet()) {
+                    List<?> matches = matches(filter.getValue(), element);
+                    if (matches.isEmpty()) {
+                        continue;
+                    }
+                    matchCounts.merge(filter.getKey(), (long) matches.size(), Long::sum);
+                    for (Object match : matches) {
+                        listener.onMatch(filter.getKey(), match);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the JSON body", e);
+        }
+        return new Summary(elements, Collections.unmodifiableMap(matchCounts));
+    }
+
+    /**
+     * @return every match per filter name, only for bodies known to fit in memory
+     */
+    public Map<String, List<Object>> extractAll(InputStream inputStream) {
+        Map<String, List<Object>> matches = new LinkedHashMap<>();
+        this.filters.keySet().forEach(name -> matches.put(name, new ArrayList<>()));
+        this.extract(inputStream, (filterName, match) -> matches.get(filterName).add(match));
+        return matches;
+    }
+
+    /**
+     * @return the list an indefinite path selects, or the value of a definite path as a list of one
+     */
+    private static List<?> matches(JsonPath path, List<Object> element) {
+        Object result = path.read(element, CONFIGURATION);
+        if (result == null) {
+            return List.of();
+        }
+        return path.isDefinite() ? List.of(result) : (List<?>) result;
+    }
+
+    /**
+     * Skips tokens until the parser is on the opening bracket of the array to scan.
+     */
+    private void moveToArray(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        for (String field : this.arrayPath) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("Expected an object containing '" + field + "' but found " + token);
+            }
+            token = this.moveToField(parser, field);
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw new IllegalStateException("Expected an array at '" + String.join(".", this.arrayPath)
+                    + "' but found " + token);
+        }
+    }
+
+    /**
+     * @return the first token of the value of the field, the parser must be on the start of its object
+     */
+    private JsonToken moveToField(JsonParser parser, String field) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals(name)) {
+                return value;
+            }
+            parser.skipChildren();
+        }
+        throw new IllegalStateException("Field '" + field + "' not found");
+    }
+
+    /**
+     * Receives matches while the body is being read.
+     */
+    @FunctionalInterface
+    public interface MatchListener {
+
+        /**
+         * @param filterName the name the filter was registered with
+         * @param match      a matching element, or the part of it selected by the filter
+         */
+        void onMatch(String filterName, Object match);
+    }
+
+    /**
+     * @param elements    array elements read
+     * @param matchCounts matches per filter name
+     */
+    public record Summary(long elements, Map<String, Long> matchCounts) {
+    }
+
+    public static class Builder {
+
+        private final Map<String, JsonPath> filters = new LinkedHashMap<>();
+        private List<String> arrayPath = List.of();
+
+        private Builder() {
+        }
+
+        /**
+         * @param name       label passed to the {@link MatchListener}
+         * @param expression a JSONPath on the array, e.g. {@code $[?(@.price < 500)]}
+         */
+        public Builder filter(String name, String expression) {
+            if (this.filters.putIfAbsent(name, JsonPath.compile(expression)) != null) {
+                throw new IllegalArgumentException("Duplicate filter name " + name);
+            }
+            return this;
+        }
+
+        /**
+         * Scans the array under the given fields instead of a top-level array, e.g. {@code "products"} for
+         * {@code {"responseCode": 200, "products": [...]}}.
+         */
+        public Builder arrayPath(String... fields) {
+            this.arrayPath = List.copyOf(Arrays.asList(fields));
+            return this;
+        }
+
+        public StreamingJsonPathExtractor build() {
+            if (this.filters.isEmpty()) {
+                throw new IllegalStateException("At least one filter is required");
+            }
+            return new StreamingJsonPathExtractor(this);
+        }
+    }
+}
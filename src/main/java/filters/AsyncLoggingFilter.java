@@ -0,0 +1,431 @@
+package filters;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Request and response logging that does not block the test thread.
+ * <p>
+ * {@link io.restassured.filter.log.RequestLoggingFilter} and {@link io.restassured.filter.log.ResponseLoggingFilter}
+ * pretty print every request and response to {@code System.out} on the calling thread, so parallel tests queue up
+ * on the {@code PrintStream} lock. This filter only keeps references to what it logs, puts a record in a bounded
+ * queue and returns. A single background thread formats and writes the records in batches.
+ * <p>
+ * When the queue is full the record is dropped instead of waiting, see {@link Stats#dropped()}.
+ * Header values of {@code Authorization}, {@code Proxy-Authorization}, {@code Cookie} and {@code Set-Cookie} are
+ * redacted. To keep the volume down, log one call in N or only failed calls:
+ * <pre>{@code
+ * AsyncLoggingFilter loggingFilter = AsyncLoggingFilter.builder()
+ *                                                      .sampleEvery(10)
+ *                                                      .alwaysLogFailures()
+ *                                                      .build();
+ * RestAssured.given().filter(loggingFilter)...
+ * }</pre>
+ * One instance is meant to be shared by every spec and thread, {@link #getDefault()} returns one writing to
+ * {@code System.out} that is flushed when the JVM exits.
+ */
+public class AsyncLoggingFilter implements OrderedFilter, ResponseObserver, AutoCloseable {
+
+    public static final Set<String> DEFAULT_REDACTED_HEADERS =
+            Set.of("authorization", "proxy-authorization", "cookie", "set-cookie");
+
+    private static final String REDACTED = "[REDACTED]";
+    private static final int BATCH_SIZE = 256;
+
+    private final BlockingQueue<LogRecord> queue;
+    private final Writer writer;
+    private final int sampleEvery;
+    private final boolean onlyFailures;
+    private final boolean alwaysLogFailures;
+    private final boolean logBodies;
+    private final int maxBodyChars;
+    private final long maxBufferedBodyBytes;
+    private final Set<String> redactedHeaders;
+    private final Thread writerThread;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private volatile boolean running = true;
+
+    private AsyncLoggingFilter(Builder builder) {
+        this.queue = new ArrayBlockingQueue<>(builder.capacity);
+        this.writer = new BufferedWriter(new OutputStreamWriter(builder.outputStream, StandardCharsets.UTF_8));
+        this.sampleEvery = builder.sampleEvery;
+        this.onlyFailures = builder.onlyFailures;
+        this.alwaysLogFailures = builder.alwaysLogFailures;
+        this.logBodies = builder.logBodies;
+        this.maxBodyChars = builder.maxBodyChars;
+        this.maxBufferedBodyBytes = builder.maxBufferedBodyBytes;
+        this.redactedHeaders = builder.redactedHeaders;
+        this.writerThread = new Thread(this::drain, "async-logging-filter");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a shared filter logging every call with bodies to {@code System.out}
+     */
+    public static AsyncLoggingFilter getDefault() {
+        return DefaultHolder.FILTER;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        long startNanos = System.nanoTime();
+        Response response;
+        try {
+            response = ctx.next(requestSpec, responseSpec);
+        } catch (RuntimeException e) {
+            this.onFailure(requestSpec, e, System.nanoTime() - startNanos);
+            throw e;
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (!this.shouldLog(response)) {
+            return response;
+        }
+        if (!this.logBodies || ContentLength.of(response) >= 0) {
+            this.log(requestSpec, response, this.logBodies ? this.responseBody(response) : null, elapsedNanos);
+            return response;
+        }
+        // Chunked or compressed, of any size: read at most the limit and hand the rest on as it arrives
+        byte[] head;
+        InputStream content = response.asInputStream();
+        try {
+            head = content == null ? new byte[0]
+                    : content.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, this.maxBufferedBodyBytes + 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the response of " + requestSpec.getMethod() + " "
+                    + requestSpec.getURI(), e);
+        }
+        if (head.length <= this.maxBufferedBodyBytes) {
+            this.log(requestSpec, response, head, elapsedNanos);
+            return BodySpoolingFilter.withBody(response, new ByteArrayInputStream(head));
+        }
+        this.log(requestSpec, response, ("(more than " + this.maxBufferedBodyBytes + " bytes, not logged)")
+                .getBytes(StandardCharsets.UTF_8), elapsedNanos);
+        return BodySpoolingFilter.withBody(response,
+                new SequenceInputStream(new ByteArrayInputStream(head), content));
+    }
+
+    /**
+     * Called by {@link http.AsyncRequestExecutor}, whose responses are already in memory.
+     */
+    @Override
+    public void onResponse(FilterableRequestSpecification requestSpec, Response response, long elapsedNanos) {
+        if (this.shouldLog(response)) {
+            this.log(requestSpec, response, this.logBodies ? this.responseBody(response) : null, elapsedNanos);
+        }
+    }
+
+    @Override
+    public void onFailure(FilterableRequestSpecification requestSpec, Throwable failure, long elapsedNanos) {
+        this.enqueue(new LogRecord(requestSpec.getMethod(), requestSpec.getURI(), requestSpec.getHeaders(),
+                this.logBodies ? requestSpec.getBody() : null, -1, null, null, elapsedNanos, failure.toString()));
+    }
+
+    /**
+     * Runs after the other filters so it logs the request as it is sent.
+     */
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE;
+    }
+
+    /**
+     * Waits until every record queued so far has been written.
+     */
+    public void flush() {
+        while (this.running && this.pending.get() > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Writes the remaining records and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        this.running = false;
+        this.writerThread.interrupt();
+        try {
+            this.writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<LogRecord> remaining = new ArrayList<>();
+        this.queue.drainTo(remaining);
+        this.writeBatch(remaining);
+    }
+
+    public Stats stats() {
+        return new Stats(this.logged.sum(), this.dropped.sum(), this.sampledOut.sum(), this.queue.size());
+    }
+
+    private boolean shouldLog(Response response) {
+        boolean failure = response.getStatusCode() >= 400;
+        boolean sampled = this.sequence.getAndIncrement() % this.sampleEvery == 0;
+        boolean log = failure ? (this.alwaysLogFailures || this.onlyFailures || sampled) : (!this.onlyFailures && sampled);
+        if (!log) {
+            this.sampledOut.increment();
+        }
+        return log;
+    }
+
+    private void log(FilterableRequestSpecification requestSpec, Response response, byte[] body, long elapsedNanos) {
+        this.enqueue(new LogRecord(requestSpec.getMethod(), requestSpec.getURI(), requestSpec.getHeaders(),
+                this.logBodies ? requestSpec.getBody() : null, response.getStatusCode(), response.getHeaders(), body,
+                elapsedNanos, null));
+    }
+
+    private void enqueue(LogRecord record) {
+        this.pending.incrementAndGet();
+        if (!this.queue.offer(record)) {
+            this.pending.decrementAndGet();
+            this.dropped.increment();
+        }
+    }
+
+    private void drain() {
+        List<LogRecord> batch = new ArrayList<>(BATCH_SIZE);
+        while (this.running) {
+            try {
+                LogRecord first = this.queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                this.queue.drainTo(batch, BATCH_SIZE - 1);
+                this.writeBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void writeBatch(List<LogRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        synchronized (this.writer) {
+            try {
+                for (LogRecord record : batch) {
+                    this.writer.write(this.format(record));
+                    this.logged.increment();
+                }
+                this.writer.flush();
+            } catch (IOException e) {
+                this.dropped.add(batch.size());
+            } finally {
+                this.pending.addAndGet(-batch.size());
+            }
+        }
+    }
+
+    private String format(LogRecord record) {
+        StringBuilder builder = new StringBuilder(256)
+                .append("Request method:\t").append(record.method()).append('\n')
+                .append("Request URI:\t").append(record.uri()).append('\n');
+        this.appendHeaders(builder, "Request headers", record.requestHeaders());
+        if (record.requestBody() != null) {
+            builder.append("Request body:\t").append(this.truncate(bodyToString(record.requestBody()))).append('\n');
+        }
+        if (record.error() != null) {
+            builder.append("Request failed:\t").append(record.error()).append('\n');
+        } else {
+            builder.append("Response status:\t").append(record.statusCode()).append('\n');
+            this.appendHeaders(builder, "Response headers", record.responseHeaders());
+            if (record.responseBody() != null && record.responseBody().length > 0) {
+                builder.append("Response body:\t")
+                       .append(this.truncate(new String(record.responseBody(), StandardCharsets.UTF_8))).append('\n');
+            }
+        }
+        return builder.append("Time:\t").append(TimeUnit.NANOSECONDS.toMillis(record.elapsedNanos())).append(" ms\n\n")
+                      .toString();
+    }
+
+    private void appendHeaders(StringBuilder builder, String title, Headers headers) {
+        if (headers == null || !headers.exist()) {
+            return;
+        }
+        builder.append(title).append(":\n");
+        for (Header header : headers) {
+            String value = this.redactedHeaders.contains(header.getName().toLowerCase(Locale.ROOT))
+                    ? REDACTED : header.getValue();
+            builder.append('\t').append(header.getName()).append('=').append(value).append('\n');
+        }
+    }
+
+    /**
+     * @return the body, or a note instead of reading it into memory when it is declared larger than the limit
+     */
+    private byte[] responseBody(Response response) {
+        long contentLength = ContentLength.of(response);
+        if (contentLength > this.maxBufferedBodyBytes) {
+            return ("(" + contentLength + " bytes, not logged)").getBytes(StandardCharsets.UTF_8);
+        }
+        return response.asByteArray();
+    }
+
+    private String truncate(String body) {
+        if (body.length() <= this.maxBodyChars) {
+            return body;
+        }
+        return body.substring(0, this.maxBodyChars) + "... (" + (body.length() - this.maxBodyChars) + " more chars)";
+    }
+
+    private static String bodyToString(Object body) {
+        return body instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(body);
+    }
+
+    private record LogRecord(String method, String uri, Headers requestHeaders, Object requestBody, int statusCode,
+                             Headers responseHeaders, byte[] responseBody, long elapsedNanos, String error) {
+    }
+
+    /**
+     * Counters of the filter.
+     *
+     * @param logged     records written
+     * @param dropped    records lost because the queue was full or the output failed
+     * @param sampledOut calls not logged because of sampling or {@link Builder#onlyFailures()}
+     * @param queued     records waiting to be written
+     */
+    public record Stats(long logged, long dropped, long sampledOut, int queued) {
+    }
+
+    public static class Builder {
+
+        private int capacity = 8192;
+        private OutputStream outputStream = System.out;
+        private int sampleEvery = 1;
+        private boolean onlyFailures;
+        private boolean alwaysLogFailures;
+        private boolean logBodies = true;
+        private int maxBodyChars = 4096;
+        private long maxBufferedBodyBytes = BodySpoolingFilter.DEFAULT_THRESHOLD;
+        private Set<String> redactedHeaders = DEFAULT_REDACTED_HEADERS;
+
+        private Builder() {
+        }
+
+        /**
+         * Size of the queue between test threads and the writer, records beyond it are dropped.
+         */
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder outputStream(OutputStream outputStream) {
+            this.outputStream = outputStream;
+            return this;
+        }
+
+        /**
+         * Logs one call in {@code n}.
+         */
+        public Builder sampleEvery(int n) {
+            if (n < 1) {
+                throw new IllegalArgumentException("Sample rate must be at least 1");
+            }
+            this.sampleEvery = n;
+            return this;
+        }
+
+        /**
+         * Logs only calls that failed or returned a 4xx/5xx status.
+         */
+        public Builder onlyFailures() {
+            this.onlyFailures = true;
+            return this;
+        }
+
+        /**
+         * Logs failed calls even when sampling would skip them.
+         */
+        public Builder alwaysLogFailures() {
+            this.alwaysLogFailures = true;
+            return this;
+        }
+
+        public Builder logBodies(boolean logBodies) {
+            this.logBodies = logBodies;
+            return this;
+        }
+
+        public Builder maxBodyChars(int maxBodyChars) {
+            this.maxBodyChars = maxBodyChars;
+            return this;
+        }
+
+        /**
+         * Response bodies with a larger {@code Content-Length} are not read for logging, so they are not buffered
+         * in memory and {@link BodySpoolingFilter} can spool them. Of a body of unknown length, chunked or
+         * compressed, at most this many bytes are read, it is only logged if it ends within them. Defaults to the
+         * spooling threshold.
+         */
+        public Builder maxBufferedBodyBytes(long maxBufferedBodyBytes) {
+            this.maxBufferedBodyBytes = maxBufferedBodyBytes;
+            return this;
+        }
+
+        /**
+         * Adds a header whose value is never written, on top of {@link #DEFAULT_REDACTED_HEADERS}.
+         */
+        public Builder redactHeader(String headerName) {
+            Set<String> headers = new TreeSet<>(this.redactedHeaders);
+            headers.add(headerName.toLowerCase(Locale.ROOT));
+            this.redactedHeaders = Set.copyOf(headers);
+            return this;
+        }
+
+        public AsyncLoggingFilter build() {
+            return new AsyncLoggingFilter(this);
+        }
+    }
+
+    private static final class DefaultHolder {
+
+        private static final AsyncLoggingFilter FILTER = createDefault();
+
+        private static AsyncLoggingFilter createDefault() {
+            AsyncLoggingFilter filter = AsyncLoggingFilter.builder().build();
+            Runtime.getRuntime().addShutdownHook(new Thread(filter::close, "async-logging-filter-shutdown"));
+            return filter;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package filters;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps large response bodies off the heap: bodies up to a threshold stay in memory, larger ones are written to a
+ * temporary file and read back through a read-only memory mapping.
+ * <p>
+ * {@code response.asString()} and {@code prettyPrint()} buffer the whole body and then copy it into a String, which
+ * for big list endpoints means several copies of a large array per call, in every parallel test. With this filter
+ * the body of the returned response is a stream over the buffer or the mapping, so streaming readers take it
+ * without a copy:
+ * <pre>{@code
+ * Response response = RestAssured.given().filter(BodySpoolingFilter.fromSystemProperties())...get();
+ * StreamingJsonPathExtractor.Summary summary = extractor.extract(response.asInputStream(), listener);
+ * List<String> failures = expectations.validate(response.asInputStream());
+ * }</pre>
+ * {@code asString()} and friends still work, they read the spooled body once into the heap as usual.
+ * <p>
+ * Bodies above the hard cap fail fast with an {@link IllegalStateException}: as soon as the {@code Content-Length}
+ * is known to be too large, or while reading a chunked body once the cap is passed. The rest of the body is
+ * discarded without being stored, or the connection aborted where the stream allows it. The temporary file is
+ * deleted as soon as it is mapped, the mapping is released with the response.
+ * <p>
+ * The filter sees the body after {@link AsyncLoggingFilter}, which reads at most
+ * {@link AsyncLoggingFilter.Builder#maxBufferedBodyBytes(long)} of it for logging and hands the rest on unread.
+ */
+public class BodySpoolingFilter implements OrderedFilter {
+
+    public static final String THRESHOLD_PROPERTY = "body.spoolThreshold";
+    public static final String MAX_SIZE_PROPERTY = "body.maxSize";
+    public static final String DIRECTORY_PROPERTY = "body.spoolDir";
+
+    public static final long DEFAULT_THRESHOLD = 1024 * 1024;
+    public static final long DEFAULT_MAX_SIZE = 256 * 1024 * 1024;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final long threshold;
+    private final long maxSize;
+    private final Path directory;
+    private final LongAdder inMemory = new LongAdder();
+    private final LongAdder spooled = new LongAdder();
+    private final LongAdder spooledBytes = new LongAdder();
+    private final LongAccumulator largestBody = new LongAccumulator(Math::max, 0);
+    private final LongAdder rejected = new LongAdder();
+
+    private BodySpoolingFilter(Builder builder) {
+        this.threshold = builder.threshold;
+        this.maxSize = builder.maxSize;
+        this.directory = builder.directory;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the filter configured by {@value #THRESHOLD_PROPERTY}, {@value #MAX_SIZE_PROPERTY} and
+     * {@value #DIRECTORY_PROPERTY}, shared by every caller
+     */
+    public static BodySpoolingFilter fromSystemProperties() {
+        return SystemPropertiesHolder.FILTER;
+    }
+
+    /**
+     * Runs before the metrics and digest auth filters, so it spools the body of the final response only.
+     */
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 2;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        Response response = ctx.next(requestSpec, responseSpec);
+        long contentLength = ContentLength.of(response);
+        if (contentLength > this.maxSize) {
+            InputStream body = response.asInputStream();
+            abort(body);
+            throw this.tooLarge(requestSpec, contentLength + " bytes");
+        }
+
+        ByteBuffer body;
+        try (InputStream content = response.asInputStream()) {
+            body = content == null ? ByteBuffer.allocate(0) : this.spool(content, requestSpec);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the response of " + requestSpec.getMethod() + " "
+                    + requestSpec.getURI(), e);
+        }
+        this.largestBody.accumulate(body.remaining());
+        return withBody(response, new ByteBufferInputStream(body));
+    }
+
+    /**
+     * @return a copy of the response that reads its body from {@code body}, keeping what RestAssured attached to it:
+     * the request's config and parsers, the log repository behind {@code log().ifValidationFails()} and the timing
+     * behind {@link Response#time()}
+     */
+    static Response withBody(Response response, InputStream body) {
+        return new ResponseBuilder().clone(response).setBody(body).build();
+    }
+
+    public Stats stats() {
+        return new Stats(this.inMemory.sum(), this.spooled.sum(), this.spooledBytes.sum(), this.largestBody.get(),
+                this.rejected.sum(), this.threshold, this.maxSize);
+    }
+
+    /**
+     * @return the body in a heap buffer when it fits the threshold, otherwise mapped from a temporary file
+     */
+    private ByteBuffer spool(InputStream content, FilterableRequestSpecification requestSpec) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(this.threshold + 1, COPY_BUFFER_SIZE)];
+        int length = 0;
+        while (length <= this.threshold) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(this.threshold + 1, (long) buffer.length * 2));
+            }
+            int read = content.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                this.inMemory.increment();
+                return ByteBuffer.wrap(buffer, 0, length);
+            }
+            length += read;
+        }
+        if (length > this.maxSize) {
+            abort(content);
+            throw this.tooLarge(requestSpec, "more than " + this.maxSize + " bytes");
+        }
+
+        Path file = Files.createTempFile(this.directory, "response-", ".body");
+        try {
+            long size;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, length);
+                size = length;
+                while (true) {
+                    while (chunk.hasRemaining()) {
+                        channel.write(chunk);
+                    }
+                    int read = content.read(buffer);
+                    if (read < 0) {
+                        break;
+                    }
+                    size += read;
+                    if (size > this.maxSize) {
+                        abort(content);
+                        throw this.tooLarge(requestSpec, "more than " + this.maxSize + " bytes");
+                    }
+                    chunk = ByteBuffer.wrap(buffer, 0, read);
+                }
+                this.spooled.increment();
+                this.spooledBytes.add(size);
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        } finally {
+            // The mapping stays valid after the file is deleted, on Windows the file goes when the JVM exits
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    private IllegalStateException tooLarge(FilterableRequestSpecification requestSpec, String size) {
+        this.rejected.increment();
+        return new IllegalStateException("Response of " + requestSpec.getMethod() + " " + requestSpec.getURI()
+                + " is " + size + ", over the limit of " + this.maxSize + " bytes, raise it with -D"
+                + MAX_SIZE_PROPERTY);
+    }
+
+    /**
+     * Aborts the connection when the stream allows it, RestAssured's own stream only closes and discards the rest.
+     */
+    private static void abort(InputStream content) {
+        try {
+            if (content instanceof ConnectionReleaseTrigger trigger) {
+                trigger.abortConnection();
+            } else if (content != null) {
+                content.close();
+            }
+        } catch (IOException e) {
+            // The response is rejected anyway
+        }
+    }
+
+    /**
+     * Reads a buffer without copying it first, mapped buffers are read straight from the page cache.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+            this.buffer.position(this.buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+
+    /**
+     * @param inMemory     bodies kept in a heap buffer
+     * @param spooled      bodies written to a temporary file and mapped
+     * @param spooledBytes total size of the spooled bodies
+     * @param largestBody  largest body read
+     * @param rejected     responses over the hard cap
+     * @param threshold    largest body kept in memory
+     * @param maxSize      hard cap
+     */
+    public record Stats(long inMemory, long spooled, long spooledBytes, long largestBody, long rejected,
+                        long threshold, long maxSize) {
+    }
+
+    public static class Builder {
+
+        private long threshold = DEFAULT_THRESHOLD;
+        private long maxSize = DEFAULT_MAX_SIZE;
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"));
+
+        private Builder() {
+        }
+
+        /**
+         * @param threshold largest body kept in memory, larger bodies are spooled to disk
+         */
+        public Builder threshold(long threshold) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("Threshold must not be negative");
+            }
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * @param maxSize largest body accepted, at most 2 GB as that is the most a single mapping holds
+         */
+        public Builder maxSize(long maxSize) {
+            if (maxSize < 0 || maxSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Max size must be between 0 and " + Integer.MAX_VALUE);
+            }
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * @param directory where spooled bodies are written, the system temporary directory by default
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        public BodySpoolingFilter build() {
+            if (this.threshold > this.maxSize) {
+                throw new IllegalStateException("Threshold " + this.threshold + " is above the max size "
+                        + this.maxSize);
+            }
+            try {
+                Files.createDirectories(this.directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create " + this.directory, e);
+            }
+            return new BodySpoolingFilter(this);
+        }
+    }
+
+    private static final class SystemPropertiesHolder {
+
+        private static final BodySpoolingFilter FILTER = create();
+
+        private static BodySpoolingFilter create() {
+            Builder builder = builder().threshold(Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD))
+                                       .maxSize(Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+            String directory = System.getProperty(DIRECTORY_PROPERTY);
+            if (directory != null) {
+                builder.directory(Path.of(directory));
+            }
+            return builder.build();
+        }
+    }
+}
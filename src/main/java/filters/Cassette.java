@@ -0,0 +1,220 @@
+package filters;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only file of recorded HTTP exchanges, looked up by a request key.
+ * <p>
+ * Every record is written as
+ * {@code magic, length, key, status code, status line, header count, (name, value)*, body}, where strings and the
+ * body are prefixed with their length. On open the file is memory-mapped and scanned once to index the offset of
+ * every record by key; responses are decoded from the mapping when they are replayed. A record cut short by a crash
+ * ends the scan, the file is replaced by a copy of the records before it.
+ * <p>
+ * When the same key was recorded several times, for instance two identical POSTs, replays return the recordings
+ * in the order they were made and then start over.
+ */
+class Cassette implements AutoCloseable {
+
+    private static final int MAGIC = 0xCA55E77E;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+    private final Map<String, List<Integer>> mappedOffsets = new HashMap<>();
+    private final Map<String, List<RecordedResponse>> appended = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> replayCounts = new ConcurrentHashMap<>();
+
+    /**
+     * @param truncate drop the existing recordings instead of loading them
+     */
+    Cassette(Path path, boolean truncate) {
+        this.path = path;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (truncate) {
+                channel.truncate(0);
+            }
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Cassette " + path + " is larger than 2 GB");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long validSize = this.index(mapped);
+            if (validSize < size) {
+                // A mapped file cannot be truncated on every platform: replace it with a copy of the complete
+                // records, so later appends go after the last one
+                channel.close();
+                replaceWithPrefix(path, mapped, (int) validSize);
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, validSize);
+            }
+            channel.position(validSize);
+            this.channel = channel;
+            this.mapped = mapped;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open cassette " + path, e);
+        }
+    }
+
+    /**
+     * @return the next recording for the key, or {@code null} when the key was never recorded
+     */
+    RecordedResponse find(String key) {
+        List<Integer> offsets = this.mappedOffsets.get(key);
+        List<RecordedResponse> appended = this.appended.getOrDefault(key, List.of());
+        int recordings = (offsets == null ? 0 : offsets.size()) + appended.size();
+        if (recordings == 0) {
+            return null;
+        }
+        int index = Math.floorMod(this.replayCounts.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement(),
+                recordings);
+        if (offsets != null && index < offsets.size()) {
+            return this.decode(offsets.get(index));
+        }
+        return appended.get(index - (offsets == null ? 0 : offsets.size()));
+    }
+
+    synchronized void append(String key, RecordedResponse response) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] statusLine = response.statusLine().getBytes(StandardCharsets.UTF_8);
+        List<byte[]> headers = new ArrayList<>();
+        int length = 4 + keyBytes.length + 4 + 4 + statusLine.length + 4 + 4 + response.body().length;
+        for (Map.Entry<String, String> header : response.headers()) {
+            byte[] name = header.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = header.getValue().getBytes(StandardCharsets.UTF_8);
+            headers.add(name);
+            headers.add(value);
+            length += 4 + name.length + 4 + value.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(8 + length)
+                                      .putInt(MAGIC)
+                                      .putInt(length);
+        putBytes(buffer, keyBytes);
+        buffer.putInt(response.statusCode());
+        putBytes(buffer, statusLine);
+        buffer.putInt(response.headers().size());
+        headers.forEach(bytes -> putBytes(buffer, bytes));
+        putBytes(buffer, response.body());
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to cassette " + this.path, e);
+        }
+        this.appended.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(response);
+    }
+
+    int size() {
+        int size = 0;
+        for (List<Integer> offsets : this.mappedOffsets.values()) {
+            size += offsets.size();
+        }
+        for (List<RecordedResponse> responses : this.appended.values()) {
+            size += responses.size();
+        }
+        return size;
+    }
+
+    Path getPath() {
+        return this.path;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            this.channel.force(false);
+            this.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close cassette " + this.path, e);
+        }
+    }
+
+    /**
+     * @return the size of the complete records
+     */
+    private long index(MappedByteBuffer mapped) {
+        ByteBuffer buffer = mapped.duplicate();
+        while (buffer.remaining() >= 8) {
+            int offset = buffer.position();
+            if (buffer.getInt() != MAGIC) {
+                return offset;
+            }
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                return offset;
+            }
+            String key = new String(getBytes(buffer), StandardCharsets.UTF_8);
+            this.mappedOffsets.computeIfAbsent(key, k -> new ArrayList<>()).add(offset);
+            buffer.position(offset + 8 + length);
+        }
+        return buffer.position();
+    }
+
+    private static void replaceWithPrefix(Path path, ByteBuffer content, int length) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path copy = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+                ByteBuffer prefix = content.duplicate().limit(length);
+                while (prefix.hasRemaining()) {
+                    out.write(prefix);
+                }
+                out.force(false);
+            }
+            Files.move(copy, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+
+    private RecordedResponse decode(int offset) {
+        ByteBuffer buffer = this.mapped.duplicate().position(offset + 8);
+        getBytes(buffer);
+        int statusCode = buffer.getInt();
+        String statusLine = new String(getBytes(buffer), StandardCharsets.UTF_8);
+        int headerCount = buffer.getInt();
+        List<Map.Entry<String, String>> headers = new ArrayList<>(headerCount);
+        for (int i = 0; i < headerCount; i++) {
+            headers.add(Map.entry(new String(getBytes(buffer), StandardCharsets.UTF_8),
+                    new String(getBytes(buffer), StandardCharsets.UTF_8)));
+        }
+        return new RecordedResponse(statusCode, statusLine, headers, getBytes(buffer));
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    record RecordedResponse(int statusCode, String statusLine, List<Map.Entry<String, String>> headers, byte[] body) {
+    }
+}
@@ -0,0 +1,359 @@
+package filters;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import io.restassured.specification.MultiPartSpecification;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records HTTP exchanges to a cassette file and replays them without touching the network.
+ * <p>
+ * Requests are matched by method, URI and a hash of the normalized body: JSON bodies are compared with their keys
+ * sorted and without whitespace, form and multipart parameters by name and value, file parts by content. Loopback
+ * hosts and their ports are left out of the match, so a cassette recorded against a stub on an ephemeral port replays
+ * on the next one; every other host is matched with its port. Headers such as cookies or credentials are not part of
+ * the match. A multipart part given as an {@link InputStream} cannot be hashed without consuming it: such requests
+ * are sent without being recorded, and fail in {@link Mode#REPLAY}.
+ * <ul>
+ *     <li>{@link Mode#RECORD}: starts an empty cassette and records every exchange</li>
+ *     <li>{@link Mode#REPLAY}: serves every request from the cassette, a request that was not recorded fails</li>
+ *     <li>{@link Mode#REPLAY_OR_RECORD}: serves recorded requests and records the others</li>
+ * </ul>
+ * {@code listeners.CassetteSuiteListener} installs the filter configured by system properties for every request of
+ * the suite, e.g. to record once against the real hosts and rerun offline:
+ * <pre>
+ * mvn test -Dcassette.mode=record
+ * mvn test -Dcassette.mode=replay
+ * </pre>
+ * The cassette is {@value #DEFAULT_CASSETTE_FILE} unless {@code -Dcassette.file} is given, under {@code target}
+ * so a recording is not committed by accident. Credentials are redacted as they are recorded: the values of
+ * {@code Set-Cookie} headers and the {@link #REDACTED_BODY_FIELDS} of JSON bodies, e.g. the restful-booker
+ * {@code /auth} token and OAuth2 access and refresh tokens. A replayed login therefore returns a token the real API
+ * rejects, so in {@link Mode#REPLAY_OR_RECORD} requests recorded after it have to be recorded in the same run. Other
+ * headers and bodies are kept verbatim, check a cassette before committing it.
+ */
+public class CassetteFilter implements OrderedFilter, AutoCloseable {
+
+    public static final String MODE_PROPERTY = "cassette.mode";
+    public static final String FILE_PROPERTY = "cassette.file";
+    public static final String DEFAULT_CASSETTE_FILE = "target/cassettes/suite.cassette";
+    public static final Set<String> REDACTED_BODY_FIELDS = Set.of("token", "access_token", "refresh_token", "id_token");
+
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    private static final String NO_BODY = "-";
+    private static final String REDACTED = "[REDACTED]";
+
+    private final Cassette cassette;
+    private final Mode mode;
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder unmatched = new LongAdder();
+
+    public CassetteFilter(Path cassetteFile, Mode mode) {
+        this.cassette = new Cassette(cassetteFile, mode == Mode.RECORD);
+        this.mode = mode;
+    }
+
+    /**
+     * @return the filter configured by {@value #MODE_PROPERTY} and {@value #FILE_PROPERTY}, empty when no mode is
+     * set, shared by every caller and closed when the JVM exits
+     */
+    public static Optional<CassetteFilter> fromSystemProperties() {
+        return Optional.ofNullable(SystemPropertiesHolder.FILTER);
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        String key = requestKey(requestSpec);
+        if (key == null) {
+            if (this.mode == Mode.REPLAY) {
+                throw new IllegalStateException(requestSpec.getMethod() + " " + requestSpec.getURI()
+                        + " has a multipart stream, which cannot be matched: send it as a File, byte[] or String");
+            }
+            this.unmatched.increment();
+            return ctx.next(requestSpec, responseSpec);
+        }
+        if (this.mode != Mode.RECORD) {
+            Cassette.RecordedResponse recordedResponse = this.cassette.find(key);
+            if (recordedResponse != null) {
+                this.replayed.increment();
+                return toResponse(recordedResponse);
+            }
+            this.misses.increment();
+            if (this.mode == Mode.REPLAY) {
+                throw new IllegalStateException("No recorded response in " + this.cassette.getPath() + " for "
+                        + requestSpec.getMethod() + " " + requestSpec.getURI()
+                        + ", record it with -D" + MODE_PROPERTY + "=" + Mode.REPLAY_OR_RECORD.propertyValue());
+            }
+        }
+
+        Response response = ctx.next(requestSpec, responseSpec);
+        List<Map.Entry<String, String>> headers = new ArrayList<>();
+        for (Header header : response.getHeaders()) {
+            headers.add(Map.entry(header.getName(), "set-cookie".equalsIgnoreCase(header.getName())
+                    ? redactCookieValue(header.getValue()) : header.getValue()));
+        }
+        byte[] body = response.asByteArray();
+        String contentType = response.getContentType();
+        this.cassette.append(key, new Cassette.RecordedResponse(response.getStatusCode(), response.getStatusLine(),
+                headers, contentType != null && contentType.contains("json") ? redactJsonFields(body) : body));
+        this.recorded.increment();
+        return response;
+    }
+
+    /**
+     * Runs before the other filters so a replayed request does not reach them.
+     */
+    @Override
+    public int getOrder() {
+        return HIGHEST_PRECEDENCE;
+    }
+
+    public Mode getMode() {
+        return this.mode;
+    }
+
+    public Stats stats() {
+        return new Stats(this.replayed.sum(), this.recorded.sum(), this.misses.sum(), this.unmatched.sum(),
+                this.cassette.size());
+    }
+
+    @Override
+    public void close() {
+        this.cassette.close();
+    }
+
+    /**
+     * @return {@code METHOD uri body-hash}, the hash covers the normalized body, form and multipart parameters, or
+     * {@code null} when a multipart part is a stream
+     */
+    static String requestKey(FilterableRequestSpecification requestSpec) {
+        MessageDigest digest = sha256();
+        boolean hasBody = false;
+        Object body = requestSpec.getBody();
+        if (body != null) {
+            digest.update(normalizeBody(body));
+            hasBody = true;
+        }
+        if (!requestSpec.getFormParams().isEmpty()) {
+            digest.update(new TreeMap<>(requestSpec.getFormParams()).toString().getBytes(StandardCharsets.UTF_8));
+            hasBody = true;
+        }
+        for (MultiPartSpecification multiPart : requestSpec.getMultiPartParams()) {
+            digest.update((multiPart.getControlName() + '\0' + multiPart.getFileName() + '\0'
+                    + multiPart.getMimeType() + '\0').getBytes(StandardCharsets.UTF_8));
+            Object content = multiPart.getContent();
+            if (content instanceof InputStream) {
+                return null;
+            }
+            if (content instanceof File file) {
+                updateWithFile(digest, file);
+            } else {
+                digest.update(normalizeBody(content));
+            }
+            hasBody = true;
+        }
+        return requestSpec.getMethod().toUpperCase(Locale.ROOT) + ' ' + normalizeUri(requestSpec.getURI()) + ' '
+                + (hasBody ? HexFormat.of().formatHex(digest.digest()) : NO_BODY);
+    }
+
+    /**
+     * @return the URI with the scheme and host in lower case and the default port left out, {@code loopback} in
+     * place of a loopback host and its port
+     */
+    private static String normalizeUri(String uri) {
+        URI parsed = URI.create(uri);
+        String scheme = parsed.getScheme() == null ? "" : parsed.getScheme().toLowerCase(Locale.ROOT);
+        String host = parsed.getHost() == null ? "" : parsed.getHost().toLowerCase(Locale.ROOT);
+        String authority;
+        if (host.equals("localhost") || host.startsWith("127.") || host.equals("[::1]")) {
+            authority = "loopback";
+        } else if (parsed.getPort() == -1 || scheme.equals("http") && parsed.getPort() == 80
+                || scheme.equals("https") && parsed.getPort() == 443) {
+            authority = host;
+        } else {
+            authority = host + ':' + parsed.getPort();
+        }
+        String path = parsed.getRawPath() == null || parsed.getRawPath().isEmpty() ? "/" : parsed.getRawPath();
+        return scheme + "://" + authority + path + (parsed.getRawQuery() == null ? "" : "?" + parsed.getRawQuery());
+    }
+
+    private static void updateWithFile(MessageDigest digest, File file) {
+        try (InputStream content = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+            content.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not hash the multipart file " + file, e);
+        }
+    }
+
+    private static byte[] normalizeBody(Object body) {
+        byte[] bytes;
+        if (body instanceof byte[] raw) {
+            bytes = raw;
+        } else if (body instanceof String text) {
+            bytes = text.getBytes(StandardCharsets.UTF_8);
+        } else {
+            try {
+                // A POJO, hashed as JSON
+                bytes = CANONICAL_MAPPER.writeValueAsBytes(body);
+            } catch (IOException e) {
+                bytes = String.valueOf(body).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        try {
+            return CANONICAL_MAPPER.writeValueAsBytes(CANONICAL_MAPPER.readValue(bytes, Object.class));
+        } catch (IOException e) {
+            // Not JSON, compare as is
+            return bytes;
+        }
+    }
+
+    /**
+     * @return the {@code Set-Cookie} value with the cookie's value redacted and its name and attributes kept
+     */
+    private static String redactCookieValue(String setCookie) {
+        int equals = setCookie.indexOf('=');
+        int semicolon = setCookie.indexOf(';');
+        if (equals < 0 || semicolon >= 0 && semicolon < equals) {
+            return REDACTED;
+        }
+        return setCookie.substring(0, equals + 1) + REDACTED + (semicolon < 0 ? "" : setCookie.substring(semicolon));
+    }
+
+    /**
+     * @return the body with the {@link #REDACTED_BODY_FIELDS} redacted at any depth, as is when it has none
+     */
+    private static byte[] redactJsonFields(byte[] body) {
+        try {
+            JsonNode tree = CANONICAL_MAPPER.readTree(body);
+            return tree != null && redact(tree) ? CANONICAL_MAPPER.writeValueAsBytes(tree) : body;
+        } catch (IOException e) {
+            // Not JSON after all, nothing to redact
+            return body;
+        }
+    }
+
+    private static boolean redact(JsonNode node) {
+        boolean redacted = false;
+        if (node instanceof ObjectNode object) {
+            List<String> names = new ArrayList<>();
+            object.fieldNames().forEachRemaining(names::add);
+            for (String name : names) {
+                if (REDACTED_BODY_FIELDS.contains(name) && object.get(name).isTextual()) {
+                    object.put(name, REDACTED);
+                    redacted = true;
+                } else {
+                    redacted |= redact(object.get(name));
+                }
+            }
+        } else if (node instanceof ArrayNode array) {
+            for (JsonNode element : array) {
+                redacted |= redact(element);
+            }
+        }
+        return redacted;
+    }
+
+    private static Response toResponse(Cassette.RecordedResponse recordedResponse) {
+        List<Header> headers = new ArrayList<>(recordedResponse.headers().size());
+        String contentType = null;
+        for (Map.Entry<String, String> header : recordedResponse.headers()) {
+            headers.add(new Header(header.getKey(), header.getValue()));
+            if ("content-type".equalsIgnoreCase(header.getKey())) {
+                contentType = header.getValue();
+            }
+        }
+        ResponseBuilder builder = new ResponseBuilder().setStatusCode(recordedResponse.statusCode())
+                                                       .setStatusLine(recordedResponse.statusLine())
+                                                       .setHeaders(new Headers(headers))
+                                                       .setBody(recordedResponse.body());
+        if (contentType != null) {
+            builder.setContentType(contentType);
+        }
+        return builder.build();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public enum Mode {
+        RECORD, REPLAY, REPLAY_OR_RECORD;
+
+        /**
+         * @param value {@code record}, {@code replay} or {@code replay_or_record}, in any case
+         */
+        public static Mode fromPropertyValue(String value) {
+            return Mode.valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+
+        public String propertyValue() {
+            return this.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * @param replayed  requests served from the cassette
+     * @param recorded  exchanges written to the cassette
+     * @param misses    requests that were not in the cassette
+     * @param unmatched requests with a multipart stream, sent without being recorded
+     * @param size      exchanges in the cassette
+     */
+    public record Stats(long replayed, long recorded, long misses, long unmatched, int size) {
+    }
+
+    private static final class SystemPropertiesHolder {
+
+        private static final CassetteFilter FILTER = create();
+
+        private static CassetteFilter create() {
+            String mode = System.getProperty(MODE_PROPERTY);
+            if (mode == null || mode.isBlank() || mode.equalsIgnoreCase("off")) {
+                return null;
+            }
+            CassetteFilter filter = new CassetteFilter(Path.of(System.getProperty(FILE_PROPERTY, DEFAULT_CASSETTE_FILE)),
+                    Mode.fromPropertyValue(mode));
+            Runtime.getRuntime().addShutdownHook(new Thread(filter::close, "cassette-filter-shutdown"));
+            return filter;
+        }
+    }
+}
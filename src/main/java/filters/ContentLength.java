@@ -0,0 +1,28 @@
+package filters;
+
+import io.restassured.response.Response;
+
+/**
+ * Reads the {@code Content-Length} of a response for the filters that size bodies before reading them.
+ */
+final class ContentLength {
+
+    private ContentLength() {
+    }
+
+    /**
+     * @return the declared length, {@code -1} if the header is missing, malformed or negative, as for a chunked body
+     */
+    static long of(Response response) {
+        String contentLength = response.getHeader("Content-Length");
+        if (contentLength == null) {
+            return -1;
+        }
+        try {
+            return Math.max(-1, Long.parseLong(contentLength.trim()));
+        } catch (NumberFormatException e) {
+            // A broken header must not fail a request that succeeded
+            return -1;
+        }
+    }
+}
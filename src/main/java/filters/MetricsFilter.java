@@ -0,0 +1,140 @@
+package filters;
+
+import http.ContentCoding;
+import http.PooledHttpClientFactory;
+import http.RequestTimings;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import metrics.MetricsExporter;
+import metrics.RouteMetrics;
+import metrics.RouteStats;
+
+import java.net.URI;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Records latency, response size and status codes of every request, per templated route.
+ * <p>
+ * The route is the path as the test wrote it, base path included, e.g. {@code GET /booking/{bookingId}}, so all
+ * booking ids end up in one series instead of one per id. When {@link PooledHttpClientFactory} is installed the
+ * DNS, connect, pool wait and time to first byte of each request are recorded as well, and the body bytes on the
+ * wire against the bytes after decompression, see {@link ContentCoding}. Counters are striped and
+ * the route lookup is a plain {@link ConcurrentHashMap#get}, so parallel tests do not contend on the filter.
+ * <pre>{@code
+ * RestAssured.filters(MetricsFilter.getDefault());
+ * ...
+ * MetricsExporter.writePrometheus(MetricsFilter.getDefault().snapshot(), Path.of("target/metrics/suite.prom"));
+ * }</pre>
+ * {@code listeners.MetricsSuiteListener} does both for a TestNG suite.
+ */
+public class MetricsFilter implements OrderedFilter, ResponseObserver {
+
+    private static final Pattern ABSOLUTE_URI_PREFIX = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.-]*://[^/]*");
+    private static final Pattern REPEATED_SLASHES = Pattern.compile("/{2,}");
+
+    private final ConcurrentMap<RouteMetrics.RouteKey, RouteMetrics> routes = new ConcurrentHashMap<>();
+
+    /**
+     * @return the filter shared by the JVM
+     */
+    public static MetricsFilter getDefault() {
+        return DefaultHolder.FILTER;
+    }
+
+    /**
+     * Runs after the logging and auth filters, but before digest auth so a challenge counts as part of the request.
+     */
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 1;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        RequestTimings timings = RequestTimings.begin();
+        RouteMetrics bodyMetrics = this.metrics(requestSpec);
+        ContentCoding.BodyListener outerListener = ContentCoding.listen((contentEncoding, wireBytes, decodedBytes) ->
+                bodyMetrics.recordBody(!contentEncoding.equals("identity"), wireBytes, decodedBytes));
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = ctx.next(requestSpec, responseSpec);
+        } catch (RuntimeException e) {
+            this.onFailure(requestSpec, e, System.nanoTime() - start);
+            throw e;
+        } finally {
+            ContentCoding.listen(outerListener);
+        }
+        this.onResponse(requestSpec, response, System.nanoTime() - start);
+        RouteMetrics metrics = this.metrics(requestSpec);
+        metrics.recordPhase(RouteStats.DNS, timings.dnsNanos());
+        metrics.recordPhase(RouteStats.CONNECT, timings.connectNanos());
+        metrics.recordPhase(RouteStats.LEASE_WAIT, timings.leaseWaitNanos());
+        metrics.recordPhase(RouteStats.TIME_TO_FIRST_BYTE, timings.timeToFirstByteNanos());
+        return response;
+    }
+
+    @Override
+    public void onResponse(FilterableRequestSpecification requestSpec, Response response, long elapsedNanos) {
+        this.metrics(requestSpec).recordResponse(elapsedNanos, response.getStatusCode(), ContentLength.of(response));
+    }
+
+    @Override
+    public void onFailure(FilterableRequestSpecification requestSpec, Throwable failure, long elapsedNanos) {
+        this.metrics(requestSpec).recordFailure(elapsedNanos);
+    }
+
+    /**
+     * @return the numbers of every route, sorted by host, route and method
+     */
+    public List<RouteStats> snapshot() {
+        return this.routes.values().stream()
+                          .map(RouteMetrics::snapshot)
+                          .sorted(Comparator.comparing((RouteStats stats) -> stats.key().host())
+                                            .thenComparing(stats -> stats.key().route())
+                                            .thenComparing(stats -> stats.key().method()))
+                          .toList();
+    }
+
+    /**
+     * @return the Prometheus text of {@link #snapshot()}, see {@link MetricsExporter}
+     */
+    public String toPrometheus() {
+        return MetricsExporter.toPrometheus(this.snapshot());
+    }
+
+    private RouteMetrics metrics(FilterableRequestSpecification requestSpec) {
+        URI uri = URI.create(requestSpec.getURI());
+        RouteMetrics.RouteKey key = new RouteMetrics.RouteKey(uri.getScheme() + "://" + uri.getRawAuthority(),
+                requestSpec.getMethod(), route(requestSpec.getBasePath(), requestSpec.getUserDefinedPath()));
+        RouteMetrics metrics = this.routes.get(key);
+        return metrics != null ? metrics : this.routes.computeIfAbsent(key, RouteMetrics::new);
+    }
+
+    /**
+     * @return base path and path joined, without scheme, host or query, e.g. {@code /booking/{bookingId}}
+     */
+    static String route(String basePath, String path) {
+        String route = "/" + (basePath == null ? "" : basePath) + "/"
+                + ABSOLUTE_URI_PREFIX.matcher(path == null ? "" : path).replaceFirst("");
+        int query = route.indexOf('?');
+        if (query >= 0) {
+            route = route.substring(0, query);
+        }
+        route = REPEATED_SLASHES.matcher(route).replaceAll("/");
+        return route.length() > 1 && route.endsWith("/") ? route.substring(0, route.length() - 1) : route;
+    }
+
+    private static final class DefaultHolder {
+
+        private static final MetricsFilter FILTER = new MetricsFilter();
+    }
+}
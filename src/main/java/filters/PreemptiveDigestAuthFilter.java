@@ -0,0 +1,232 @@
+package filters;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Digest authentication that answers the server's challenge once per host and reuses it for every later request.
+ * <p>
+ * {@code auth().digest(...)} sends each request without credentials, gets a 401 with a fresh nonce and sends it
+ * again: two round trips per call. This filter keeps the realm, nonce and opaque of the last challenge per host and
+ * computes the {@code Authorization} header up front, with the nonce count incremented for every request. It only
+ * goes back to the server's challenge when there is none cached yet, or when the server answers with a new nonce,
+ * e.g. {@code stale=true} because the nonce expired or a plain 401 because it was revoked. Then the cached challenge
+ * is replaced and the request is sent once more with the new nonce. A 401 that repeats the cached nonce means the
+ * credentials are wrong and is returned as is.
+ * <p>
+ * The retry goes through the whole filter chain again, so filters that run before this one, such as logging and
+ * metrics filters, see an answered challenge as two requests: the 401 and the retry. {@link Stats#challenged()} is
+ * the number of those extra requests.
+ * <pre>{@code
+ * private static final PreemptiveDigestAuthFilter DIGEST_AUTH = new PreemptiveDigestAuthFilter("admin", "admin");
+ *
+ * RestAssured.given().filter(DIGEST_AUTH).baseUri(...).basePath("digest_auth").when().get();
+ * }</pre>
+ * Share one instance between tests, the cache is per instance. Supports {@code MD5} with {@code qop=auth} or without
+ * qop, and {@code MD5-sess} with {@code qop=auth}; other challenges are returned to the caller as is.
+ */
+public class PreemptiveDigestAuthFilter implements OrderedFilter {
+
+    private static final Pattern CHALLENGE_PARAM = Pattern.compile("(\\w+)=(?:\"([^\"]*)\"|([^,\\s]*))");
+    private static final Pattern QOP_AUTH = Pattern.compile("(^|,)\\s*auth\\s*(,|$)");
+    private static final ThreadLocal<Boolean> RESENDING = ThreadLocal.withInitial(() -> false);
+
+    private final String username;
+    private final String password;
+    private final ConcurrentMap<String, Challenge> challenges = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder preemptive = new LongAdder();
+    private final LongAdder challenged = new LongAdder();
+    private final LongAdder staleNonces = new LongAdder();
+
+    public PreemptiveDigestAuthFilter(String username, String password) {
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Runs after the other filters, so the digest covers the request as it goes on the wire.
+     */
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        if (RESENDING.get()) {
+            // Second pass of resend(), the header is already set
+            return ctx.next(requestSpec, responseSpec);
+        }
+        this.requests.increment();
+        URI uri = URI.create(requestSpec.getURI());
+        String host = uri.getScheme() + "://" + uri.getRawAuthority();
+        Challenge cached = this.challenges.get(host);
+        if (cached != null) {
+            this.preemptive.increment();
+            this.authorize(requestSpec, uri, cached);
+        }
+        Response response = ctx.next(requestSpec, responseSpec);
+        if (response.getStatusCode() != 401) {
+            return response;
+        }
+
+        Challenge challenge = Challenge.parse(response.getHeader("WWW-Authenticate"));
+        if (challenge == null) {
+            return response;
+        }
+        if (cached != null && !challenge.stale() && challenge.nonce().equals(cached.nonce())) {
+            // The server rejected the credentials themselves, a new nonce would not help
+            this.challenges.remove(host, cached);
+            return response;
+        }
+        this.challenged.increment();
+        if (cached != null) {
+            this.staleNonces.increment();
+        }
+        this.challenges.put(host, challenge);
+        this.authorize(requestSpec, uri, challenge);
+        return this.resend(requestSpec, uri, ctx);
+    }
+
+    public Stats stats() {
+        return new Stats(this.requests.sum(), this.preemptive.sum(), this.challenged.sum(), this.staleNonces.sum());
+    }
+
+    /**
+     * Sends the request through the whole filter chain again. Path and query params are already part of the
+     * resolved URI that {@link FilterContext#send} uses, so they are dropped from the spec.
+     */
+    private Response resend(FilterableRequestSpecification requestSpec, URI uri, FilterContext ctx) {
+        new ArrayList<>(requestSpec.getNamedPathParams().keySet()).forEach(requestSpec::removePathParam);
+        new ArrayList<>(requestSpec.getUnnamedPathParamValues()).forEach(requestSpec::removeUnnamedPathParamByValue);
+        if (uri.getRawQuery() != null) {
+            new ArrayList<>(requestSpec.getQueryParams().keySet()).forEach(requestSpec::removeQueryParam);
+        }
+        RESENDING.set(true);
+        try {
+            return ctx.send(requestSpec);
+        } finally {
+            RESENDING.set(false);
+        }
+    }
+
+    private void authorize(FilterableRequestSpecification requestSpec, URI uri, Challenge challenge) {
+        String digestUri = uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+        String nonceCount = String.format("%08x", challenge.nonceCount().incrementAndGet());
+        String clientNonce = HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextLong());
+
+        String ha1 = md5Hex(this.username + ":" + challenge.realm() + ":" + this.password);
+        if (challenge.sessionAlgorithm()) {
+            ha1 = md5Hex(ha1 + ":" + challenge.nonce() + ":" + clientNonce);
+        }
+        String ha2 = md5Hex(requestSpec.getMethod() + ":" + digestUri);
+        String response = challenge.qopAuth()
+                ? md5Hex(ha1 + ":" + challenge.nonce() + ":" + nonceCount + ":" + clientNonce + ":auth:" + ha2)
+                : md5Hex(ha1 + ":" + challenge.nonce() + ":" + ha2);
+
+        StringBuilder header = new StringBuilder("Digest username=\"").append(this.username)
+                                                                       .append("\", realm=\"").append(challenge.realm())
+                                                                       .append("\", nonce=\"").append(challenge.nonce())
+                                                                       .append("\", uri=\"").append(digestUri)
+                                                                       .append("\", response=\"").append(response)
+                                                                       .append('"');
+        if (challenge.algorithm() != null) {
+            header.append(", algorithm=").append(challenge.algorithm());
+        }
+        if (challenge.qopAuth()) {
+            header.append(", qop=auth, nc=").append(nonceCount).append(", cnonce=\"").append(clientNonce).append('"');
+        }
+        if (challenge.opaque() != null) {
+            header.append(", opaque=\"").append(challenge.opaque()).append('"');
+        }
+        requestSpec.removeHeader("Authorization").header("Authorization", header.toString());
+    }
+
+    private static String md5Hex(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5")
+                                                         .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    /**
+     * The last digest challenge of a host and the nonce count sent with it so far.
+     */
+    private record Challenge(String realm, String nonce, String opaque, String algorithm, boolean qopAuth,
+                             boolean stale, AtomicLong nonceCount) {
+
+        /**
+         * @return the challenge, or null if it is not a digest challenge this filter can answer
+         */
+        private static Challenge parse(String wwwAuthenticate) {
+            if (wwwAuthenticate == null || !wwwAuthenticate.regionMatches(true, 0, "Digest ", 0, 7)) {
+                return null;
+            }
+            Map<String, String> params = new HashMap<>();
+            Matcher matcher = CHALLENGE_PARAM.matcher(wwwAuthenticate.substring(7));
+            while (matcher.find()) {
+                params.put(matcher.group(1).toLowerCase(Locale.ROOT),
+                        matcher.group(2) != null ? matcher.group(2) : matcher.group(3));
+            }
+            String algorithm = params.get("algorithm");
+            String qop = params.get("qop");
+            boolean qopAuth = qop != null && QOP_AUTH.matcher(qop).find();
+            if (params.get("realm") == null || params.get("nonce") == null
+                    || (algorithm != null && !algorithm.equalsIgnoreCase("MD5")
+                    && !algorithm.equalsIgnoreCase("MD5-sess"))
+                    || (qop != null && !qopAuth)
+                    // The session key mixes in a cnonce, which is only sent along with qop
+                    || ("MD5-sess".equalsIgnoreCase(algorithm) && !qopAuth)) {
+                return null;
+            }
+            return new Challenge(params.get("realm"), params.get("nonce"), params.get("opaque"), algorithm, qopAuth,
+                    "true".equalsIgnoreCase(params.get("stale")), new AtomicLong());
+        }
+
+        private boolean sessionAlgorithm() {
+            return "MD5-sess".equalsIgnoreCase(this.algorithm);
+        }
+    }
+
+    /**
+     * Counters of the filter.
+     *
+     * @param requests    requests that went through the filter, resent requests excluded
+     * @param preemptive  requests sent with a cached challenge
+     * @param challenged  challenges answered with a second round trip, each seen twice by the filters before this one
+     * @param staleNonces challenges answered because the server replaced the cached nonce, stale or revoked
+     */
+    public record Stats(long requests, long preemptive, long challenged, long staleNonces) {
+
+        /**
+         * @return round trips saved compared to answering a challenge on every request
+         */
+        public long avoidedChallenges() {
+            return this.requests - this.challenged;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package filters;
+
+import io.restassured.filter.Filter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+
+/**
+ * A filter that only looks at the outcome of a request, without changing the request or the response.
+ * <p>
+ * Requests sent by {@link http.AsyncRequestExecutor} complete outside the filter chain, so the executor takes
+ * observers out of the chain and tells them about the outcome itself, on the thread that completes the request.
+ * Implementations must therefore be thread-safe and must not rely on running on the thread that sent the request.
+ */
+public interface ResponseObserver extends Filter {
+
+    /**
+     * @param elapsedNanos from sending the request to the complete response
+     */
+    void onResponse(FilterableRequestSpecification requestSpec, Response response, long elapsedNanos);
+
+    /**
+     * @param failure      why no response was received, e.g. a connection or timeout error
+     * @param elapsedNanos from sending the request to the failure
+     */
+    void onFailure(FilterableRequestSpecification requestSpec, Throwable failure, long elapsedNanos);
+}
@@ -0,0 +1,68 @@
+package filters;
+
+import auth.TokenProvider;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Adds a token from a {@link TokenProvider} to every request of a spec, instead of a token fetched or hard-coded
+ * per test:
+ * <pre>{@code
+ * this.requestSpecFactory.newRequest()
+ *         .and().filter(TokenAuthFilter.cookie("token", RestfulBookerTokenSource.sharedProvider(),
+ *                 RestfulBookerTokenSource.ADMIN))
+ *         .and().basePath("/booking/{bookingId}")
+ *         .when().delete();
+ * }</pre>
+ * A 401 or 403 response drops the token from the provider, so the next request gets a new one. The failed response
+ * is still returned as is. The filter holds no per-request state and can be shared between threads.
+ *
+ * @param <C> the credentials type of the provider
+ */
+public class TokenAuthFilter<C> implements Filter {
+
+    private final TokenProvider<C> tokenProvider;
+    private final C credentials;
+    private final BiConsumer<FilterableRequestSpecification, String> applier;
+
+    private TokenAuthFilter(TokenProvider<C> tokenProvider, C credentials,
+                            BiConsumer<FilterableRequestSpecification, String> applier) {
+        this.tokenProvider = tokenProvider;
+        this.credentials = credentials;
+        this.applier = applier;
+    }
+
+    /**
+     * @return a filter sending {@code Authorization: Bearer <token>}, as for OAuth2
+     */
+    public static <C> TokenAuthFilter<C> bearer(TokenProvider<C> tokenProvider, C credentials) {
+        return new TokenAuthFilter<>(tokenProvider, credentials,
+                (requestSpec, token) -> requestSpec.removeHeader("Authorization")
+                                                   .header("Authorization", "Bearer " + token));
+    }
+
+    /**
+     * @return a filter sending the token as the cookie {@code cookieName}, as for restful-booker
+     */
+    public static <C> TokenAuthFilter<C> cookie(String cookieName, TokenProvider<C> tokenProvider, C credentials) {
+        return new TokenAuthFilter<>(tokenProvider, credentials,
+                (requestSpec, token) -> requestSpec.removeCookie(cookieName).cookie(cookieName, token));
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        String token = this.tokenProvider.token(this.credentials);
+        this.applier.accept(requestSpec, token);
+        Response response = ctx.next(requestSpec, responseSpec);
+        if (response.getStatusCode() == 401 || response.getStatusCode() == 403) {
+            this.tokenProvider.invalidate(this.credentials, token);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,533 @@
+package http;
+
+import filters.BodySpoolingFilter;
+import filters.CassetteFilter;
+import filters.ResponseObserver;
+import io.restassured.authentication.AuthenticationScheme;
+import io.restassured.authentication.ExplicitNoAuthScheme;
+import io.restassured.authentication.NoAuthScheme;
+import io.restassured.authentication.PreemptiveBasicAuthScheme;
+import io.restassured.authentication.PreemptiveOAuth2HeaderScheme;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Cookie;
+import io.restassured.http.Cookies;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.http.Method;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import io.restassured.specification.RequestSpecification;
+import io.restassured.specification.SpecificationQuerier;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Sends RestAssured specs without blocking the calling thread, and completes a {@link CompletableFuture} with the
+ * response.
+ * <p>
+ * A blocking {@code .when().get()} holds its thread until the response is read, so a create, fetch and update
+ * scenario keeps a thread idle for three round trips. Here the spec is built and filtered as usual on the calling
+ * thread, then handed to a non-blocking {@link HttpClient}: a handful of threads complete hundreds of requests in
+ * flight. The response is a regular RestAssured {@link Response}, so {@code then()} and the whole
+ * {@code ValidatableResponse} assertion surface work on it. Calls compose and fan out:
+ * <pre>{@code
+ * AsyncRequestExecutor async = AsyncRequestExecutor.getDefault();
+ *
+ * CompletableFuture<Response> updated = async
+ *         .post(this.requestSpecFactory.newRequest().basePath("/booking").contentType(ContentType.JSON).body(booking))
+ *         .thenApply(response -> response.then().statusCode(200).extract().<Integer>path("bookingid"))
+ *         .thenCompose(bookingId -> async.put(this.requestSpecFactory.newRequest()
+ *                 .basePath("/booking/{bookingId}").pathParam("bookingId", bookingId)...));
+ *
+ * List<Response> bookings = AsyncRequestExecutor.allOf(List.of(async.get(first), async.get(second))).join();
+ * }</pre>
+ * Continuations run on the executor's threads, so they must not block: chain further calls with
+ * {@code thenCompose} instead of calling {@code join()} inside them.
+ * <p>
+ * The filters of the spec see the request as it is sent: tokens and headers added by filters are applied, and a
+ * replayed cassette answers without a request. Preemptive auth, {@code auth().preemptive().basic(...)} and
+ * {@code auth().oauth2(token)}, is sent as its {@code Authorization} header. The response does not go back through
+ * the filter chain. {@link ResponseObserver}s like the logging and metrics filters are called with it instead,
+ * response bodies are kept in memory rather than spooled, and cassettes are only replayed, never recorded. Filters
+ * that react to the response only see an empty placeholder, so a {@code 401} reaches the caller as it is: a
+ * {@code filters.TokenAuthFilter} does not drop the rejected token and a {@code filters.PreemptiveDigestAuthFilter}
+ * does not answer the challenge.
+ * <p>
+ * Not supported, send them with the blocking call: multipart and form parameters, and auth that needs a challenge
+ * or a handshake, i.e. challenged basic and digest, OAuth 1, OAuth 2 as a query parameter, form, NTLM and
+ * certificate auth. They fail with an {@link IllegalArgumentException} instead of going out without credentials.
+ * <p>
+ * At most {@value #MAX_IN_FLIGHT_PROPERTY} requests are in flight at the same time, later ones wait in a queue
+ * without holding a thread.
+ */
+public class AsyncRequestExecutor implements AutoCloseable {
+
+    public static final String THREADS_PROPERTY = "async.threads";
+    public static final String MAX_IN_FLIGHT_PROPERTY = "async.maxInFlight";
+
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+            "upgrade");
+    private static final Pattern CHARSET = Pattern.compile("charset=\"?([^\";\\s]+)", Pattern.CASE_INSENSITIVE);
+
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final int maxInFlight;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private AsyncRequestExecutor(Builder builder) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(builder.threads, runnable -> {
+            Thread thread = new Thread(runnable, "async-request-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                                    .executor(this.executor)
+                                    .version(builder.version)
+                                    .connectTimeout(builder.connectTimeout)
+                                    .followRedirects(HttpClient.Redirect.NORMAL)
+                                    .build();
+        this.requestTimeout = builder.requestTimeout;
+        this.maxInFlight = builder.maxInFlight;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the executor configured by {@value #THREADS_PROPERTY}, {@value #MAX_IN_FLIGHT_PROPERTY}, the
+     * timeouts of {@link PooledHttpClientFactory} and {@value Http2ClientFactory#TRANSPORT_PROPERTY}, shared by every
+     * caller
+     */
+    public static AsyncRequestExecutor getDefault() {
+        return DefaultHolder.EXECUTOR;
+    }
+
+    /**
+     * @return a future completed with all results in the order of the futures, or failed with the first failure
+     */
+    public static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+    }
+
+    public CompletableFuture<Response> get(RequestSpecification requestSpec) {
+        return this.send(Method.GET, requestSpec);
+    }
+
+    public CompletableFuture<Response> post(RequestSpecification requestSpec) {
+        return this.send(Method.POST, requestSpec);
+    }
+
+    public CompletableFuture<Response> put(RequestSpecification requestSpec) {
+        return this.send(Method.PUT, requestSpec);
+    }
+
+    public CompletableFuture<Response> patch(RequestSpecification requestSpec) {
+        return this.send(Method.PATCH, requestSpec);
+    }
+
+    public CompletableFuture<Response> delete(RequestSpecification requestSpec) {
+        return this.send(Method.DELETE, requestSpec);
+    }
+
+    /**
+     * Runs the filters of the spec and sends the request they produce.
+     *
+     * @param requestSpec a spec used for this request only, it is changed by the call
+     * @return the response, or a failure when the request could not be built or sent
+     */
+    public CompletableFuture<Response> send(Method method, RequestSpecification requestSpec) {
+        List<ResponseObserver> observers = new ArrayList<>();
+        for (Filter filter : List.copyOf(SpecificationQuerier.query(requestSpec).getDefinedFilters())) {
+            if (filter instanceof ResponseObserver observer) {
+                observers.add(observer);
+                requestSpec.noFiltersOfType(observer.getClass());
+            } else if (filter instanceof BodySpoolingFilter
+                    || filter instanceof CassetteFilter cassette && cassette.getMode() != CassetteFilter.Mode.REPLAY) {
+                requestSpec.noFiltersOfType(filter.getClass());
+            }
+        }
+        Dispatch dispatch = new Dispatch(observers);
+        Response response;
+        try {
+            response = requestSpec.filter(dispatch).request(method);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        // No dispatch means a filter answered on its own, e.g. a replayed cassette
+        return dispatch.result != null ? dispatch.result : CompletableFuture.completedFuture(response);
+    }
+
+    public Stats stats() {
+        return new Stats(this.sent.sum(), this.completed.sum(), this.failed.sum(), this.inFlight.get(),
+                this.peakInFlight.get(), this.waiting.size(), this.maxInFlight);
+    }
+
+    @Override
+    public void close() {
+        this.httpClient.shutdownNow();
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Starts waiting requests while there is room in flight. Called after every enqueue and every completion, so
+     * a request is never left waiting while a slot is free.
+     */
+    private void drain() {
+        while (!this.waiting.isEmpty()) {
+            int current = this.inFlight.get();
+            if (current >= this.maxInFlight) {
+                return;
+            }
+            if (!this.inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Runnable next = this.waiting.poll();
+            if (next == null) {
+                this.inFlight.decrementAndGet();
+                continue;
+            }
+            this.peakInFlight.accumulateAndGet(current + 1, Math::max);
+            next.run();
+        }
+    }
+
+    private HttpRequest toHttpRequest(FilterableRequestSpecification requestSpec) {
+        if (!requestSpec.getMultiPartParams().isEmpty() || !requestSpec.getFormParams().isEmpty()) {
+            throw new IllegalArgumentException("Multipart and form parameters are not supported by async requests, "
+                    + "send " + requestSpec.getMethod() + " " + requestSpec.getURI() + " with the blocking call");
+        }
+        String authorization = authorization(requestSpec);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(requestSpec.getURI()))
+                                                 .timeout(this.requestTimeout)
+                                                 .method(requestSpec.getMethod(), bodyPublisher(requestSpec));
+        for (Header header : requestSpec.getHeaders()) {
+            if (!RESTRICTED_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT))) {
+                builder.header(header.getName(), header.getValue());
+            }
+        }
+        // A header set on the spec or by a filter wins over the scheme, like on the blocking call
+        if (authorization != null && !requestSpec.getHeaders().hasHeaderWithName("Authorization")) {
+            builder.header("Authorization", authorization);
+        }
+        if (requestSpec.getCookies().exist()) {
+            builder.header("Cookie", requestSpec.getCookies().asList().stream()
+                                                .map(cookie -> cookie.getName() + "=" + cookie.getValue())
+                                                .collect(Collectors.joining("; ")));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the {@code Authorization} header of the auth scheme of the spec, {@code null} without auth
+     * @throws IllegalArgumentException for schemes that need more than a header
+     */
+    private static String authorization(FilterableRequestSpecification requestSpec) {
+        AuthenticationScheme scheme = requestSpec.getAuthenticationScheme();
+        if (scheme == null || scheme instanceof NoAuthScheme || scheme instanceof ExplicitNoAuthScheme) {
+            return null;
+        }
+        if (scheme instanceof PreemptiveBasicAuthScheme basic) {
+            return basic.generateAuthToken();
+        }
+        if (scheme instanceof PreemptiveOAuth2HeaderScheme oauth2) {
+            return oauth2.generateAuthToken();
+        }
+        throw new IllegalArgumentException(scheme.getClass().getSimpleName() + " is not supported by async requests, "
+                + "use preemptive basic or OAuth 2 header auth, or send " + requestSpec.getMethod() + " "
+                + requestSpec.getURI() + " with the blocking call");
+    }
+
+    private static HttpRequest.BodyPublisher bodyPublisher(FilterableRequestSpecification requestSpec) {
+        Object body = requestSpec.getBody();
+        if (body == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        if (body instanceof byte[] bytes) {
+            return HttpRequest.BodyPublishers.ofByteArray(bytes);
+        }
+        if (body instanceof String string) {
+            return HttpRequest.BodyPublishers.ofString(string, charset(requestSpec.getContentType()));
+        }
+        if (body instanceof File file) {
+            try {
+                return HttpRequest.BodyPublishers.ofFile(file.toPath());
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (body instanceof InputStream stream) {
+            return HttpRequest.BodyPublishers.ofInputStream(() -> stream);
+        }
+        throw new IllegalArgumentException("Unsupported request body " + body.getClass().getName());
+    }
+
+    /**
+     * @return the charset of the content type, UTF-8 when there is none as for JSON
+     */
+    private static Charset charset(String contentType) {
+        Matcher matcher = CHARSET.matcher(contentType == null ? "" : contentType);
+        return matcher.find() ? Charset.forName(matcher.group(1)) : StandardCharsets.UTF_8;
+    }
+
+    private static Response toResponse(HttpResponse<byte[]> httpResponse) {
+        List<Header> headers = new ArrayList<>();
+        List<Cookie> cookies = new ArrayList<>();
+        String contentType = null;
+        for (Map.Entry<String, List<String>> header : httpResponse.headers().map().entrySet()) {
+            String name = header.getKey();
+            if (name.startsWith(":")) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                headers.add(new Header(name, value));
+                if (name.equalsIgnoreCase("Content-Type")) {
+                    contentType = value;
+                } else if (name.equalsIgnoreCase("Set-Cookie")) {
+                    cookies.addAll(parseCookies(value));
+                }
+            }
+        }
+        int statusCode = httpResponse.statusCode();
+        String reason = reasonPhrase(statusCode);
+        ResponseBuilder builder = new ResponseBuilder().setStatusCode(statusCode)
+                                                       .setStatusLine(protocol(httpResponse.version()) + " "
+                                                               + statusCode + (reason.isEmpty() ? "" : " " + reason))
+                                                       .setHeaders(new Headers(headers))
+                                                       .setCookies(new Cookies(cookies))
+                                                       .setBody(httpResponse.body());
+        if (contentType != null) {
+            builder.setContentType(contentType);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the English reason phrase of the status, empty for codes without one, e.g. {@code 299} or {@code 699}
+     */
+    static String reasonPhrase(int statusCode) {
+        if (statusCode < 100 || statusCode >= 600) {
+            // The catalog rejects codes outside 100 to 599
+            return "";
+        }
+        String reason = EnglishReasonPhraseCatalog.INSTANCE.getReason(statusCode, Locale.ENGLISH);
+        return reason != null ? reason : "";
+    }
+
+    private static List<Cookie> parseCookies(String setCookie) {
+        List<Cookie> cookies = new ArrayList<>();
+        try {
+            for (HttpCookie cookie : HttpCookie.parse(setCookie)) {
+                Cookie.Builder builder = new Cookie.Builder(cookie.getName(), cookie.getValue())
+                        .setSecured(cookie.getSecure())
+                        .setHttpOnly(cookie.isHttpOnly());
+                if (cookie.getPath() != null) {
+                    builder.setPath(cookie.getPath());
+                }
+                if (cookie.getDomain() != null) {
+                    builder.setDomain(cookie.getDomain());
+                }
+                if (cookie.getMaxAge() >= 0) {
+                    builder.setMaxAge((int) Math.min(Integer.MAX_VALUE, cookie.getMaxAge()));
+                }
+                cookies.add(builder.build());
+            }
+        } catch (IllegalArgumentException e) {
+            // A malformed cookie is still in the headers
+        }
+        return cookies;
+    }
+
+    private static String protocol(HttpClient.Version version) {
+        return version == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+    }
+
+    /**
+     * @param sent         requests handed to the HTTP client
+     * @param completed    requests answered with a response, whatever the status
+     * @param failed       requests that got no response
+     * @param inFlight     requests waiting for their response now
+     * @param peakInFlight most requests in flight at the same time
+     * @param waiting      requests queued for a free slot now
+     * @param maxInFlight  the limit of requests in flight
+     */
+    public record Stats(long sent, long completed, long failed, int inFlight, int peakInFlight, int waiting,
+                        int maxInFlight) {
+    }
+
+    /**
+     * The innermost filter: takes the request as the other filters left it, queues it for sending and answers the
+     * synchronous chain with an empty placeholder that nobody sees.
+     */
+    private final class Dispatch implements OrderedFilter {
+
+        private final List<ResponseObserver> observers;
+        private CompletableFuture<Response> result;
+
+        Dispatch(List<ResponseObserver> observers) {
+            this.observers = observers;
+        }
+
+        @Override
+        public int getOrder() {
+            return LOWEST_PRECEDENCE;
+        }
+
+        @Override
+        public Response filter(FilterableRequestSpecification requestSpec,
+                               FilterableResponseSpecification responseSpec, FilterContext ctx) {
+            HttpRequest request = AsyncRequestExecutor.this.toHttpRequest(requestSpec);
+            CompletableFuture<Response> result = new CompletableFuture<>();
+            this.result = result;
+            AsyncRequestExecutor.this.waiting.add(() -> this.sendNow(requestSpec, request, result));
+            AsyncRequestExecutor.this.drain();
+            return new ResponseBuilder().setStatusCode(204).build();
+        }
+
+        private void sendNow(FilterableRequestSpecification requestSpec, HttpRequest request,
+                             CompletableFuture<Response> result) {
+            AsyncRequestExecutor executor = AsyncRequestExecutor.this;
+            executor.sent.increment();
+            long start = System.nanoTime();
+            CompletableFuture<HttpResponse<byte[]>> exchange;
+            try {
+                exchange = executor.httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+            } catch (RuntimeException e) {
+                exchange = CompletableFuture.failedFuture(e);
+            }
+            exchange.whenComplete((httpResponse, failure) -> {
+                executor.inFlight.decrementAndGet();
+                executor.drain();
+                long elapsedNanos = System.nanoTime() - start;
+                // Whatever throws below, a converter or an observer, fails the future instead of leaving it open
+                try {
+                    if (failure != null) {
+                        executor.failed.increment();
+                        this.observers.forEach(observer -> observer.onFailure(requestSpec, failure, elapsedNanos));
+                        result.completeExceptionally(failure);
+                        return;
+                    }
+                    executor.completed.increment();
+                    Response response = toResponse(httpResponse);
+                    this.observers.forEach(observer -> observer.onResponse(requestSpec, response, elapsedNanos));
+                    result.complete(response);
+                } catch (RuntimeException | Error e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    public static class Builder {
+
+        private int threads = 4;
+        private int maxInFlight = 256;
+        private HttpClient.Version version = HttpClient.Version.HTTP_1_1;
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration requestTimeout = Duration.ofSeconds(30);
+
+        private Builder() {
+        }
+
+        /**
+         * @param threads threads completing responses and running continuations, 4 by default
+         */
+        public Builder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Threads must be at least 1");
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * @param maxInFlight requests sent at the same time, 256 by default
+         */
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("Max in flight must be at least 1");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * @param version {@code HTTP_1_1} by default as RestAssured sends, {@code HTTP_2} to multiplex the requests
+         *                in flight on one connection per host, see {@link Http2ClientFactory}
+         */
+        public Builder version(HttpClient.Version version) {
+            this.version = version;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * @param requestTimeout from sending the request to the response headers, 30 seconds by default
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        public AsyncRequestExecutor build() {
+            return new AsyncRequestExecutor(this);
+        }
+    }
+
+    private static final class DefaultHolder {
+
+        private static final AsyncRequestExecutor EXECUTOR = builder()
+                .threads(Integer.getInteger(THREADS_PROPERTY, 4))
+                .maxInFlight(Integer.getInteger(MAX_IN_FLIGHT_PROPERTY, 256))
+                .version(Http2ClientFactory.isSelectedBySystemProperty() ? HttpClient.Version.HTTP_2
+                        : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(Long.getLong(PooledHttpClientFactory.CONNECT_TIMEOUT_PROPERTY,
+                        10_000)))
+                .requestTimeout(Duration.ofMillis(Long.getLong(PooledHttpClientFactory.READ_TIMEOUT_PROPERTY,
+                        30_000)))
+                .build();
+    }
+}
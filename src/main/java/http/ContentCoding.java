@@ -0,0 +1,314 @@
+package http;
+
+import io.restassured.internal.http.ContentEncoding;
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.entity.DeflateInputStream;
+import org.apache.http.client.entity.GzipCompressingEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compressed bodies for {@link PooledHttpClientFactory} and {@link Http2ClientFactory}: responses are decompressed
+ * while they are read and large request bodies can be sent gzipped.
+ * <p>
+ * RestAssured asks for {@code gzip} and {@code deflate} by default, but its decoder reads the whole compressed body
+ * into a byte array before inflating it. The clients of both factories take over the decoders RestAssured
+ * registers, so {@code DecoderConfig} still decides whether responses are decoded, and inflate from the connection
+ * instead: {@code response.asInputStream()} hands the JSON parser a stream that decompresses as the parser pulls,
+ * with no copy of the body in between. Other codings, e.g. {@code br}, are handed over as received.
+ * <p>
+ * The bytes of every response are counted on the wire and after decoding, and reported to the
+ * {@link BodyListener} registered on the calling thread when the body has been read or closed, see
+ * {@code filters.MetricsFilter} for the per route numbers.
+ */
+public final class ContentCoding {
+
+    public static final String COMPRESS_REQUESTS_ABOVE_PROPERTY = "http.compressRequestsAbove";
+
+    /**
+     * The codings advertised in {@code Accept-Encoding}.
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final ThreadLocal<BodyListener> LISTENER = new ThreadLocal<>();
+
+    private ContentCoding() {
+    }
+
+    /**
+     * Reports the bodies of the responses received on this thread from now on, until called again.
+     *
+     * @param listener {@code null} to stop reporting
+     * @return the listener this one replaces, to put back afterwards
+     */
+    public static BodyListener listen(BodyListener listener) {
+        BodyListener previous = LISTENER.get();
+        if (listener == null) {
+            LISTENER.remove();
+        } else {
+            LISTENER.set(listener);
+        }
+        return previous;
+    }
+
+    /**
+     * @return whether the interceptor is one of the content decoders RestAssured adds from its {@code DecoderConfig}
+     */
+    static boolean isRestAssuredDecoder(Class<?> interceptorClass) {
+        return interceptorClass.getEnclosingClass() == ContentEncoding.class;
+    }
+
+    /**
+     * Compresses request bodies of a known length of at least {@code thresholdBytes} with gzip, unless the request
+     * already has a {@code Content-Encoding}. Must run before the interceptors that write {@code Content-Length}.
+     */
+    static HttpRequestInterceptor requestCompressor(long thresholdBytes) {
+        return (request, context) -> {
+            if (request instanceof HttpEntityEnclosingRequest enclosing && !request.containsHeader("Content-Encoding")) {
+                enclosing.setEntity(compress(enclosing.getEntity(), thresholdBytes));
+            }
+        };
+    }
+
+    /**
+     * @return the entity gzipped while it is written, or the entity itself if it is smaller than the threshold, of
+     * unknown length or already encoded
+     */
+    static HttpEntity compress(HttpEntity entity, long thresholdBytes) {
+        if (thresholdBytes < 0 || entity == null || entity.getContentEncoding() != null
+                || entity.getContentLength() < thresholdBytes) {
+            return entity;
+        }
+        return new GzipCompressingEntity(entity);
+    }
+
+    /**
+     * @param decode whether to inflate {@code gzip} and {@code deflate} bodies, otherwise they are only counted
+     * @return the entity counted on the wire and decoded while it is read, reported to the listener of this thread
+     */
+    static HttpEntity decode(HttpEntity entity, boolean decode) {
+        if (entity == null) {
+            return null;
+        }
+        String coding = coding(entity.getContentEncoding());
+        boolean decoded = decode && (coding.equals("gzip") || coding.equals("x-gzip") || coding.equals("deflate"));
+        return new DecodedEntity(entity, coding, decoded, LISTENER.get());
+    }
+
+    /**
+     * @return the last coding applied, lower case, or {@code identity}
+     */
+    private static String coding(Header contentEncoding) {
+        if (contentEncoding == null) {
+            return "identity";
+        }
+        HeaderElement[] codings = contentEncoding.getElements();
+        return codings.length == 0 ? "identity" : codings[codings.length - 1].getName().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Receives the size of each response body once it has been read to the end or closed.
+     */
+    @FunctionalInterface
+    public interface BodyListener {
+
+        /**
+         * @param contentEncoding coding of the body on the wire, {@code identity} if it was not encoded
+         * @param wireBytes       bytes read from the connection
+         * @param decodedBytes    bytes handed to the reader, equal to {@code wireBytes} if the body was not decoded
+         */
+        void onBody(String contentEncoding, long wireBytes, long decodedBytes);
+    }
+
+    private static final class DecodedEntity extends HttpEntityWrapper {
+
+        private final String coding;
+        private final boolean decoded;
+        private final BodyListener listener;
+        private final AtomicBoolean reported = new AtomicBoolean();
+
+        DecodedEntity(HttpEntity wrapped, String coding, boolean decoded, BodyListener listener) {
+            super(wrapped);
+            this.coding = coding;
+            this.decoded = decoded;
+            this.listener = listener;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            InputStream content = super.getContent();
+            return content == null ? null : new DecodedStream(this, content);
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.decoded ? -1 : super.getContentLength();
+        }
+
+        /**
+         * Hidden once decoded, so no other decoder inflates the body a second time.
+         */
+        @Override
+        public Header getContentEncoding() {
+            return this.decoded ? null : super.getContentEncoding();
+        }
+
+        /**
+         * Writes the decoded body, like {@link #getContent()}.
+         */
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            try (InputStream content = this.getContent()) {
+                content.transferTo(outStream);
+            }
+        }
+
+        void report(long wireBytes, long decodedBytes) {
+            if (this.listener != null && this.reported.compareAndSet(false, true)) {
+                this.listener.onBody(this.coding, wireBytes, decodedBytes);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes coming from the connection and the bytes handed out. The decoder is created on the first
+     * read, so an empty body with a {@code Content-Encoding}, e.g. of a {@code 204}, reads as empty.
+     */
+    private static final class DecodedStream extends FilterInputStream {
+
+        private final DecodedEntity entity;
+        private final CountingStream wire;
+        private long decodedBytes;
+        private boolean opened;
+
+        DecodedStream(DecodedEntity entity, InputStream content) {
+            this(entity, new CountingStream(content));
+        }
+
+        private DecodedStream(DecodedEntity entity, CountingStream wire) {
+            super(wire);
+            this.entity = entity;
+            this.wire = wire;
+        }
+
+        @Override
+        public int read() throws IOException {
+            this.open();
+            int b = this.in.read();
+            if (b < 0) {
+                this.end();
+            } else {
+                this.decodedBytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            this.open();
+            int read = this.in.read(bytes, offset, length);
+            if (read < 0) {
+                this.end();
+            } else {
+                this.decodedBytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            this.open();
+            long skipped = this.in.skip(n);
+            this.decodedBytes += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return this.opened ? this.in.available() : 0;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                this.in.close();
+            } finally {
+                this.end();
+            }
+        }
+
+        private void open() throws IOException {
+            if (this.opened) {
+                return;
+            }
+            this.opened = true;
+            if (!this.entity.decoded) {
+                return;
+            }
+            PushbackInputStream source = new PushbackInputStream(this.wire, 1);
+            int first = source.read();
+            if (first < 0) {
+                this.in = InputStream.nullInputStream();
+                return;
+            }
+            source.unread(first);
+            this.in = this.entity.coding.equals("deflate") ? new DeflateInputStream(source)
+                    : new GZIPInputStream(source, 8192);
+        }
+
+        private void end() {
+            this.entity.report(this.wire.count, this.entity.decoded ? this.decodedBytes : this.wire.count);
+        }
+    }
+
+    private static final class CountingStream extends FilterInputStream {
+
+        private long count;
+
+        CountingStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = this.in.read();
+            if (b >= 0) {
+                this.count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = this.in.read(bytes, offset, length);
+            if (read > 0) {
+                this.count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = this.in.skip(n);
+            this.count += skipped;
+            return skipped;
+        }
+    }
+}
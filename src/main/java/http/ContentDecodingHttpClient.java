@@ -0,0 +1,65 @@
+package http;
+
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.impl.client.DefaultHttpClient;
+
+/**
+ * A client that decodes responses with {@link ContentCoding} instead of the decoders RestAssured registers, which
+ * buffer the whole compressed body. Whether RestAssured registered any, as its {@code DecoderConfig} says, decides
+ * whether {@link #decoder()} inflates bodies or only counts them.
+ */
+@SuppressWarnings("deprecation")
+class ContentDecodingHttpClient extends DefaultHttpClient {
+
+    private volatile boolean decoding;
+
+    ContentDecodingHttpClient() {
+    }
+
+    ContentDecodingHttpClient(ClientConnectionManager connectionManager) {
+        super(connectionManager);
+    }
+
+    /**
+     * @return whether RestAssured asked for decoded responses
+     */
+    boolean isDecoding() {
+        return this.decoding;
+    }
+
+    /**
+     * @return the interceptor that counts and decodes the response body, to add after any interceptor that reads the
+     * body as it came from the connection
+     */
+    HttpResponseInterceptor decoder() {
+        return (response, context) -> response.setEntity(ContentCoding.decode(response.getEntity(), this.decoding));
+    }
+
+    @Override
+    public synchronized void addResponseInterceptor(HttpResponseInterceptor interceptor) {
+        if (ContentCoding.isRestAssuredDecoder(interceptor.getClass())) {
+            this.decoding = true;
+        } else {
+            super.addResponseInterceptor(interceptor);
+        }
+    }
+
+    @Override
+    public synchronized void addResponseInterceptor(HttpResponseInterceptor interceptor, int index) {
+        if (ContentCoding.isRestAssuredDecoder(interceptor.getClass())) {
+            this.decoding = true;
+        } else {
+            super.addResponseInterceptor(interceptor, index);
+        }
+    }
+
+    @Override
+    public synchronized void removeResponseInterceptorByClass(Class<? extends HttpResponseInterceptor> type) {
+        if (ContentCoding.isRestAssuredDecoder(type)) {
+            this.decoding = false;
+        } else {
+            super.removeResponseInterceptorByClass(type);
+        }
+    }
+}
@@ -0,0 +1,556 @@
+package http;
+
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.HttpContext;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.SequenceInputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends RestAssured requests over HTTP/2, many requests multiplexed as streams on one connection per host.
+ * <p>
+ * RestAssured is built on Apache HttpClient 4, which only speaks HTTP/1.1: parallel tests need one connection per
+ * request in flight, see {@link PooledHttpClientFactory}. The clients of this factory hand every request to one
+ * shared {@link java.net.http.HttpClient}, which negotiates HTTP/2 with ALPN on HTTPS and asks for {@code h2c} with
+ * an {@code Upgrade} header on plain HTTP. Hosts that only speak HTTP/1.1, like the JDK based local stubs, are
+ * answered over HTTP/1.1 with keep-alive connections; {@link Stats} counts which protocol each response came back
+ * with. Filters, logging and assertions work as with any other client. Select it per spec:
+ * <pre>{@code
+ * RestAssured.given().config(Http2ClientFactory.getDefault().config())...
+ * RequestSpecFactory.restfulBooker().overHttp2().newRequest()...
+ * }</pre>
+ * or for the whole suite with {@code -D}{@value #TRANSPORT_PROPERTY}{@code =http2}, see
+ * {@code listeners.ConnectionPoolSuiteListener}.
+ * <p>
+ * The request goes out as RestAssured built it, but the Apache client's own handling is skipped: challenge based
+ * {@code auth().basic(...)} and {@code auth().digest(...)} and the {@code relaxedHTTPSValidation()} trust settings.
+ * Use preemptive basic auth or {@code filters.PreemptiveDigestAuthFilter} instead. Compressed responses are
+ * inflated while they are read, see {@link ContentCoding}. The time to first byte of each request is recorded in
+ * {@link RequestTimings}.
+ */
+public class Http2ClientFactory implements HttpClientConfig.HttpClientFactory, AutoCloseable {
+
+    public static final String TRANSPORT_PROPERTY = "http.transport";
+    public static final String HTTP2 = "http2";
+
+    private static final Set<String> CONNECTION_HEADERS = Set.of("connection", "content-length", "expect", "host",
+            "keep-alive", "proxy-connection", "te", "transfer-encoding", "upgrade");
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+    private static final ProtocolVersion HTTP_1_1 = new ProtocolVersion("HTTP", 1, 1);
+    private static final int PIPE_BUFFER_SIZE = 64 * 1024;
+
+    private final java.net.http.HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final long maxBufferedBodyBytes;
+    private final long maxBufferedRequestBytes;
+    private final long compressRequestsAbove;
+    private final LongAdder streams = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder http2Responses = new LongAdder();
+    private final LongAdder http1Responses = new LongAdder();
+    private final LongAdder tlsConnections = new LongAdder();
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final AtomicInteger peakActiveStreams = new AtomicInteger();
+    private final ConcurrentHistogram streamLatencyMicros = new ConcurrentHistogram(3);
+
+    private Http2ClientFactory(Builder builder) {
+        try {
+            this.httpClient = java.net.http.HttpClient.newBuilder()
+                                                      .version(builder.version)
+                                                      .connectTimeout(builder.connectTimeout)
+                                                      .followRedirects(java.net.http.HttpClient.Redirect.NORMAL)
+                                                      .sslContext(new CountingSslContext(SSLContext.getDefault(),
+                                                              this.tlsConnections))
+                                                      .build();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No default TLS context", e);
+        }
+        this.requestTimeout = builder.requestTimeout;
+        this.maxBufferedBodyBytes = builder.maxBufferedBodyBytes;
+        this.maxBufferedRequestBytes = builder.maxBufferedRequestBytes;
+        this.compressRequestsAbove = builder.compressRequestsAbove;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a factory with the timeouts, buffer size and request compression of
+     * {@link PooledHttpClientFactory#fromSystemProperties()}
+     */
+    public static Http2ClientFactory fromSystemProperties() {
+        return builder().connectTimeout(Duration.ofMillis(Long.getLong(
+                                PooledHttpClientFactory.CONNECT_TIMEOUT_PROPERTY, 10_000)))
+                        .requestTimeout(Duration.ofMillis(Long.getLong(
+                                PooledHttpClientFactory.READ_TIMEOUT_PROPERTY, 30_000)))
+                        .maxBufferedBodyBytes(Long.getLong(
+                                PooledHttpClientFactory.MAX_BUFFERED_BODY_PROPERTY, 1024 * 1024))
+                        .compressRequestsAbove(Long.getLong(ContentCoding.COMPRESS_REQUESTS_ABOVE_PROPERTY, -1))
+                        .build();
+    }
+
+    /**
+     * @return the factory configured by system properties, shared by the JVM
+     */
+    public static Http2ClientFactory getDefault() {
+        return DefaultHolder.FACTORY;
+    }
+
+    /**
+     * @return whether {@value #TRANSPORT_PROPERTY} selects this factory for the whole suite
+     */
+    public static boolean isSelectedBySystemProperty() {
+        return HTTP2.equalsIgnoreCase(System.getProperty(TRANSPORT_PROPERTY, "").trim());
+    }
+
+    /**
+     * Makes {@link #getDefault()} the HTTP client of {@link RestAssured#config}, so every spec created afterwards
+     * sends over HTTP/2.
+     */
+    public static synchronized void installDefault() {
+        RestAssured.config = RestAssured.config().httpClient(getDefault().httpClientConfig());
+    }
+
+    /**
+     * @return the HTTP client config of {@link RestAssured#config} with this factory
+     */
+    public HttpClientConfig httpClientConfig() {
+        return RestAssured.config().getHttpClientConfig().httpClientFactory(this);
+    }
+
+    /**
+     * @return {@link RestAssured#config} with this factory, for {@code given().config(...)}
+     */
+    public RestAssuredConfig config() {
+        return RestAssured.config().httpClient(this.httpClientConfig());
+    }
+
+    /**
+     * RestAssured writes per-request settings into the client, so every request gets its own small client. All of
+     * them send through the shared HTTP/2 client.
+     */
+    @Override
+    public HttpClient createHttpClient() {
+        return new BridgeClient();
+    }
+
+    public Stats stats() {
+        Histogram latency = this.streamLatencyMicros.copy();
+        return new Stats(this.streams.sum(), this.failures.sum(), this.activeStreams.get(),
+                this.peakActiveStreams.get(), this.http2Responses.sum(), this.http1Responses.sum(),
+                this.tlsConnections.sum(), micros(latency.getValueAtPercentile(50)),
+                micros(latency.getValueAtPercentile(99)), micros(latency.getMaxValue()));
+    }
+
+    @Override
+    public void close() {
+        this.httpClient.shutdownNow();
+    }
+
+    private CloseableHttpResponse send(HttpUriRequest request, ContentDecodingHttpClient client) throws IOException {
+        if (request instanceof HttpEntityEnclosingRequest enclosing && !request.containsHeader("Content-Encoding")) {
+            enclosing.setEntity(ContentCoding.compress(enclosing.getEntity(), this.compressRequestsAbove));
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.getURI())
+                                                 .timeout(this.requestTimeout)
+                                                 .method(request.getMethod(), this.bodyPublisher(request));
+        for (Header header : request.getAllHeaders()) {
+            if (!CONNECTION_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT))) {
+                builder.header(header.getName(), header.getValue());
+            }
+        }
+        if (request instanceof HttpEntityEnclosingRequest enclosing && enclosing.getEntity() != null
+                && enclosing.getEntity().getContentType() != null && !request.containsHeader("Content-Type")) {
+            builder.header("Content-Type", enclosing.getEntity().getContentType().getValue());
+        }
+        if (request instanceof HttpEntityEnclosingRequest enclosing && enclosing.getEntity() != null
+                && enclosing.getEntity().getContentEncoding() != null && !request.containsHeader("Content-Encoding")) {
+            builder.header("Content-Encoding", enclosing.getEntity().getContentEncoding().getValue());
+        }
+        // RestAssured's interceptor that asks for compressed responses does not run here
+        if (client.isDecoding() && !request.containsHeader("Accept-Encoding")) {
+            builder.header("Accept-Encoding", ContentCoding.ACCEPT_ENCODING);
+        }
+
+        RequestTimings timings = RequestTimings.current();
+        long start = System.nanoTime();
+        this.streams.increment();
+        this.peakActiveStreams.accumulateAndGet(this.activeStreams.incrementAndGet(), Math::max);
+        timings.requestSent();
+        HttpResponse<InputStream> response;
+        try {
+            response = this.httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException | RuntimeException e) {
+            this.failures.increment();
+            this.activeStreams.decrementAndGet();
+            throw e;
+        } catch (InterruptedException e) {
+            this.failures.increment();
+            this.activeStreams.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending " + request.getMethod() + " "
+                    + request.getURI());
+        }
+        timings.responseReceived();
+        (response.version() == java.net.http.HttpClient.Version.HTTP_2 ? this.http2Responses
+                : this.http1Responses).increment();
+        StreamBody body = new StreamBody(response.body(), start);
+        try {
+            return this.toApacheResponse(response, body, client.isDecoding());
+        } catch (IOException | RuntimeException e) {
+            // The caller never gets the body to close, end the stream here
+            this.failures.increment();
+            try {
+                body.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Small bodies are sent from a byte array with their length. Bodies of unknown length, e.g. multipart uploads
+     * streamed from a file, are written by the entity on a virtual thread and streamed to the client through a pipe.
+     */
+    private HttpRequest.BodyPublisher bodyPublisher(HttpUriRequest request) throws IOException {
+        if (!(request instanceof HttpEntityEnclosingRequest enclosing) || enclosing.getEntity() == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        HttpEntity entity = enclosing.getEntity();
+        long length = entity.getContentLength();
+        if (length >= 0 && length <= this.maxBufferedRequestBytes) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream((int) length);
+            entity.writeTo(body);
+            return HttpRequest.BodyPublishers.ofByteArray(body.toByteArray());
+        }
+        PipedInputStream in = new PipedInputStream(PIPE_BUFFER_SIZE);
+        PipedOutputStream out = new PipedOutputStream(in);
+        Thread.ofVirtual().name("http2-request-body").start(() -> {
+            try (out) {
+                entity.writeTo(out);
+            } catch (IOException e) {
+                // The client sees the body end early and fails the request
+            }
+        });
+        HttpRequest.BodyPublisher publisher = HttpRequest.BodyPublishers.ofInputStream(() -> in);
+        return length >= 0 ? HttpRequest.BodyPublishers.fromPublisher(publisher, length) : publisher;
+    }
+
+    private CloseableHttpResponse toApacheResponse(HttpResponse<InputStream> response, StreamBody body,
+                                                   boolean decode) throws IOException {
+        int statusCode = response.statusCode();
+        BridgeResponse apacheResponse = new BridgeResponse(new BasicStatusLine(
+                response.version() == java.net.http.HttpClient.Version.HTTP_2 ? HTTP_2 : HTTP_1_1, statusCode,
+                AsyncRequestExecutor.reasonPhrase(statusCode)), body);
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            if (!header.getKey().startsWith(":")) {
+                header.getValue().forEach(value -> apacheResponse.addHeader(header.getKey(), value));
+            }
+        }
+
+        long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContentLength(contentLength);
+        response.headers().firstValue("Content-Type").ifPresent(entity::setContentType);
+        response.headers().firstValue("Content-Encoding").ifPresent(entity::setContentEncoding);
+        entity.setContent(contentLength <= this.maxBufferedBodyBytes ? this.buffer(body) : body);
+        apacheResponse.setEntity(ContentCoding.decode(entity, decode));
+        return apacheResponse;
+    }
+
+    /**
+     * Reads a body of up to {@code maxBufferedBodyBytes} right away, so the stream ends even if nobody reads the
+     * body. A longer body is streamed on from where the buffer stops.
+     */
+    private InputStream buffer(StreamBody body) throws IOException {
+        byte[] prefix = body.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, this.maxBufferedBodyBytes + 1));
+        if (prefix.length <= this.maxBufferedBodyBytes) {
+            body.close();
+            return new ByteArrayInputStream(prefix);
+        }
+        return new SequenceInputStream(new ByteArrayInputStream(prefix), body);
+    }
+
+    private static Duration micros(long micros) {
+        return Duration.ofNanos(micros * 1000);
+    }
+
+    /**
+     * @param streams               requests sent, one stream each on HTTP/2
+     * @param failures              requests without a response
+     * @param activeStreams         requests whose response body is not read yet
+     * @param peakActiveStreams     most requests in flight at the same time, multiplexed on HTTP/2
+     * @param http2Responses        responses received over HTTP/2
+     * @param http1Responses        responses received over HTTP/1.1, from hosts that do not speak HTTP/2
+     * @param tlsConnections        HTTPS connections opened, one TLS handshake each; plain HTTP connections are not
+     *                              visible to the client API
+     * @param p50                   median stream latency, from sending the request to the end of the body
+     * @param p99                   99th percentile stream latency
+     * @param max                   slowest stream
+     */
+    public record Stats(long streams, long failures, int activeStreams, int peakActiveStreams, long http2Responses,
+                        long http1Responses, long tlsConnections, Duration p50, Duration p99, Duration max) {
+
+        /**
+         * @return streams per HTTPS connection, how well requests were multiplexed
+         */
+        public double streamsPerConnection() {
+            return this.tlsConnections == 0 ? 0 : (double) this.streams / this.tlsConnections;
+        }
+    }
+
+    public static class Builder {
+
+        private java.net.http.HttpClient.Version version = java.net.http.HttpClient.Version.HTTP_2;
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration requestTimeout = Duration.ofSeconds(30);
+        private long maxBufferedBodyBytes = 1024 * 1024;
+        private long maxBufferedRequestBytes = 1024 * 1024;
+        private long compressRequestsAbove = -1;
+
+        private Builder() {
+        }
+
+        /**
+         * @param version {@code HTTP_2} by default, {@code HTTP_1_1} to compare the same client without it
+         */
+        public Builder version(java.net.http.HttpClient.Version version) {
+            this.version = version;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Time from sending a request to its response headers.
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * Bodies up to this size are read as soon as the response arrives, so their stream ends even if the body
+         * is never used. Larger bodies are streamed and keep their stream open until they are read or closed.
+         */
+        public Builder maxBufferedBodyBytes(long maxBufferedBodyBytes) {
+            this.maxBufferedBodyBytes = maxBufferedBodyBytes;
+            return this;
+        }
+
+        /**
+         * Request bodies up to this size are copied and sent with their length, larger ones are streamed.
+         */
+        public Builder maxBufferedRequestBytes(long maxBufferedRequestBytes) {
+            this.maxBufferedRequestBytes = maxBufferedRequestBytes;
+            return this;
+        }
+
+        /**
+         * Request bodies of at least this many bytes are sent gzipped, off with a negative value, the default. See
+         * {@link PooledHttpClientFactory.Builder#compressRequestsAbove(long)}.
+         */
+        public Builder compressRequestsAbove(long compressRequestsAbove) {
+            this.compressRequestsAbove = compressRequestsAbove;
+            return this;
+        }
+
+        public Http2ClientFactory build() {
+            return new Http2ClientFactory(this);
+        }
+    }
+
+    /**
+     * The client RestAssured talks to. It keeps the Apache API RestAssured configures, but sends through the
+     * shared HTTP/2 client instead of a connection manager.
+     */
+    private final class BridgeClient extends ContentDecodingHttpClient {
+
+        @Override
+        public CloseableHttpResponse execute(HttpUriRequest request, HttpContext context) throws IOException {
+            return Http2ClientFactory.this.send(request, this);
+        }
+    }
+
+    private static final class BridgeResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+        private final InputStream body;
+
+        BridgeResponse(BasicStatusLine statusLine, InputStream body) {
+            super(statusLine);
+            this.body = body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.body.close();
+        }
+    }
+
+    /**
+     * The body of one stream, which ends the stream and records its latency when it is read to the end or closed.
+     */
+    private final class StreamBody extends FilterInputStream {
+
+        private final long startNanos;
+        private boolean ended;
+
+        StreamBody(InputStream in, long startNanos) {
+            super(in);
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read < 0) {
+                this.end();
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read < 0) {
+                this.end();
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.end();
+            super.close();
+        }
+
+        private void end() {
+            if (this.ended) {
+                return;
+            }
+            this.ended = true;
+            Http2ClientFactory.this.activeStreams.decrementAndGet();
+            Http2ClientFactory.this.streamLatencyMicros.recordValue(
+                    Math.max(0, (System.nanoTime() - this.startNanos) / 1000));
+        }
+    }
+
+    /**
+     * Counts the TLS engines the client creates, one per HTTPS connection.
+     */
+    private static final class CountingSslContext extends SSLContext {
+
+        CountingSslContext(SSLContext delegate, LongAdder connections) {
+            super(new CountingSpi(delegate, connections), delegate.getProvider(), delegate.getProtocol());
+        }
+    }
+
+    private static final class CountingSpi extends SSLContextSpi {
+
+        private final SSLContext delegate;
+        private final LongAdder connections;
+
+        CountingSpi(SSLContext delegate, LongAdder connections) {
+            this.delegate = delegate;
+            this.connections = connections;
+        }
+
+        @Override
+        protected void engineInit(KeyManager[] keyManagers, TrustManager[] trustManagers, SecureRandom random) {
+            throw new IllegalStateException("Already initialized");
+        }
+
+        @Override
+        protected SSLSocketFactory engineGetSocketFactory() {
+            return this.delegate.getSocketFactory();
+        }
+
+        @Override
+        protected SSLServerSocketFactory engineGetServerSocketFactory() {
+            return this.delegate.getServerSocketFactory();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine() {
+            this.connections.increment();
+            return this.delegate.createSSLEngine();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine(String host, int port) {
+            this.connections.increment();
+            return this.delegate.createSSLEngine(host, port);
+        }
+
+        @Override
+        protected SSLSessionContext engineGetServerSessionContext() {
+            return this.delegate.getServerSessionContext();
+        }
+
+        @Override
+        protected SSLSessionContext engineGetClientSessionContext() {
+            return this.delegate.getClientSessionContext();
+        }
+
+        @Override
+        protected SSLParameters engineGetDefaultSSLParameters() {
+            return this.delegate.getDefaultSSLParameters();
+        }
+
+        @Override
+        protected SSLParameters engineGetSupportedSSLParameters() {
+            return this.delegate.getSupportedSSLParameters();
+        }
+    }
+
+    private static final class DefaultHolder {
+
+        private static final Http2ClientFactory FACTORY = fromSystemProperties();
+    }
+}
@@ -0,0 +1,222 @@
+package http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A fixture file mapped into memory once and uploaded from the mapping, e.g. as a multipart part.
+ * <p>
+ * {@code multiPart("image", new File(...))} reads the file through a new {@link java.io.FileInputStream} per upload,
+ * and {@code multiPart("image", Files.readAllBytes(...))} keeps a heap copy of it. A mapped file is read straight
+ * from the page cache: every {@link #openStream()} is a view over the same read-only mapping with its own position,
+ * so concurrent uploads of one fixture share a single mapping and no upload copies the file into a heap array.
+ * RestAssured sends a part of unknown length with chunked transfer encoding:
+ * <pre>{@code
+ * private static final MappedFile IMAGE = MappedFile.of(Path.of("src/main/resources/playwright-nodejs.png"));
+ *
+ * .multiPart("image", IMAGE.fileName(), IMAGE.openStream(upload -> System.out.println(upload)))
+ * }</pre>
+ * Each stream times the upload from its first read to its end and reports the throughput when it is read to the end
+ * or closed. Files are mapped for the lifetime of the JVM, which suits fixtures, and must be smaller than 2 GB.
+ */
+public final class MappedFile {
+
+    private static final ConcurrentMap<Path, MappedFile> MAPPED_FILES = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final MappedByteBuffer mapping;
+    private final LongAdder uploads = new LongAdder();
+    private final LongAdder uploadedBytes = new LongAdder();
+    private final LongAdder uploadNanos = new LongAdder();
+
+    private MappedFile(Path path) {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Fixture " + path + " is larger than 2 GB");
+            }
+            this.mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map " + path, e);
+        }
+    }
+
+    /**
+     * @return the mapping of the file, shared by every caller asking for the same file
+     */
+    public static MappedFile of(Path path) {
+        Path key = path.toAbsolutePath().normalize();
+        MappedFile mappedFile = MAPPED_FILES.get(key);
+        return mappedFile != null ? mappedFile : MAPPED_FILES.computeIfAbsent(key, MappedFile::new);
+    }
+
+    public Path path() {
+        return this.path;
+    }
+
+    /**
+     * @return the name of the file, for the {@code filename} of a multipart part
+     */
+    public String fileName() {
+        return this.path.getFileName().toString();
+    }
+
+    public long size() {
+        return this.mapping.capacity();
+    }
+
+    /**
+     * @return a stream over the whole file, counted in {@link #stats()}
+     */
+    public InputStream openStream() {
+        return this.openStream(upload -> {
+        });
+    }
+
+    /**
+     * @param onComplete called once with the throughput of this stream, when it is read to the end or closed
+     * @return a stream over the whole file, counted in {@link #stats()}
+     */
+    public InputStream openStream(Consumer<Upload> onComplete) {
+        return new MappedInputStream(this.mapping.duplicate(), onComplete);
+    }
+
+    public Stats stats() {
+        return new Stats(this.fileName(), this.size(), this.uploads.sum(), this.uploadedBytes.sum(),
+                Duration.ofNanos(this.uploadNanos.sum()));
+    }
+
+    /**
+     * One upload of the file.
+     *
+     * @param fileName the uploaded file
+     * @param bytes    bytes read by the HTTP client, the file size unless the upload was cut short
+     * @param duration from the first read to the last
+     */
+    public record Upload(String fileName, long bytes, Duration duration) {
+
+        public double megabytesPerSecond() {
+            return MappedFile.megabytesPerSecond(this.bytes, this.duration);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Uploaded %s: %d bytes in %d ms, %.1f MB/s", this.fileName, this.bytes,
+                    this.duration.toMillis(), this.megabytesPerSecond());
+        }
+    }
+
+    /**
+     * @param fileName      the mapped file
+     * @param size          size of the file
+     * @param uploads       streams read to the end or closed
+     * @param uploadedBytes bytes read by all of them
+     * @param uploadTime    time spent in all of them, summed over concurrent uploads
+     */
+    public record Stats(String fileName, long size, long uploads, long uploadedBytes, Duration uploadTime) {
+
+        /**
+         * @return average throughput of a single upload
+         */
+        public double megabytesPerSecond() {
+            return MappedFile.megabytesPerSecond(this.uploadedBytes, this.uploadTime);
+        }
+    }
+
+    private static double megabytesPerSecond(long bytes, Duration duration) {
+        return duration.isZero() ? 0 : bytes / 1e6 / (duration.toNanos() / 1e9);
+    }
+
+    /**
+     * Reads a view of the mapping, which has its own position and shares the pages with every other view.
+     */
+    private final class MappedInputStream extends InputStream {
+
+        private final ByteBuffer view;
+        private final Consumer<Upload> onComplete;
+        private long startNanos = -1;
+        private boolean completed;
+
+        MappedInputStream(ByteBuffer view, Consumer<Upload> onComplete) {
+            this.view = view;
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public int read() {
+            if (!this.begin()) {
+                return -1;
+            }
+            return this.view.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!this.begin()) {
+                return -1;
+            }
+            int read = Math.min(length, this.view.remaining());
+            this.view.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, this.view.remaining()));
+            this.view.position(this.view.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return this.view.remaining();
+        }
+
+        @Override
+        public void close() {
+            this.complete();
+        }
+
+        /**
+         * @return whether there is something left to read, completes the upload otherwise
+         */
+        private boolean begin() {
+            if (this.startNanos < 0) {
+                this.startNanos = System.nanoTime();
+            }
+            if (this.view.hasRemaining()) {
+                return true;
+            }
+            this.complete();
+            return false;
+        }
+
+        private void complete() {
+            if (this.completed || this.startNanos < 0) {
+                return;
+            }
+            this.completed = true;
+            long nanos = System.nanoTime() - this.startNanos;
+            long bytes = this.view.position();
+            MappedFile.this.uploads.increment();
+            MappedFile.this.uploadedBytes.add(bytes);
+            MappedFile.this.uploadNanos.add(nanos);
+            this.onComplete.accept(new Upload(MappedFile.this.fileName(), bytes, Duration.ofNanos(nanos)));
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package http;
+
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Makes every RestAssured request share one pool of keep-alive connections.
+ * <p>
+ * By default RestAssured creates a new {@link DefaultHttpClient}, and with it a new single-connection manager, for
+ * every request, so each request opens a new connection and pays a TLS handshake on HTTPS hosts. This factory still
+ * hands out a new client per request, because RestAssured writes per-request settings (parameters, credentials)
+ * into the client, but all of them lease connections from the same {@link PoolingClientConnectionManager}. A
+ * connection is opened once per route and reused while it is kept alive.
+ * <p>
+ * Install it for every spec of the JVM, sized by system properties (see {@link #fromSystemProperties()}):
+ * <pre>{@code
+ * PooledHttpClientFactory.installDefault();
+ * }</pre>
+ * Or for one spec:
+ * <pre>{@code
+ * PooledHttpClientFactory factory = PooledHttpClientFactory.builder().maxPerRoute(32).build();
+ * RestAssured.given().config(RestAssured.config().httpClient(factory.httpClientConfig()))...
+ * }</pre>
+ * The scheme registry is shared as well, so {@code relaxedHTTPSValidation()} or a custom trust store in one test
+ * applies to every later connection.
+ * <p>
+ * The DNS, connect, lease wait and time to first byte of each request are recorded in {@link RequestTimings} of the
+ * calling thread. Compressed responses are inflated while they are read, see {@link ContentCoding}.
+ */
+@SuppressWarnings("deprecation")
+public class PooledHttpClientFactory implements HttpClientConfig.HttpClientFactory, AutoCloseable {
+
+    public static final String MAX_TOTAL_PROPERTY = "http.maxTotal";
+    public static final String MAX_PER_ROUTE_PROPERTY = "http.maxPerRoute";
+    public static final String CONNECT_TIMEOUT_PROPERTY = "http.connectTimeoutMillis";
+    public static final String READ_TIMEOUT_PROPERTY = "http.readTimeoutMillis";
+    public static final String LEASE_TIMEOUT_PROPERTY = "http.leaseTimeoutMillis";
+    public static final String KEEP_ALIVE_PROPERTY = "http.keepAliveSeconds";
+    public static final String IDLE_TIMEOUT_PROPERTY = "http.idleTimeoutSeconds";
+    public static final String MAX_BUFFERED_BODY_PROPERTY = "http.maxBufferedBodyBytes";
+
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder leaseWaitNanos = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder tlsHandshakes = new LongAdder();
+    private final LongAdder connectNanos = new LongAdder();
+
+    private final InstrumentedConnectionManager connectionManager;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final long leaseTimeoutMillis;
+    private final long keepAliveMillis;
+    private final long maxBufferedBodyBytes;
+    private final long compressRequestsAbove;
+    private final ScheduledExecutorService evictor;
+
+    private PooledHttpClientFactory(Builder builder) {
+        this.connectionManager = new InstrumentedConnectionManager(SchemeRegistryFactory.createDefault());
+        this.connectionManager.setMaxTotal(builder.maxTotal);
+        this.connectionManager.setDefaultMaxPerRoute(builder.maxPerRoute);
+        this.connectTimeoutMillis = (int) builder.connectTimeout.toMillis();
+        this.readTimeoutMillis = (int) builder.readTimeout.toMillis();
+        this.leaseTimeoutMillis = builder.leaseTimeout.toMillis();
+        this.keepAliveMillis = builder.keepAlive.toMillis();
+        this.maxBufferedBodyBytes = builder.maxBufferedBodyBytes;
+        this.compressRequestsAbove = builder.compressRequestsAbove;
+
+        long idleTimeoutMillis = builder.idleTimeout.toMillis();
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long evictionInterval = Math.max(1000, idleTimeoutMillis / 2);
+        this.evictor.scheduleWithFixedDelay(() -> {
+            this.connectionManager.closeExpiredConnections();
+            this.connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Reads the pool settings from system properties, with defaults in parentheses: {@value #MAX_TOTAL_PROPERTY}
+     * (64), {@value #MAX_PER_ROUTE_PROPERTY} (16), {@value #CONNECT_TIMEOUT_PROPERTY} (10000),
+     * {@value #READ_TIMEOUT_PROPERTY} (30000), {@value #LEASE_TIMEOUT_PROPERTY} (30000),
+     * {@value #KEEP_ALIVE_PROPERTY} (30), {@value #IDLE_TIMEOUT_PROPERTY} (30),
+     * {@value #MAX_BUFFERED_BODY_PROPERTY} (1048576) and {@value ContentCoding#COMPRESS_REQUESTS_ABOVE_PROPERTY}
+     * (-1, off).
+     */
+    public static PooledHttpClientFactory fromSystemProperties() {
+        return builder().maxTotal(Integer.getInteger(MAX_TOTAL_PROPERTY, 64))
+                        .maxPerRoute(Integer.getInteger(MAX_PER_ROUTE_PROPERTY, 16))
+                        .connectTimeout(Duration.ofMillis(Long.getLong(CONNECT_TIMEOUT_PROPERTY, 10_000)))
+                        .readTimeout(Duration.ofMillis(Long.getLong(READ_TIMEOUT_PROPERTY, 30_000)))
+                        .leaseTimeout(Duration.ofMillis(Long.getLong(LEASE_TIMEOUT_PROPERTY, 30_000)))
+                        .keepAlive(Duration.ofSeconds(Long.getLong(KEEP_ALIVE_PROPERTY, 30)))
+                        .idleTimeout(Duration.ofSeconds(Long.getLong(IDLE_TIMEOUT_PROPERTY, 30)))
+                        .maxBufferedBodyBytes(Long.getLong(MAX_BUFFERED_BODY_PROPERTY, 1024 * 1024))
+                        .compressRequestsAbove(Long.getLong(ContentCoding.COMPRESS_REQUESTS_ABOVE_PROPERTY, -1))
+                        .build();
+    }
+
+    /**
+     * @return the factory configured by system properties, shared by the JVM and closed when it exits
+     */
+    public static PooledHttpClientFactory getDefault() {
+        return DefaultHolder.FACTORY;
+    }
+
+    /**
+     * Makes {@link #getDefault()} the HTTP client of {@link RestAssured#config}, so every spec created afterwards
+     * uses the shared pool.
+     */
+    public static synchronized void installDefault() {
+        RestAssured.config = RestAssured.config().httpClient(getDefault().httpClientConfig());
+    }
+
+    /**
+     * @return the HTTP client config of {@link RestAssured#config} with this factory
+     */
+    public HttpClientConfig httpClientConfig() {
+        return RestAssured.config().getHttpClientConfig().httpClientFactory(this);
+    }
+
+    @Override
+    public HttpClient createHttpClient() {
+        ContentDecodingHttpClient client = new ContentDecodingHttpClient(this.connectionManager);
+        HttpParams params = client.getParams();
+        HttpConnectionParams.setConnectionTimeout(params, this.connectTimeoutMillis);
+        HttpConnectionParams.setSoTimeout(params, this.readTimeoutMillis);
+        params.setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, this.leaseTimeoutMillis);
+        client.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                // Use the server's Keep-Alive timeout when it sends one
+                long keepAlive = super.getKeepAliveDuration(response, context);
+                return keepAlive > 0 ? keepAlive : PooledHttpClientFactory.this.keepAliveMillis;
+            }
+        });
+        if (this.compressRequestsAbove >= 0) {
+            // First, so Content-Length and Content-Encoding are written for the compressed body
+            client.addRequestInterceptor(ContentCoding.requestCompressor(this.compressRequestsAbove), 0);
+        }
+        // Last request interceptor and first response interceptor, as close to the wire as interceptors get
+        client.addRequestInterceptor((request, context) -> RequestTimings.current().requestSent());
+        client.addResponseInterceptor((response, context) -> RequestTimings.current().responseReceived(), 0);
+        client.addResponseInterceptor((response, context) -> {
+            // RestAssured reads bodies lazily, a body nobody reads would keep its connection leased until GC.
+            // A body that ends within the limit is not streaming anymore, so HttpClient releases the connection
+            // right away. Bodies of unknown length, chunked or compressed, are read up to the limit too, the same
+            // policy as Http2ClientFactory, and stream on from there when they are longer.
+            HttpEntity entity = response.getEntity();
+            if (entity != null && entity.isStreaming() && entity.getContentLength() <= this.maxBufferedBodyBytes) {
+                response.setEntity(PrefixedEntity.read(entity, this.maxBufferedBodyBytes));
+            }
+        });
+        // After buffering, which keeps the compressed body, so the body is inflated while the reader pulls it
+        client.addResponseInterceptor(client.decoder());
+        return client;
+    }
+
+    public Stats stats() {
+        PoolStats pool = this.connectionManager.getTotalStats();
+        return new Stats(this.leases.sum(), this.waits.sum(), TimeUnit.NANOSECONDS.toMillis(this.leaseWaitNanos.sum()),
+                this.connectionsOpened.sum(), this.tlsHandshakes.sum(),
+                TimeUnit.NANOSECONDS.toMillis(this.connectNanos.sum()), pool.getLeased(), pool.getAvailable(),
+                pool.getPending(), pool.getMax());
+    }
+
+    /**
+     * Closes every pooled connection, requests made afterwards fail.
+     */
+    @Override
+    public void close() {
+        this.evictor.shutdownNow();
+        this.connectionManager.shutdown();
+    }
+
+    /**
+     * Counters of the pool.
+     *
+     * @param leases            connections handed to requests
+     * @param waits             leases that found the pool exhausted and had to wait for a connection
+     * @param leaseWaitMillis   time spent waiting for a lease
+     * @param connectionsOpened new connections, one TCP handshake each
+     * @param tlsHandshakes     new HTTPS connections, one TLS handshake each
+     * @param connectMillis     time spent opening connections, handshakes included
+     * @param leased            connections in use
+     * @param available         idle connections kept alive
+     * @param pending           requests waiting for a connection
+     * @param maxTotal          pool size over all routes
+     */
+    public record Stats(long leases, long waits, long leaseWaitMillis, long connectionsOpened, long tlsHandshakes,
+                        long connectMillis, int leased, int available, int pending, int maxTotal) {
+
+        /**
+         * @return share of leases that reused a pooled connection
+         */
+        public double reuseRate() {
+            return this.leases == 0 ? 0 : 1 - (double) this.connectionsOpened / this.leases;
+        }
+    }
+
+    public static class Builder {
+
+        private int maxTotal = 64;
+        private int maxPerRoute = 16;
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration readTimeout = Duration.ofSeconds(30);
+        private Duration leaseTimeout = Duration.ofSeconds(30);
+        private Duration keepAlive = Duration.ofSeconds(30);
+        private Duration idleTimeout = Duration.ofSeconds(30);
+        private long maxBufferedBodyBytes = 1024 * 1024;
+        private long compressRequestsAbove = -1;
+
+        private Builder() {
+        }
+
+        /**
+         * Connections over all routes.
+         */
+        public Builder maxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        /**
+         * Connections to one scheme, host and port.
+         */
+        public Builder maxPerRoute(int maxPerRoute) {
+            this.maxPerRoute = maxPerRoute;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Socket timeout while waiting for response data.
+         */
+        public Builder readTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+            return this;
+        }
+
+        /**
+         * Time a request waits for a connection when the pool is exhausted.
+         */
+        public Builder leaseTimeout(Duration leaseTimeout) {
+            this.leaseTimeout = leaseTimeout;
+            return this;
+        }
+
+        /**
+         * How long a connection is kept when the server does not send a {@code Keep-Alive} timeout.
+         */
+        public Builder keepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * Idle connections are closed after this time, before the server drops them.
+         */
+        public Builder idleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        /**
+         * Request bodies of at least this many bytes are sent gzipped with {@code Content-Encoding: gzip}, for
+         * servers that accept it. Off with a negative value, the default.
+         */
+        public Builder compressRequestsAbove(long compressRequestsAbove) {
+            this.compressRequestsAbove = compressRequestsAbove;
+            return this;
+        }
+
+        /**
+         * Bodies up to this size are read as soon as the response arrives so the connection goes back to the pool
+         * even if the body is never used. Bodies of unknown size, chunked or compressed, are read up to this size
+         * first. Larger bodies are streamed and hold their connection until they are read or closed.
+         */
+        public Builder maxBufferedBodyBytes(long maxBufferedBodyBytes) {
+            this.maxBufferedBodyBytes = maxBufferedBodyBytes;
+            return this;
+        }
+
+        public PooledHttpClientFactory build() {
+            if (this.maxPerRoute < 1 || this.maxTotal < this.maxPerRoute) {
+                throw new IllegalStateException("Pool sizes must satisfy 1 <= maxPerRoute <= maxTotal");
+            }
+            return new PooledHttpClientFactory(this);
+        }
+    }
+
+    /**
+     * Counts leases, waits for a lease and opened connections.
+     */
+    private final class InstrumentedConnectionManager extends PoolingClientConnectionManager {
+
+        InstrumentedConnectionManager(SchemeRegistry schemeRegistry) {
+            super(schemeRegistry);
+        }
+
+        @Override
+        protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schemeRegistry) {
+            DnsResolver dnsResolver = host -> {
+                long start = System.nanoTime();
+                try {
+                    return SystemDefaultDnsResolver.INSTANCE.resolve(host);
+                } finally {
+                    RequestTimings.current().recordDns(System.nanoTime() - start);
+                }
+            };
+            return new DefaultClientConnectionOperator(schemeRegistry, dnsResolver) {
+                @Override
+                public void openConnection(OperatedClientConnection connection, HttpHost target, InetAddress local,
+                                           HttpContext context, HttpParams params) throws IOException {
+                    long start = System.nanoTime();
+                    super.openConnection(connection, target, local, context, params);
+                    long elapsed = System.nanoTime() - start;
+                    RequestTimings timings = RequestTimings.current();
+                    timings.recordConnect(elapsed - Math.max(timings.dnsNanos(), 0));
+                    PooledHttpClientFactory.this.connectNanos.add(elapsed);
+                    PooledHttpClientFactory.this.connectionsOpened.increment();
+                    if ("https".equalsIgnoreCase(target.getSchemeName())) {
+                        PooledHttpClientFactory.this.tlsHandshakes.increment();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            boolean exhausted = this.getStats(route).getLeased() >= this.getMaxPerRoute(route)
+                    || this.getTotalStats().getLeased() >= this.getMaxTotal();
+            ClientConnectionRequest request = super.requestConnection(route, state);
+            return new ClientConnectionRequest() {
+                @Override
+                public ManagedClientConnection getConnection(long timeout, TimeUnit timeUnit)
+                        throws InterruptedException, ConnectionPoolTimeoutException {
+                    long start = System.nanoTime();
+                    ManagedClientConnection connection = request.getConnection(timeout, timeUnit);
+                    long elapsed = System.nanoTime() - start;
+                    RequestTimings.current().recordLeaseWait(elapsed);
+                    PooledHttpClientFactory.this.leaseWaitNanos.add(elapsed);
+                    PooledHttpClientFactory.this.leases.increment();
+                    if (exhausted) {
+                        PooledHttpClientFactory.this.waits.increment();
+                    }
+                    return connection;
+                }
+
+                @Override
+                public void abortRequest() {
+                    request.abortRequest();
+                }
+            };
+        }
+    }
+
+    /**
+     * An entity whose first bytes were read when the response arrived. When they are the whole body it is
+     * repeatable and not streaming, like a {@link org.apache.http.entity.BufferedHttpEntity}, otherwise the rest is
+     * streamed after them.
+     */
+    private static final class PrefixedEntity extends HttpEntityWrapper {
+
+        private final byte[] prefix;
+        private final InputStream rest;
+
+        private PrefixedEntity(HttpEntity entity, byte[] prefix, InputStream rest) {
+            super(entity);
+            this.prefix = prefix;
+            this.rest = rest;
+        }
+
+        static PrefixedEntity read(HttpEntity entity, long maxBytes) throws IOException {
+            InputStream content = entity.getContent();
+            byte[] prefix = content.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxBytes + 1));
+            return new PrefixedEntity(entity, prefix, prefix.length <= maxBytes ? null : content);
+        }
+
+        @Override
+        public InputStream getContent() {
+            ByteArrayInputStream prefix = new ByteArrayInputStream(this.prefix);
+            return this.rest == null ? prefix : new SequenceInputStream(prefix, this.rest);
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.rest == null ? this.prefix.length : super.getContentLength();
+        }
+
+        @Override
+        public boolean isChunked() {
+            return this.rest != null && super.isChunked();
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return this.rest == null;
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return this.rest != null;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(this.prefix);
+            if (this.rest != null) {
+                this.rest.transferTo(out);
+            }
+        }
+    }
+
+    private static final class DefaultHolder {
+
+        private static final PooledHttpClientFactory FACTORY = createDefault();
+
+        private static PooledHttpClientFactory createDefault() {
+            PooledHttpClientFactory factory = PooledHttpClientFactory.fromSystemProperties();
+            Runtime.getRuntime().addShutdownHook(new Thread(factory::close, "http-connection-pool-shutdown"));
+            return factory;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package http;
+
+/**
+ * Where the time of the last request on this thread went, measured by {@link PooledHttpClientFactory}.
+ * <p>
+ * RestAssured sends a request on the thread that calls it, so a filter can call {@link #begin()} before
+ * {@code ctx.next(...)} and read the phases afterwards. A phase that did not happen, e.g. DNS and connect on a reused
+ * connection, or that was not measured because the factory is not installed, is {@code -1}.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = ThreadLocal.withInitial(RequestTimings::new);
+
+    private long dnsNanos;
+    private long connectNanos;
+    private long leaseWaitNanos;
+    private boolean sent;
+    private long sentAtNanos;
+    private long timeToFirstByteNanos;
+
+    private RequestTimings() {
+        this.reset();
+    }
+
+    /**
+     * Clears the timings of this thread for the next request.
+     *
+     * @return the timings the next request on this thread fills in, reused by later requests
+     */
+    public static RequestTimings begin() {
+        RequestTimings timings = CURRENT.get();
+        timings.reset();
+        return timings;
+    }
+
+    static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return host name resolution of a new connection
+     */
+    public long dnsNanos() {
+        return this.dnsNanos;
+    }
+
+    /**
+     * @return TCP connect and TLS handshake of a new connection, without DNS
+     */
+    public long connectNanos() {
+        return this.connectNanos;
+    }
+
+    /**
+     * @return time spent waiting for a connection from the pool
+     */
+    public long leaseWaitNanos() {
+        return this.leaseWaitNanos;
+    }
+
+    /**
+     * @return from sending the request on an open connection to receiving the response headers
+     */
+    public long timeToFirstByteNanos() {
+        return this.timeToFirstByteNanos;
+    }
+
+    void recordDns(long nanos) {
+        this.dnsNanos = nanos;
+    }
+
+    void recordConnect(long nanos) {
+        this.connectNanos = nanos;
+    }
+
+    void recordLeaseWait(long nanos) {
+        this.leaseWaitNanos = nanos;
+    }
+
+    void requestSent() {
+        this.sent = true;
+        this.sentAtNanos = System.nanoTime();
+    }
+
+    void responseReceived() {
+        if (this.sent) {
+            this.timeToFirstByteNanos = System.nanoTime() - this.sentAtNanos;
+        }
+    }
+
+    private void reset() {
+        this.dnsNanos = -1;
+        this.connectNanos = -1;
+        this.leaseWaitNanos = -1;
+        this.sent = false;
+        this.timeToFirstByteNanos = -1;
+    }
+}
@@ -0,0 +1,29 @@
+package listeners;
+
+import filters.BodySpoolingFilter;
+import io.restassured.RestAssured;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+/**
+ * Installs the {@link BodySpoolingFilter} configured by {@code -Dbody.spoolThreshold}, {@code -Dbody.maxSize} and
+ * {@code -Dbody.spoolDir} as a global RestAssured filter, so large response bodies of the suite are spooled to disk
+ * and runaway responses fail fast. Prints the spooling counters when the suite ends.
+ * <pre>{@code
+ * <listeners>
+ *     <listener class-name="listeners.BodySpoolingSuiteListener"/>
+ * </listeners>
+ * }</pre>
+ */
+public class BodySpoolingSuiteListener implements ISuiteListener {
+
+    @Override
+    public void onStart(ISuite suite) {
+        RestAssured.filters(BodySpoolingFilter.fromSystemProperties());
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        System.out.println("Response bodies: " + BodySpoolingFilter.fromSystemProperties().stats());
+    }
+}
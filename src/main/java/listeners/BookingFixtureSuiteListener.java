@@ -0,0 +1,27 @@
+package listeners;
+
+import data.BookingFixturePool;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+/**
+ * Starts creating the bookings of the shared {@link BookingFixturePool} when the suite starts, so they are ready by
+ * the time the tests lease them, and prints the pool counters when the suite ends.
+ * <pre>{@code
+ * <listeners>
+ *     <listener class-name="listeners.BookingFixtureSuiteListener"/>
+ * </listeners>
+ * }</pre>
+ */
+public class BookingFixtureSuiteListener implements ISuiteListener {
+
+    @Override
+    public void onStart(ISuite suite) {
+        BookingFixturePool.getDefault();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        System.out.println("Booking fixtures: " + BookingFixturePool.getDefault().stats());
+    }
+}
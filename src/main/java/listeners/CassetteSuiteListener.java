@@ -0,0 +1,33 @@
+package listeners;
+
+import filters.CassetteFilter;
+import io.restassured.RestAssured;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+/**
+ * Installs the {@link CassetteFilter} configured by {@code -Dcassette.mode} as a global RestAssured filter, so every
+ * request of the suite is recorded or replayed, including those that do not use {@code RequestSpecFactory}.
+ * Without the property the suite runs against the network as usual.
+ * <pre>{@code
+ * <listeners>
+ *     <listener class-name="listeners.CassetteSuiteListener"/>
+ * </listeners>
+ * }</pre>
+ */
+public class CassetteSuiteListener implements ISuiteListener {
+
+    @Override
+    public void onStart(ISuite suite) {
+        CassetteFilter.fromSystemProperties().ifPresent(filter -> {
+            RestAssured.filters(filter);
+            System.out.println("Cassette " + filter.getMode().propertyValue() + " mode, "
+                    + filter.stats().size() + " recorded exchanges");
+        });
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        CassetteFilter.fromSystemProperties().ifPresent(filter -> System.out.println("Cassette: " + filter.stats()));
+    }
+}
@@ -0,0 +1,39 @@
+package listeners;
+
+import http.Http2ClientFactory;
+import http.PooledHttpClientFactory;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+/**
+ * Makes every request of the suite lease its connection from the shared {@link PooledHttpClientFactory} pool, so
+ * connections and TLS sessions are reused across test classes. Prints the pool counters when the suite ends.
+ * <p>
+ * With {@code -Dhttp.transport=http2} every request goes through the shared {@link Http2ClientFactory} instead, and
+ * its stream counters are printed.
+ * <pre>{@code
+ * <listeners>
+ *     <listener class-name="listeners.ConnectionPoolSuiteListener"/>
+ * </listeners>
+ * }</pre>
+ */
+public class ConnectionPoolSuiteListener implements ISuiteListener {
+
+    @Override
+    public void onStart(ISuite suite) {
+        if (Http2ClientFactory.isSelectedBySystemProperty()) {
+            Http2ClientFactory.installDefault();
+        } else {
+            PooledHttpClientFactory.installDefault();
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (Http2ClientFactory.isSelectedBySystemProperty()) {
+            System.out.println("HTTP/2 transport: " + Http2ClientFactory.getDefault().stats());
+        } else {
+            System.out.println("HTTP connection pool: " + PooledHttpClientFactory.getDefault().stats());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package listeners;
+
+import filters.MetricsFilter;
+import io.restassured.RestAssured;
+import metrics.MetricsExporter;
+import metrics.RouteStats;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Installs the shared {@link MetricsFilter} as a global RestAssured filter and writes its numbers when the suite
+ * ends, as {@code <suite name>.prom} in the Prometheus text format and {@code <suite name>.json}. The files go to
+ * {@code target/metrics}, override with {@code -Dmetrics.dir=...}.
+ * <pre>{@code
+ * <listeners>
+ *     <listener class-name="listeners.MetricsSuiteListener"/>
+ * </listeners>
+ * }</pre>
+ */
+public class MetricsSuiteListener implements ISuiteListener {
+
+    public static final String DIRECTORY_PROPERTY = "metrics.dir";
+
+    @Override
+    public void onStart(ISuite suite) {
+        RestAssured.filters(MetricsFilter.getDefault());
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        List<RouteStats> routes = MetricsFilter.getDefault().snapshot();
+        Path directory = Path.of(System.getProperty(DIRECTORY_PROPERTY, "target/metrics"));
+        Path prometheus = directory.resolve(suite.getName() + ".prom");
+        MetricsExporter.writePrometheus(routes, prometheus);
+        MetricsExporter.writeJson(routes, directory.resolve(suite.getName() + ".json"));
+        System.out.println("Request metrics: " + routes.size() + " routes, "
+                + routes.stream().mapToLong(RouteStats::requests).sum() + " requests, written to " + prometheus);
+    }
+}
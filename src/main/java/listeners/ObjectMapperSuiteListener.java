@@ -0,0 +1,22 @@
+package listeners;
+
+import mapping.SharedObjectMapper;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+/**
+ * Makes every request and response body of the suite go through the shared, warmed up
+ * {@link SharedObjectMapper} instead of a new Jackson mapper per call.
+ * <pre>{@code
+ * <listeners>
+ *     <listener class-name="listeners.ObjectMapperSuiteListener"/>
+ * </listeners>
+ * }</pre>
+ */
+public class ObjectMapperSuiteListener implements ISuiteListener {
+
+    @Override
+    public void onStart(ISuite suite) {
+        SharedObjectMapper.installDefault();
+    }
+}
@@ -0,0 +1,36 @@
+package listeners;
+
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlSuite;
+
+import java.util.List;
+
+/**
+ * Sizes the TestNG thread pools to the machine instead of a fixed {@code thread-count} in {@code testng.xml}.
+ * <p>
+ * The thread count defaults to the number of available processors and can be overridden with
+ * {@code -Dsuite.threads=16}. Suites without a {@code parallel} mode are switched to
+ * {@link XmlSuite.ParallelMode#METHODS}, which runs methods of the same and of different classes in parallel.
+ * Register it in the suite file:
+ * <pre>{@code
+ * <listeners>
+ *     <listener class-name="listeners.ParallelSuiteListener"/>
+ * </listeners>
+ * }</pre>
+ */
+public class ParallelSuiteListener implements IAlterSuiteListener {
+
+    public static final String THREADS_PROPERTY = "suite.threads";
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        int threads = Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+        for (XmlSuite suite : suites) {
+            if (suite.getParallel() == null || suite.getParallel() == XmlSuite.ParallelMode.NONE) {
+                suite.setParallel(XmlSuite.ParallelMode.METHODS);
+            }
+            suite.setThreadCount(threads);
+            suite.setDataProviderThreadCount(threads);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package listeners;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import sharding.ShardPlanner;
+import sharding.TestTimings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Runs one shard of the suite, so N CI nodes or containers each run about 1/N of the test time, and records how
+ * long every test method took for the next split.
+ * <p>
+ * With {@code -Dshard.count=3 -Dshard.index=0} (indexes from 0) the methods are split by {@link ShardPlanner} on
+ * their durations from {@value #DEFAULT_TIMINGS_FILE}, override with {@code -Dshard.timings=...}. Methods without
+ * a recorded duration count as the median of the others. Methods tied by {@code dependsOnMethods} or
+ * {@code dependsOnGroups}, e.g. the Imgur upload and the delete that needs its image, stay on one shard. Every node
+ * computes the same split from the same file, only the main one and not the shard files, so every method runs
+ * exactly once.
+ * <p>
+ * The durations of the methods that ran are written when the suite ends: on a shard to
+ * {@code test-timings-shard<index>.properties} next to the timings file, without shards to the timings file itself,
+ * with the shard files merged in and deleted. The default file is under {@code target}, so a plain {@code mvn test}
+ * leaves the working tree clean; point {@code -Dshard.timings} at a committed or cached file to keep the timings
+ * between builds, see {@code course-resources/cicd/github.md}. Without {@code shard.count} every method runs.
+ * <pre>{@code
+ * <listeners>
+ *     <listener class-name="listeners.ShardingSuiteListener"/>
+ * </listeners>
+ * }</pre>
+ */
+public class ShardingSuiteListener implements IMethodInterceptor, ITestListener, ISuiteListener {
+
+    public static final String SHARD_INDEX_PROPERTY = "shard.index";
+    public static final String SHARD_COUNT_PROPERTY = "shard.count";
+    public static final String TIMINGS_PROPERTY = "shard.timings";
+
+    public static final String DEFAULT_TIMINGS_FILE = "target/test-timings.properties";
+
+    private static final long DEFAULT_MILLIS = 1000;
+
+    private final ConcurrentMap<String, Long> measuredMillis = new ConcurrentHashMap<>();
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        int shardCount = Integer.getInteger(SHARD_COUNT_PROPERTY, 1);
+        if (shardCount <= 1) {
+            return methods;
+        }
+        int shardIndex = Integer.getInteger(SHARD_INDEX_PROPERTY, -1);
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("-D" + SHARD_INDEX_PROPERTY + " must be from 0 to " + (shardCount - 1)
+                    + " with -D" + SHARD_COUNT_PROPERTY + "=" + shardCount + " but was "
+                    + System.getProperty(SHARD_INDEX_PROPERTY));
+        }
+
+        TestTimings timings = TestTimings.read(timingsFile());
+        long defaultMillis = timings.median().orElse(DEFAULT_MILLIS);
+        Map<String, Long> durations = new LinkedHashMap<>();
+        Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+        Map<String, Set<String>> groupMembers = new LinkedHashMap<>();
+        for (IMethodInstance instance : methods) {
+            ITestNGMethod method = instance.getMethod();
+            String key = key(method);
+            durations.putIfAbsent(key, timings.get(key).orElse(defaultMillis));
+            for (String group : method.getGroups()) {
+                groupMembers.computeIfAbsent(group, name -> new HashSet<>()).add(key);
+            }
+        }
+        for (IMethodInstance instance : methods) {
+            ITestNGMethod method = instance.getMethod();
+            Set<String> dependsOn = dependencies.computeIfAbsent(key(method), name -> new HashSet<>());
+            for (String qualifiedName : method.getMethodsDependedUpon()) {
+                int lastDot = qualifiedName.lastIndexOf('.');
+                dependsOn.add(TestTimings.key(qualifiedName.substring(0, lastDot),
+                        qualifiedName.substring(lastDot + 1)));
+            }
+            for (String group : method.getGroupsDependedUpon()) {
+                dependsOn.addAll(groupMembers.getOrDefault(group, Set.of()));
+            }
+        }
+
+        List<ShardPlanner.Shard> shards = ShardPlanner.plan(durations, dependencies, shardCount);
+        ShardPlanner.Shard shard = shards.get(shardIndex);
+        Set<String> selected = new HashSet<>(shard.methods());
+        List<IMethodInstance> kept = new ArrayList<>();
+        for (IMethodInstance instance : methods) {
+            if (selected.contains(key(instance.getMethod()))) {
+                kept.add(instance);
+            }
+        }
+        long totalMillis = shards.stream().mapToLong(ShardPlanner.Shard::estimatedMillis).sum();
+        System.out.printf("Shard %d of %d: %d of %d methods, about %.1f s of %.1f s (%d durations from %s)%n",
+                shardIndex, shardCount, shard.methods().size(), durations.size(), shard.estimatedMillis() / 1000.0,
+                totalMillis / 1000.0, timings.size(), timingsFile());
+        return kept;
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        this.record(result);
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        this.record(result);
+    }
+
+    @Override
+    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+        this.record(result);
+    }
+
+    @Override
+    public void onTestFailedWithTimeout(ITestResult result) {
+        this.record(result);
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (this.measuredMillis.isEmpty()) {
+            return;
+        }
+        Path file = timingsFile();
+        if (Integer.getInteger(SHARD_COUNT_PROPERTY, 1) > 1) {
+            TestTimings.read(file)
+                       .merge(this.measuredMillis)
+                       .retain(this.measuredMillis.keySet())
+                       .write(TestTimings.shardFile(file, Integer.getInteger(SHARD_INDEX_PROPERTY)));
+            return;
+        }
+        // The shard files are merged in here, so the main file now has everything
+        TestTimings.readWithShardFiles(file).merge(this.measuredMillis).write(file);
+        for (Path shardFile : TestTimings.shardFiles(file)) {
+            try {
+                Files.deleteIfExists(shardFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not delete " + shardFile, e);
+            }
+        }
+    }
+
+    /**
+     * Skipped methods did not really run, so they do not count. A method run several times, by a data provider or
+     * {@code invocationCount}, counts with the sum of its runs.
+     */
+    private void record(ITestResult result) {
+        this.measuredMillis.merge(key(result.getMethod()), Math.max(0, result.getEndMillis() - result.getStartMillis()),
+                Long::sum);
+    }
+
+    private static String key(ITestNGMethod method) {
+        return TestTimings.key(method.getRealClass().getName(), method.getMethodName());
+    }
+
+    private static Path timingsFile() {
+        return Path.of(System.getProperty(TIMINGS_PROPERTY, DEFAULT_TIMINGS_FILE));
+    }
+}
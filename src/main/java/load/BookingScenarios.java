@@ -0,0 +1,113 @@
+package load;
+
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import mapping.BookingPayloadTemplate;
+import pojo.request.BookingPayload;
+import server.RestfulBookerStubServer;
+import specs.RequestSpecFactory;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The booking flows of the practice tests as {@link LoadScenario}s: create ({@code SimplePostApi}),
+ * fetch ({@code SimpleGetApi#getApiWithUrlParams}), update ({@code SimplePutApi}) and delete
+ * ({@code BasicAndDigestAuthTests}).
+ * <p>
+ * Ids returned by {@link #createBooking()} are kept so the other scenarios work on bookings that exist.
+ * {@link #deleteBooking()} only deletes the oldest ids beyond a small reserve, so a fetch or update never races
+ * with the delete of the same booking. When there are not enough ids a scenario creates a booking first and that
+ * call is part of its latency.
+ */
+public class BookingScenarios {
+
+    private static final int RESERVED_BOOKING_IDS = 4;
+    private static final BookingPayloadTemplate BOOKING_TEMPLATE =
+            BookingPayloadTemplate.of(BookingPayload.builder().build());
+
+    private final RequestSpecFactory requestSpecFactory;
+    private final ConcurrentLinkedDeque<Integer> bookingIds = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger bookingIdCount = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param requestSpecFactory specs for restful-booker, preferably without logging filters
+     */
+    public BookingScenarios(RequestSpecFactory requestSpecFactory) {
+        this.requestSpecFactory = requestSpecFactory;
+    }
+
+    public Response createBooking() {
+        Response response = this.requestSpecFactory.newRequest()
+                                                   .and().basePath("/booking")
+                                                   .and().contentType(ContentType.JSON)
+                                                   .and().body(this.newBookingBody())
+                                                   .when().post();
+        if (response.getStatusCode() == 200) {
+            this.bookingIds.addLast(response.jsonPath().getInt("bookingid"));
+            this.bookingIdCount.incrementAndGet();
+        }
+        return response;
+    }
+
+    public Response getBooking() {
+        return this.requestSpecFactory.newRequest()
+                                      .and().basePath("/booking/{bookingId}")
+                                      .and().pathParam("bookingId", this.anyBookingId())
+                                      .when().get();
+    }
+
+    public Response updateBooking() {
+        return this.requestSpecFactory.newRequest()
+                                      .and().basePath("/booking/{bookingId}")
+                                      .and().contentType(ContentType.JSON)
+                                      .and().body(this.newBookingBody())
+                                      .and().pathParam("bookingId", this.anyBookingId())
+                                      .and().auth().preemptive()
+                                      .basic(RestfulBookerStubServer.ADMIN_USERNAME,
+                                              RestfulBookerStubServer.ADMIN_PASSWORD)
+                                      .when().put();
+    }
+
+    /**
+     * Deletes the oldest booking created by this instance.
+     */
+    public Response deleteBooking() {
+        Integer bookingId = null;
+        while (bookingId == null) {
+            if (this.bookingIdCount.getAndDecrement() > RESERVED_BOOKING_IDS) {
+                bookingId = this.bookingIds.pollFirst();
+            } else {
+                this.bookingIdCount.incrementAndGet();
+                Response createResponse = this.createBooking();
+                if (createResponse.getStatusCode() != 200) {
+                    return createResponse;
+                }
+            }
+        }
+        return this.requestSpecFactory.newRequest()
+                                      .and().basePath("/booking/{bookingId}")
+                                      .and().pathParam("bookingId", bookingId)
+                                      .and().auth().preemptive()
+                                      .basic(RestfulBookerStubServer.ADMIN_USERNAME,
+                                              RestfulBookerStubServer.ADMIN_PASSWORD)
+                                      .when().delete();
+    }
+
+    private int anyBookingId() {
+        Integer bookingId = this.bookingIds.peekLast();
+        if (bookingId == null) {
+            this.createBooking();
+            bookingId = this.bookingIds.peekLast();
+        }
+        return bookingId == null ? 0 : bookingId;
+    }
+
+    private byte[] newBookingBody() {
+        return BOOKING_TEMPLATE.render("Load" + this.sequence.incrementAndGet(), "Alton",
+                ThreadLocalRandom.current().nextInt(100, 1000));
+    }
+}
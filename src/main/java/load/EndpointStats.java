@@ -0,0 +1,23 @@
+package load;
+
+import java.time.Duration;
+
+/**
+ * Numbers for one scenario of a {@link LoadDriver} run.
+ *
+ * @param name       scenario name
+ * @param calls      completed calls
+ * @param errors     calls that threw or returned an unexpected status
+ * @param p50        median latency
+ * @param p99        99th percentile latency
+ * @param p999       99.9th percentile latency
+ * @param max        slowest call
+ * @param throughput achieved calls per second
+ */
+public record EndpointStats(String name, long calls, long errors, Duration p50, Duration p99, Duration p999,
+                            Duration max, double throughput) {
+
+    public double errorRate() {
+        return this.calls == 0 ? 0 : (double) this.errors / this.calls;
+    }
+}
@@ -0,0 +1,289 @@
+package load;
+
+import io.restassured.response.Response;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a weighted mix of {@link LoadScenario}s on virtual threads and records per-scenario latency.
+ * <p>
+ * Two load models are supported:
+ * <ul>
+ *     <li>{@link Builder#arrivalRate(double)}: open model, a new call starts at a fixed rate no matter how many
+ *     are still in flight. Latency is measured from the time a call was scheduled to start, so a slow server
+ *     shows up in the numbers instead of silently lowering the rate.</li>
+ *     <li>{@link Builder#concurrency(int)}: closed model, a fixed number of virtual users call back to back.</li>
+ * </ul>
+ * <pre>{@code
+ * LoadReport report = LoadDriver.builder()
+ *         .scenario("createBooking", 1, scenarios::createBooking)
+ *         .scenario("getBooking", 4, scenarios::getBooking)
+ *         .arrivalRate(200)
+ *         .warmup(Duration.ofSeconds(5))
+ *         .duration(Duration.ofSeconds(30))
+ *         .maxP99(Duration.ofMillis(250))
+ *         .maxErrorRate(0.01)
+ *         .build()
+ *         .run();
+ * report.assertSlos();
+ * }</pre>
+ */
+public class LoadDriver {
+
+    private final List<WeightedScenario> scenarios;
+    private final int totalWeight;
+    private final double arrivalRate;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final LoadSlos slos;
+
+    private LoadDriver(Builder builder) {
+        this.scenarios = List.copyOf(builder.scenarios);
+        this.totalWeight = this.scenarios.stream().mapToInt(WeightedScenario::weight).sum();
+        this.arrivalRate = builder.arrivalRate;
+        this.concurrency = builder.concurrency;
+        this.warmup = builder.warmup;
+        this.duration = builder.duration;
+        this.slos = new LoadSlos(builder.maxP99, Map.copyOf(builder.maxP99ByScenario), builder.maxErrorRate,
+                builder.minThroughput);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Runs the warmup, then the load for the configured duration, and waits for the calls still in flight.
+     *
+     * @return latency, error and throughput numbers per scenario, without the warmup
+     */
+    public LoadReport run() {
+        if (!this.warmup.isZero()) {
+            this.runFor(this.warmup);
+        }
+        long start = System.nanoTime();
+        Map<String, Recorder> recorders = this.runFor(this.duration);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        List<EndpointStats> stats = new ArrayList<>();
+        recorders.forEach((name, recorder) -> stats.add(recorder.toStats(name, elapsed)));
+        return new LoadReport(stats, elapsed, this.slos);
+    }
+
+    private Map<String, Recorder> runFor(Duration duration) {
+        Map<String, Recorder> recorders = new LinkedHashMap<>();
+        this.scenarios.forEach(scenario -> recorders.put(scenario.name(), new Recorder()));
+
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (this.arrivalRate > 0) {
+                this.runOpenModel(executor, recorders, start, deadline);
+            } else {
+                this.runClosedModel(executor, recorders, deadline);
+            }
+        }
+        return recorders;
+    }
+
+    private void runOpenModel(ExecutorService executor, Map<String, Recorder> recorders, long start, long deadline) {
+        // Kept fractional, so rates that do not divide a second keep their pace instead of drifting faster
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / this.arrivalRate;
+        for (long i = 0; ; i++) {
+            long intendedStart = start + (long) (i * intervalNanos);
+            if (intendedStart >= deadline) {
+                return;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            WeightedScenario scenario = this.pickScenario();
+            executor.execute(() -> execute(scenario, recorders.get(scenario.name()), intendedStart));
+        }
+    }
+
+    private void runClosedModel(ExecutorService executor, Map<String, Recorder> recorders, long deadline) {
+        for (int user = 0; user < this.concurrency; user++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    WeightedScenario scenario = this.pickScenario();
+                    execute(scenario, recorders.get(scenario.name()), System.nanoTime());
+                }
+            });
+        }
+    }
+
+    private WeightedScenario pickScenario() {
+        int ticket = ThreadLocalRandom.current().nextInt(this.totalWeight);
+        for (WeightedScenario scenario : this.scenarios) {
+            ticket -= scenario.weight();
+            if (ticket < 0) {
+                return scenario;
+            }
+        }
+        return this.scenarios.get(this.scenarios.size() - 1);
+    }
+
+    private static void execute(WeightedScenario scenario, Recorder recorder, long startNanos) {
+        boolean success;
+        try {
+            Response response = scenario.scenario().execute();
+            success = scenario.scenario().isSuccess(response);
+        } catch (RuntimeException e) {
+            success = false;
+        }
+        recorder.record(System.nanoTime() - startNanos, success);
+    }
+
+    private record WeightedScenario(String name, int weight, LoadScenario scenario) {
+    }
+
+    /**
+     * Latency histogram in microseconds plus call and error counts for one scenario.
+     */
+    private static final class Recorder {
+
+        private final Histogram histogram = new ConcurrentHistogram(3);
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long latencyNanos, boolean success) {
+            this.histogram.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+            this.calls.increment();
+            if (!success) {
+                this.errors.increment();
+            }
+        }
+
+        EndpointStats toStats(String name, Duration elapsed) {
+            long calls = this.calls.sum();
+            return new EndpointStats(name, calls, this.errors.sum(),
+                    Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(this.histogram.getValueAtPercentile(50))),
+                    Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(this.histogram.getValueAtPercentile(99))),
+                    Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(this.histogram.getValueAtPercentile(99.9))),
+                    Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(this.histogram.getMaxValue())),
+                    calls / Math.max(elapsed.toNanos() / 1e9, 1e-9));
+        }
+    }
+
+    public static class Builder {
+
+        private final List<WeightedScenario> scenarios = new ArrayList<>();
+        private final Map<String, Duration> maxP99ByScenario = new LinkedHashMap<>();
+        private double arrivalRate;
+        private int concurrency;
+        private Duration warmup = Duration.ZERO;
+        private Duration duration = Duration.ofSeconds(10);
+        private Duration maxP99;
+        private double maxErrorRate = 1.0;
+        private double minThroughput;
+
+        private Builder() {
+        }
+
+        /**
+         * @param name     label used in the report, usually the endpoint
+         * @param weight   relative share of calls in the mix
+         * @param scenario the call to replay
+         */
+        public Builder scenario(String name, int weight, LoadScenario scenario) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight must be positive for scenario " + name);
+            }
+            this.scenarios.add(new WeightedScenario(name, weight, scenario));
+            return this;
+        }
+
+        /**
+         * Open model: start this many calls per second.
+         *
+         * @throws IllegalArgumentException unless it is positive and at most one call per nanosecond
+         */
+        public Builder arrivalRate(double callsPerSecond) {
+            if (!(callsPerSecond > 0 && callsPerSecond <= TimeUnit.SECONDS.toNanos(1))) {
+                throw new IllegalArgumentException(
+                        "Arrival rate must be above 0 and at most 1e9 calls per second, got " + callsPerSecond);
+            }
+            this.arrivalRate = callsPerSecond;
+            return this;
+        }
+
+        /**
+         * Closed model: keep this many virtual users calling back to back.
+         */
+        public Builder concurrency(int virtualUsers) {
+            this.concurrency = virtualUsers;
+            return this;
+        }
+
+        /**
+         * Runs the same load before the measured run without recording it, so class loading and JIT
+         * compilation do not end up in the percentiles.
+         */
+        public Builder warmup(Duration warmup) {
+            this.warmup = warmup;
+            return this;
+        }
+
+        public Builder duration(Duration duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * SLO on the p99 latency of every scenario.
+         */
+        public Builder maxP99(Duration maxP99) {
+            this.maxP99 = maxP99;
+            return this;
+        }
+
+        /**
+         * SLO on the p99 latency of one scenario, takes precedence over {@link #maxP99(Duration)}.
+         */
+        public Builder maxP99(String scenarioName, Duration maxP99) {
+            this.maxP99ByScenario.put(scenarioName, maxP99);
+            return this;
+        }
+
+        /**
+         * SLO on the share of failed calls per scenario, e.g. {@code 0.01} for 1%.
+         */
+        public Builder maxErrorRate(double maxErrorRate) {
+            this.maxErrorRate = maxErrorRate;
+            return this;
+        }
+
+        /**
+         * SLO on the achieved calls per second over all scenarios.
+         */
+        public Builder minThroughput(double callsPerSecond) {
+            this.minThroughput = callsPerSecond;
+            return this;
+        }
+
+        public LoadDriver build() {
+            if (this.scenarios.isEmpty()) {
+                throw new IllegalStateException("At least one scenario is required");
+            }
+            if ((this.arrivalRate > 0) == (this.concurrency > 0)) {
+                throw new IllegalStateException("Set either an arrival rate or a concurrency");
+            }
+            return new LoadDriver(this);
+        }
+    }
+}
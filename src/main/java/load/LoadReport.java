@@ -0,0 +1,92 @@
+package load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a {@link LoadDriver} run: per-scenario latency percentiles, error rates and throughput.
+ */
+public class LoadReport {
+
+    private final List<EndpointStats> endpoints;
+    private final Duration elapsed;
+    private final LoadSlos slos;
+
+    LoadReport(List<EndpointStats> endpoints, Duration elapsed, LoadSlos slos) {
+        this.endpoints = List.copyOf(endpoints);
+        this.elapsed = elapsed;
+        this.slos = slos;
+    }
+
+    public List<EndpointStats> getEndpoints() {
+        return this.endpoints;
+    }
+
+    public Duration getElapsed() {
+        return this.elapsed;
+    }
+
+    public long getTotalCalls() {
+        return this.endpoints.stream().mapToLong(EndpointStats::calls).sum();
+    }
+
+    /**
+     * @return achieved calls per second over all scenarios
+     */
+    public double getThroughput() {
+        return this.getTotalCalls() / Math.max(this.elapsed.toNanos() / 1e9, 1e-9);
+    }
+
+    /**
+     * @return a description of every breached SLO, empty when all are met
+     */
+    public List<String> getSloBreaches() {
+        List<String> breaches = new ArrayList<>();
+        for (EndpointStats endpoint : this.endpoints) {
+            Duration maxP99 = this.slos.maxP99For(endpoint.name());
+            if (maxP99 != null && endpoint.p99().compareTo(maxP99) > 0) {
+                breaches.add(String.format("%s p99 %dms is above %dms",
+                        endpoint.name(), endpoint.p99().toMillis(), maxP99.toMillis()));
+            }
+            if (endpoint.errorRate() > this.slos.maxErrorRate()) {
+                breaches.add(String.format("%s error rate %.2f%% is above %.2f%%",
+                        endpoint.name(), endpoint.errorRate() * 100, this.slos.maxErrorRate() * 100));
+            }
+        }
+        if (this.getThroughput() < this.slos.minThroughput()) {
+            breaches.add(String.format("throughput %.1f/s is below %.1f/s",
+                    this.getThroughput(), this.slos.minThroughput()));
+        }
+        return breaches;
+    }
+
+    /**
+     * @throws AssertionError listing every breached SLO
+     */
+    public void assertSlos() {
+        List<String> breaches = this.getSloBreaches();
+        if (!breaches.isEmpty()) {
+            throw new AssertionError("SLOs breached:\n  " + String.join("\n  ", breaches) + "\n" + this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format("%-20s %8s %8s %10s %10s %10s %10s %10s%n",
+                "scenario", "calls", "errors", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)", "rps"));
+        for (EndpointStats endpoint : this.endpoints) {
+            builder.append(String.format("%-20s %8d %8d %10.2f %10.2f %10.2f %10.2f %10.1f%n",
+                    endpoint.name(), endpoint.calls(), endpoint.errors(),
+                    millis(endpoint.p50()), millis(endpoint.p99()), millis(endpoint.p999()),
+                    millis(endpoint.max()), endpoint.throughput()));
+        }
+        builder.append(String.format("total %d calls in %.1fs, %.1f calls/s",
+                this.getTotalCalls(), this.elapsed.toNanos() / 1e9, this.getThroughput()));
+        return builder.toString();
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1e6;
+    }
+}
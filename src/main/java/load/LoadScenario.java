@@ -0,0 +1,21 @@
+package load;
+
+import io.restassured.response.Response;
+
+/**
+ * One call replayed by the {@link LoadDriver}, usually a single RestAssured request.
+ * <p>
+ * A call counts as an error when it throws or when {@link #isSuccess(Response)} returns false.
+ */
+@FunctionalInterface
+public interface LoadScenario {
+
+    Response execute();
+
+    /**
+     * @return true if the response counts as a success, any 2xx status by default
+     */
+    default boolean isSuccess(Response response) {
+        return response.getStatusCode() >= 200 && response.getStatusCode() < 300;
+    }
+}
@@ -0,0 +1,19 @@
+package load;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Service level objectives checked by {@link LoadReport#assertSlos()}.
+ *
+ * @param maxP99           p99 limit for every scenario, or {@code null}
+ * @param maxP99ByScenario p99 limits for single scenarios
+ * @param maxErrorRate     highest allowed share of failed calls per scenario
+ * @param minThroughput    lowest allowed calls per second over all scenarios
+ */
+record LoadSlos(Duration maxP99, Map<String, Duration> maxP99ByScenario, double maxErrorRate, double minThroughput) {
+
+    Duration maxP99For(String scenarioName) {
+        return this.maxP99ByScenario.getOrDefault(scenarioName, this.maxP99);
+    }
+}
@@ -0,0 +1,229 @@
+package mapping;
+
+import pojo.request.BookingPayload;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A {@link BookingPayload} serialized once, into which the per-booking fields are spliced as bytes.
+ * <p>
+ * Serializing a payload per request walks the object with Jackson and allocates the generator state, the object
+ * graph and the output. A template keeps the JSON of a base payload split around {@code firstname},
+ * {@code lastname} and {@code totalprice}; {@link #render(String, String, int)} only copies those segments and
+ * encodes the three values into a byte array of the exact size, the only allocation per call:
+ * <pre>{@code
+ * BookingPayloadTemplate template = BookingPayloadTemplate.of(BookingPayload.builder().build());
+ * RestAssured.given()...body(template.render("Sam", "Alton", 500)).when().post();
+ * }</pre>
+ * The other fields (dates, deposit, additional needs) are fixed by the base payload. Instances are immutable and
+ * can be shared between threads.
+ */
+public class BookingPayloadTemplate {
+
+    private static final String FIRST_NAME_MARKER = "__template_firstname__";
+    private static final String LAST_NAME_MARKER = "__template_lastname__";
+    private static final int TOTAL_PRICE_MARKER = -1_357_924_680;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * JSON of the base payload without the three values, {@code segments[i]} comes before value {@code i}.
+     */
+    private final byte[][] segments;
+    private final Field[] fields;
+    private final int fixedLength;
+
+    private BookingPayloadTemplate(byte[][] segments, Field[] fields) {
+        this.segments = segments;
+        this.fields = fields;
+        this.fixedLength = Arrays.stream(segments).mapToInt(segment -> segment.length).sum();
+    }
+
+    /**
+     * @param base payload providing every field except {@code firstname}, {@code lastname} and {@code totalprice}
+     */
+    public static BookingPayloadTemplate of(BookingPayload base) {
+        return of(base, SharedObjectMapper.getDefault());
+    }
+
+    public static BookingPayloadTemplate of(BookingPayload base, SharedObjectMapper objectMapper) {
+        BookingPayload markers = base.toBuilder()
+                                     .firstName(FIRST_NAME_MARKER)
+                                     .lastName(LAST_NAME_MARKER)
+                                     .totalPrice(TOTAL_PRICE_MARKER)
+                                     .build();
+        byte[] json = objectMapper.toBytes(markers);
+
+        List<Marker> found = new ArrayList<>();
+        found.add(find(json, ("\"" + FIRST_NAME_MARKER + "\"").getBytes(StandardCharsets.UTF_8), Field.FIRST_NAME));
+        found.add(find(json, ("\"" + LAST_NAME_MARKER + "\"").getBytes(StandardCharsets.UTF_8), Field.LAST_NAME));
+        found.add(find(json, String.valueOf(TOTAL_PRICE_MARKER).getBytes(StandardCharsets.UTF_8), Field.TOTAL_PRICE));
+        found.sort(Comparator.comparingInt(Marker::offset));
+
+        byte[][] segments = new byte[found.size() + 1][];
+        Field[] fields = new Field[found.size()];
+        int position = 0;
+        for (int i = 0; i < found.size(); i++) {
+            Marker marker = found.get(i);
+            segments[i] = Arrays.copyOfRange(json, position, marker.offset());
+            fields[i] = marker.field();
+            position = marker.offset() + marker.length();
+        }
+        segments[found.size()] = Arrays.copyOfRange(json, position, json.length);
+        return new BookingPayloadTemplate(segments, fields);
+    }
+
+    /**
+     * @return the JSON of the base payload with these values, names are escaped as JSON strings
+     */
+    public byte[] render(String firstName, String lastName, int totalPrice) {
+        int length = this.fixedLength;
+        for (Field field : this.fields) {
+            length += switch (field) {
+                case FIRST_NAME -> stringLength(firstName);
+                case LAST_NAME -> stringLength(lastName);
+                case TOTAL_PRICE -> intLength(totalPrice);
+            };
+        }
+
+        byte[] json = new byte[length];
+        int position = 0;
+        for (int i = 0; i < this.fields.length; i++) {
+            System.arraycopy(this.segments[i], 0, json, position, this.segments[i].length);
+            position += this.segments[i].length;
+            position = switch (this.fields[i]) {
+                case FIRST_NAME -> writeString(json, position, firstName);
+                case LAST_NAME -> writeString(json, position, lastName);
+                case TOTAL_PRICE -> writeInt(json, position, totalPrice);
+            };
+        }
+        byte[] last = this.segments[this.fields.length];
+        System.arraycopy(last, 0, json, position, last.length);
+        return json;
+    }
+
+    private static Marker find(byte[] json, byte[] marker, Field field) {
+        int offset = -1;
+        for (int i = 0; i <= json.length - marker.length; i++) {
+            if (Arrays.equals(json, i, i + marker.length, marker, 0, marker.length)) {
+                if (offset >= 0) {
+                    throw new IllegalStateException("Template marker of " + field + " found twice");
+                }
+                offset = i;
+            }
+        }
+        if (offset < 0) {
+            throw new IllegalStateException("Template marker of " + field + " not found");
+        }
+        return new Marker(offset, marker.length, field);
+    }
+
+    /**
+     * @return encoded length of the value as a quoted JSON string, {@code null} included
+     */
+    private static int stringLength(String value) {
+        if (value == null) {
+            return 4;
+        }
+        int length = 2;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                length += 2;
+            } else if (c < 0x20) {
+                length += 6;
+            } else if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static int writeString(byte[] json, int position, String value) {
+        if (value == null) {
+            json[position++] = 'n';
+            json[position++] = 'u';
+            json[position++] = 'l';
+            json[position++] = 'l';
+            return position;
+        }
+        json[position++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json[position++] = '\\';
+                json[position++] = (byte) c;
+            } else if (c < 0x20) {
+                json[position++] = '\\';
+                json[position++] = 'u';
+                json[position++] = '0';
+                json[position++] = '0';
+                json[position++] = HEX[c >> 4];
+                json[position++] = HEX[c & 0xF];
+            } else if (c < 0x80) {
+                json[position++] = (byte) c;
+            } else if (c < 0x800) {
+                json[position++] = (byte) (0xC0 | c >> 6);
+                json[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                json[position++] = (byte) (0xF0 | codePoint >> 18);
+                json[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                json[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                json[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                // BMP character or lone surrogate, three bytes either way so the length matches stringLength
+                json[position++] = (byte) (0xE0 | c >> 12);
+                json[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                json[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        json[position++] = '"';
+        return position;
+    }
+
+    private static int intLength(int value) {
+        if (value == Integer.MIN_VALUE) {
+            return 11;
+        }
+        int length = value < 0 ? 2 : 1;
+        for (int rest = Math.abs(value); rest >= 10; rest /= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeInt(byte[] json, int position, int value) {
+        int end = position + intLength(value);
+        long rest = value;
+        if (rest < 0) {
+            json[position] = '-';
+            rest = -rest;
+        }
+        int digit = end;
+        do {
+            json[--digit] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest > 0);
+        return end;
+    }
+
+    private enum Field {
+        FIRST_NAME, LAST_NAME, TOTAL_PRICE
+    }
+
+    private record Marker(int offset, int length, Field field) {
+    }
+}
@@ -0,0 +1,150 @@
+package mapping;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import io.restassured.RestAssured;
+import io.restassured.config.ObjectMapperConfig;
+import io.restassured.path.json.mapper.factory.Jackson2ObjectMapperFactory;
+import io.restassured.response.Response;
+import pojo.request.BookingDates;
+import pojo.request.CreateBookingRequest;
+import pojo.response.Booking;
+import pojo.response.CreateBookingResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * One Jackson {@link ObjectMapper} for every request and response body, warmed up for the booking POJOs.
+ * <p>
+ * RestAssured's default {@link Jackson2ObjectMapperFactory} creates a new mapper with
+ * {@code findAndRegisterModules()} for every {@code .body(pojo)} and {@code .as(Type.class)}: a service loader scan
+ * and empty serializer caches on each call. This factory returns the same mapper every time. The mapper has the
+ * {@link AfterburnerModule}, which replaces reflective getter and setter calls with generated bytecode, and the
+ * serializers of {@link #BOOKING_TYPES} are built when the mapper is created instead of on the first request.
+ * <p>
+ * Afterburner's service entry also makes every {@code findAndRegisterModules()} mapper, like RestAssured's default
+ * one, generate its bytecode again on each call. Installing this factory replaces those mappers too, so install it
+ * before sending requests:
+ * <pre>{@code
+ * SharedObjectMapper.installDefault();
+ * }</pre>
+ * To skip the intermediate {@code String} RestAssured serializes to and parses from, send and read bytes:
+ * <pre>{@code
+ * SharedObjectMapper mapper = SharedObjectMapper.getDefault();
+ * Response response = RestAssured.given()...body(mapper.toBytes(createBookingRequest)).when().post();
+ * CreateBookingResponse createBookingResponse = mapper.read(response, CreateBookingResponse.class);
+ * }</pre>
+ * {@link #toBytes(Object)} writes through Jackson's recycled per-thread buffers, so only the result array is
+ * allocated per body.
+ */
+public final class SharedObjectMapper implements Jackson2ObjectMapperFactory {
+
+    public static final List<Class<?>> BOOKING_TYPES =
+            List.of(CreateBookingRequest.class, BookingDates.class, Booking.class, CreateBookingResponse.class);
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    /**
+     * @param warmUpTypes types whose serializers and deserializers are built right away
+     */
+    public SharedObjectMapper(Collection<Class<?>> warmUpTypes) {
+        this.objectMapper = new ObjectMapper().registerModule(new AfterburnerModule());
+        warmUpTypes.forEach(this::warmUp);
+    }
+
+    /**
+     * @return the mapper for {@link #BOOKING_TYPES}, shared by the JVM
+     */
+    public static SharedObjectMapper getDefault() {
+        return DefaultHolder.MAPPER;
+    }
+
+    /**
+     * Makes {@link #getDefault()} the Jackson mapper of {@link RestAssured#config}, so every spec created afterwards
+     * serializes and parses bodies with it.
+     */
+    public static synchronized void installDefault() {
+        RestAssured.config = RestAssured.config().objectMapperConfig(getDefault().objectMapperConfig());
+    }
+
+    /**
+     * @return the object mapper config of {@link RestAssured#config} with this mapper
+     */
+    public ObjectMapperConfig objectMapperConfig() {
+        return RestAssured.config().getObjectMapperConfig().jackson2ObjectMapperFactory(this);
+    }
+
+    /**
+     * Called by RestAssured for every body, the charset is handled by RestAssured's generator.
+     */
+    @Override
+    public ObjectMapper create(Type type, String charset) {
+        return this.objectMapper;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return this.objectMapper;
+    }
+
+    /**
+     * @return the object as UTF-8 JSON, ready for {@code .body(byte[])}
+     */
+    public byte[] toBytes(Object value) {
+        try {
+            return this.writer(value.getClass()).writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize " + value.getClass().getName(), e);
+        }
+    }
+
+    public <T> T read(byte[] json, Class<T> type) {
+        try {
+            return this.reader(type).readValue(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Same as {@link Response#as(Class)} without decoding the body to a {@code String} first.
+     */
+    public <T> T read(Response response, Class<T> type) {
+        return this.read(response.asByteArray(), type);
+    }
+
+    private ObjectWriter writer(Class<?> type) {
+        return this.writers.computeIfAbsent(type, this.objectMapper::writerFor);
+    }
+
+    private ObjectReader reader(Class<?> type) {
+        return this.readers.computeIfAbsent(type, this.objectMapper::readerFor);
+    }
+
+    /**
+     * Serializers are created lazily on first use, round trip an empty instance to create them now.
+     */
+    private void warmUp(Class<?> type) {
+        try {
+            Object instance = type.getDeclaredConstructor().newInstance();
+            this.read(this.toBytes(instance), type);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(type.getName() + " needs a public no-argument constructor", e);
+        }
+    }
+
+    private static final class DefaultHolder {
+
+        private static final SharedObjectMapper MAPPER = new SharedObjectMapper(BOOKING_TYPES);
+    }
+}
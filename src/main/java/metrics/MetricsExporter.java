@@ -0,0 +1,210 @@
+package metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes {@link RouteStats} as a Prometheus text exposition file and as a JSON summary.
+ * <p>
+ * The Prometheus file uses the names a Micrometer timer and distribution summary would export, in base units, so
+ * it can be pushed to a Pushgateway or read by the node exporter's textfile collector:
+ * <ul>
+ *     <li>{@code api_request_duration_seconds}: summary with 0.5, 0.9 and 0.99 quantiles, plus a {@code _max} gauge</li>
+ *     <li>{@code api_response_size_bytes}: summary of body sizes, plus a {@code _max} gauge</li>
+ *     <li>{@code api_response_wire_bytes_total} and {@code api_response_decoded_bytes_total}: body bytes as received
+ *     and after decompression, with {@code api_response_bodies_total} by {@code compressed}</li>
+ *     <li>{@code api_responses_total}: counter by {@code status}</li>
+ *     <li>{@code api_request_failures_total}: requests without a response</li>
+ *     <li>{@code api_request_phase_seconds}: summary by {@code phase}, see {@link RouteStats#PHASES}</li>
+ * </ul>
+ * Every series has the labels {@code host}, {@code method} and {@code route}. The JSON has the same numbers in
+ * milliseconds, one object per route, which is easier to diff between builds.
+ */
+public final class MetricsExporter {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private MetricsExporter() {
+    }
+
+    public static String toPrometheus(List<RouteStats> routes) {
+        StringBuilder text = new StringBuilder();
+        header(text, "api_request_duration_seconds", "summary", "Request latency by route");
+        for (RouteStats route : routes) {
+            String labels = labels(route);
+            sample(text, "api_request_duration_seconds", labels + ",quantile=\"0.5\"", seconds(route.p50()));
+            sample(text, "api_request_duration_seconds", labels + ",quantile=\"0.9\"", seconds(route.p90()));
+            sample(text, "api_request_duration_seconds", labels + ",quantile=\"0.99\"", seconds(route.p99()));
+            sample(text, "api_request_duration_seconds_sum", labels, seconds(route.latencySum()));
+            sample(text, "api_request_duration_seconds_count", labels, route.requests());
+        }
+        header(text, "api_request_duration_seconds_max", "gauge", "Slowest request by route");
+        for (RouteStats route : routes) {
+            sample(text, "api_request_duration_seconds_max", labels(route), seconds(route.max()));
+        }
+
+        header(text, "api_response_size_bytes", "summary", "Response body size by route");
+        for (RouteStats route : routes) {
+            sample(text, "api_response_size_bytes_sum", labels(route), route.responseBytesSum());
+            sample(text, "api_response_size_bytes_count", labels(route), route.sizedResponses());
+        }
+        header(text, "api_response_size_bytes_max", "gauge", "Largest response body by route");
+        for (RouteStats route : routes) {
+            sample(text, "api_response_size_bytes_max", labels(route), route.responseBytesMax());
+        }
+
+        header(text, "api_response_wire_bytes_total", "counter", "Response body bytes received by route");
+        for (RouteStats route : routes) {
+            sample(text, "api_response_wire_bytes_total", labels(route), route.wireBytesSum());
+        }
+        header(text, "api_response_decoded_bytes_total", "counter", "Response body bytes after decompression by route");
+        for (RouteStats route : routes) {
+            sample(text, "api_response_decoded_bytes_total", labels(route), route.decodedBytesSum());
+        }
+        header(text, "api_response_bodies_total", "counter", "Response bodies read by route and compression");
+        for (RouteStats route : routes) {
+            sample(text, "api_response_bodies_total", labels(route) + ",compressed=\"true\"", route.compressedBodies());
+            sample(text, "api_response_bodies_total", labels(route) + ",compressed=\"false\"",
+                    route.bodiesRead() - route.compressedBodies());
+        }
+
+        header(text, "api_responses_total", "counter", "Responses by route and status code");
+        for (RouteStats route : routes) {
+            route.statuses().forEach((status, count) ->
+                    sample(text, "api_responses_total", labels(route) + ",status=\"" + status + "\"", count));
+        }
+        header(text, "api_request_failures_total", "counter", "Requests without a response by route");
+        for (RouteStats route : routes) {
+            sample(text, "api_request_failures_total", labels(route), route.failures());
+        }
+
+        header(text, "api_request_phase_seconds", "summary", "Time of DNS, connect, pool lease wait and first byte");
+        for (RouteStats route : routes) {
+            route.phases().forEach((phase, stats) -> {
+                String labels = labels(route) + ",phase=\"" + phase + "\"";
+                sample(text, "api_request_phase_seconds_sum", labels, seconds(stats.sum()));
+                sample(text, "api_request_phase_seconds_count", labels, stats.count());
+            });
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return the summary as a JSON tree of maps and lists, ready for any JSON writer
+     */
+    public static Map<String, Object> toJsonTree(List<RouteStats> routes) {
+        List<Map<String, Object>> routeTrees = new ArrayList<>();
+        for (RouteStats route : routes) {
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("mean", millis(route.mean()));
+            latency.put("p50", millis(route.p50()));
+            latency.put("p90", millis(route.p90()));
+            latency.put("p99", millis(route.p99()));
+            latency.put("max", millis(route.max()));
+
+            Map<String, Object> responseBytes = new LinkedHashMap<>();
+            responseBytes.put("count", route.sizedResponses());
+            responseBytes.put("mean", route.sizedResponses() == 0 ? 0 : route.responseBytesSum() / route.sizedResponses());
+            responseBytes.put("max", route.responseBytesMax());
+
+            Map<String, Object> transfer = new LinkedHashMap<>();
+            transfer.put("bodies", route.bodiesRead());
+            transfer.put("compressed", route.compressedBodies());
+            transfer.put("wireBytes", route.wireBytesSum());
+            transfer.put("decodedBytes", route.decodedBytesSum());
+            transfer.put("compressionRatio", route.compressionRatio());
+
+            Map<String, Object> phases = new LinkedHashMap<>();
+            route.phases().forEach((phase, stats) -> {
+                Map<String, Object> phaseTree = new LinkedHashMap<>();
+                phaseTree.put("count", stats.count());
+                phaseTree.put("meanMillis", millis(stats.mean()));
+                phases.put(phase, phaseTree);
+            });
+
+            Map<String, Object> routeTree = new LinkedHashMap<>();
+            routeTree.put("host", route.key().host());
+            routeTree.put("method", route.key().method());
+            routeTree.put("route", route.key().route());
+            routeTree.put("requests", route.requests());
+            routeTree.put("failures", route.failures());
+            routeTree.put("statuses", route.statuses());
+            routeTree.put("latencyMillis", latency);
+            routeTree.put("responseBytes", responseBytes);
+            routeTree.put("transfer", transfer);
+            routeTree.put("phases", phases);
+            routeTrees.add(routeTree);
+        }
+        Map<String, Object> tree = new LinkedHashMap<>();
+        tree.put("generatedAt", Instant.now().toString());
+        tree.put("routes", routeTrees);
+        return tree;
+    }
+
+    public static void writePrometheus(List<RouteStats> routes, Path file) {
+        write(file, toPrometheus(routes).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void writeJson(List<RouteStats> routes, Path file) {
+        try {
+            write(file, JSON_MAPPER.writeValueAsBytes(toJsonTree(routes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file, e);
+        }
+    }
+
+    private static void write(Path file, byte[] content) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file, e);
+        }
+    }
+
+    private static void header(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder text, String name, String labels, double value) {
+        text.append(name).append('{').append(labels).append("} ")
+            .append(String.format(Locale.ROOT, "%.9g", value)).append('\n');
+    }
+
+    private static void sample(StringBuilder text, String name, String labels, long value) {
+        text.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String labels(RouteStats route) {
+        return "host=\"" + escape(route.key().host()) + "\",method=\"" + escape(route.key().method())
+                + "\",route=\"" + escape(route.key().route()) + "\"";
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toNanos() / 1e9;
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1e6;
+    }
+}
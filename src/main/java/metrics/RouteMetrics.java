@@ -0,0 +1,139 @@
+package metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the requests to one route. Every counter is a striped {@link LongAdder} or {@link LongAccumulator} and
+ * latencies go to a {@link ConcurrentHistogram}, so parallel threads record without taking a lock.
+ */
+public class RouteMetrics {
+
+    private final RouteKey key;
+    private final ConcurrentHistogram latencyMicros = new ConcurrentHistogram(3);
+    private final LongAdder latencyNanosSum = new LongAdder();
+    private final LongAccumulator latencyNanosMax = new LongAccumulator(Math::max, 0);
+    private final LongAdder failures = new LongAdder();
+    private final ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder responseBytesSum = new LongAdder();
+    private final LongAdder responseBytesCount = new LongAdder();
+    private final LongAccumulator responseBytesMax = new LongAccumulator(Math::max, 0);
+    private final LongAdder bodiesRead = new LongAdder();
+    private final LongAdder compressedBodies = new LongAdder();
+    private final LongAdder wireBytesSum = new LongAdder();
+    private final LongAdder decodedBytesSum = new LongAdder();
+    private final Phase[] phases = new Phase[RouteStats.PHASES.size()];
+
+    public RouteMetrics(RouteKey key) {
+        this.key = key;
+        for (int i = 0; i < this.phases.length; i++) {
+            this.phases[i] = new Phase();
+        }
+    }
+
+    /**
+     * @param responseBytes body size, {@code -1} if unknown
+     */
+    public void recordResponse(long latencyNanos, int statusCode, long responseBytes) {
+        this.recordLatency(latencyNanos);
+        LongAdder status = this.statuses.get(statusCode);
+        if (status == null) {
+            status = this.statuses.computeIfAbsent(statusCode, code -> new LongAdder());
+        }
+        status.increment();
+        if (responseBytes >= 0) {
+            this.responseBytesSum.add(responseBytes);
+            this.responseBytesCount.increment();
+            this.responseBytesMax.accumulate(responseBytes);
+        }
+    }
+
+    /**
+     * Records a body read to the end or closed, as it came over the wire and as handed to the reader.
+     *
+     * @param compressed whether the body had a {@code Content-Encoding}
+     */
+    public void recordBody(boolean compressed, long wireBytes, long decodedBytes) {
+        this.bodiesRead.increment();
+        if (compressed) {
+            this.compressedBodies.increment();
+        }
+        this.wireBytesSum.add(wireBytes);
+        this.decodedBytesSum.add(decodedBytes);
+    }
+
+    /**
+     * Records a request that did not get a response, e.g. a connect timeout.
+     */
+    public void recordFailure(long latencyNanos) {
+        this.recordLatency(latencyNanos);
+        this.failures.increment();
+    }
+
+    /**
+     * @param phase one of {@link RouteStats#PHASES}
+     * @param nanos time of the phase, ignored when negative as the phase did not happen
+     */
+    public void recordPhase(int phase, long nanos) {
+        if (nanos >= 0) {
+            this.phases[phase].sum.add(nanos);
+            this.phases[phase].count.increment();
+        }
+    }
+
+    public RouteStats snapshot() {
+        Histogram latencies = this.latencyMicros.copy();
+        long count = latencies.getTotalCount();
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        this.statuses.forEach((status, adder) -> statusCounts.put(status, adder.sum()));
+        Map<String, RouteStats.PhaseStats> phaseStats = new LinkedHashMap<>();
+        for (int i = 0; i < this.phases.length; i++) {
+            phaseStats.put(RouteStats.PHASES.get(i), new RouteStats.PhaseStats(this.phases[i].count.sum(),
+                    Duration.ofNanos(this.phases[i].sum.sum())));
+        }
+        return new RouteStats(this.key, count, this.failures.sum(), statusCounts,
+                Duration.ofNanos(this.latencyNanosSum.sum()),
+                micros(latencies.getValueAtPercentile(50)), micros(latencies.getValueAtPercentile(90)),
+                micros(latencies.getValueAtPercentile(99)), Duration.ofNanos(this.latencyNanosMax.get()),
+                this.responseBytesCount.sum(), this.responseBytesSum.sum(), this.responseBytesMax.get(),
+                this.bodiesRead.sum(), this.compressedBodies.sum(), this.wireBytesSum.sum(), this.decodedBytesSum.sum(),
+                phaseStats);
+    }
+
+    private void recordLatency(long latencyNanos) {
+        this.latencyMicros.recordValue(Math.max(TimeUnit.NANOSECONDS.toMicros(latencyNanos), 0));
+        this.latencyNanosSum.add(latencyNanos);
+        this.latencyNanosMax.accumulate(latencyNanos);
+    }
+
+    private static Duration micros(long micros) {
+        return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+
+    private static final class Phase {
+
+        private final LongAdder sum = new LongAdder();
+        private final LongAdder count = new LongAdder();
+    }
+
+    /**
+     * A route as templated by the test, e.g. {@code GET /booking/{bookingId}}, so every booking id lands in the same
+     * series.
+     *
+     * @param host   scheme and authority, e.g. {@code https://restful-booker.herokuapp.com}
+     * @param method HTTP method
+     * @param route  templated path without query
+     */
+    public record RouteKey(String host, String method, String route) {
+    }
+}
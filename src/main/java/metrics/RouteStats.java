@@ -0,0 +1,66 @@
+package metrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers of one route at the time of {@link RouteMetrics#snapshot()}.
+ *
+ * @param key                requests this covers
+ * @param requests           requests sent, failed ones included
+ * @param failures           requests without a response
+ * @param statuses           responses by status code
+ * @param latencySum         total latency, for the mean
+ * @param p50                median latency
+ * @param p90                90th percentile latency
+ * @param p99                99th percentile latency
+ * @param max                slowest request
+ * @param sizedResponses     responses with a known body size
+ * @param responseBytesSum   total body size of those responses
+ * @param responseBytesMax   largest body
+ * @param bodiesRead         bodies read to the end or closed, counted by the transport
+ * @param compressedBodies   those that came with a {@code Content-Encoding}
+ * @param wireBytesSum       bytes of those bodies as received
+ * @param decodedBytesSum    bytes of those bodies after decompression
+ * @param phases             time of each of {@link #PHASES}, over the requests that went through the phase
+ */
+public record RouteStats(RouteMetrics.RouteKey key, long requests, long failures, Map<Integer, Long> statuses,
+                         Duration latencySum, Duration p50, Duration p90, Duration p99, Duration max,
+                         long sizedResponses, long responseBytesSum, long responseBytesMax,
+                         long bodiesRead, long compressedBodies, long wireBytesSum, long decodedBytesSum,
+                         Map<String, PhaseStats> phases) {
+
+    /**
+     * Phases of a request: host name resolution and TCP/TLS connect of new connections, waiting for a pooled
+     * connection and time to first byte.
+     */
+    public static final List<String> PHASES = List.of("dns", "connect", "lease_wait", "ttfb");
+
+    public static final int DNS = 0;
+    public static final int CONNECT = 1;
+    public static final int LEASE_WAIT = 2;
+    public static final int TIME_TO_FIRST_BYTE = 3;
+
+    public Duration mean() {
+        return this.requests == 0 ? Duration.ZERO : this.latencySum.dividedBy(this.requests);
+    }
+
+    /**
+     * @return decoded bytes per byte on the wire, {@code 1} when nothing was compressed
+     */
+    public double compressionRatio() {
+        return this.wireBytesSum == 0 ? 1 : (double) this.decodedBytesSum / this.wireBytesSum;
+    }
+
+    /**
+     * @param count requests that went through the phase
+     * @param sum   total time of the phase
+     */
+    public record PhaseStats(long count, Duration sum) {
+
+        public Duration mean() {
+            return this.count == 0 ? Duration.ZERO : this.sum.dividedBy(this.count);
+        }
+    }
+}
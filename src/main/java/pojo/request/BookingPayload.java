@@ -0,0 +1,87 @@
+package pojo.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable create and update booking payload, an alternative to {@link CreateBookingRequest} that can be shared
+ * between requests and threads.
+ * <p>
+ * Only the fields that differ per booking need to be set, the others default to the values the practice tests use:
+ * <pre>{@code
+ * BookingPayload payload = BookingPayload.builder()
+ *                                        .firstName("Sam")
+ *                                        .lastName("Alton")
+ *                                        .totalPrice(500)
+ *                                        .build();
+ * }</pre>
+ * Booking dates are interned with {@link Dates#of(String, String)}, so every payload with the same stay refers to
+ * the same instance. For large volumes, render payloads from a {@code mapping.BookingPayloadTemplate} instead of
+ * serializing each one.
+ */
+@Value
+@Builder(toBuilder = true)
+public class BookingPayload {
+
+    @JsonProperty("firstname")
+    String firstName;
+
+    @JsonProperty("lastname")
+    String lastName;
+
+    @JsonProperty("totalprice")
+    int totalPrice;
+
+    @Builder.Default
+    @JsonProperty("depositpaid")
+    boolean depositPaid = false;
+
+    @Builder.Default
+    @JsonProperty("bookingdates")
+    Dates bookingDates = Dates.DEFAULT;
+
+    @Builder.Default
+    @JsonProperty("additionalneeds")
+    String additionalNeeds = "Nothing else";
+
+    /**
+     * Check-in and check-out dates, one shared instance per pair for the first {@value #MAX_INTERNED} pairs.
+     */
+    @Value
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Dates {
+
+        private static final int MAX_INTERNED = 4096;
+        private static final ConcurrentMap<Key, Dates> INTERNED = new ConcurrentHashMap<>();
+
+        public static final Dates DEFAULT = Dates.of("2024-01-01", "2024-02-01");
+
+        @JsonProperty("checkin")
+        String checkIn;
+
+        @JsonProperty("checkout")
+        String checkOut;
+
+        public static Dates of(String checkIn, String checkOut) {
+            Key key = new Key(checkIn, checkOut);
+            Dates interned = INTERNED.get(key);
+            if (interned != null) {
+                return interned;
+            }
+            if (INTERNED.size() >= MAX_INTERNED) {
+                // Generated stays are rarely repeated, stop interning instead of growing without bound
+                return new Dates(checkIn, checkOut);
+            }
+            return INTERNED.computeIfAbsent(key, k -> new Dates(checkIn, checkOut));
+        }
+
+        private record Key(String checkIn, String checkOut) {
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeMatcher;
+
+import java.io.IOException;
+
+/**
+ * Hamcrest matcher validating a JSON string against an already compiled {@link JsonSchema}.
+ * Created through {@link JsonSchemaRegistry#matcher(String)}.
+ */
+class CompiledSchemaMatcher extends TypeSafeMatcher<String> {
+
+    private final String schemaName;
+    private final JsonSchema schema;
+    private ProcessingReport report;
+    private String failure;
+
+    CompiledSchemaMatcher(String schemaName, JsonSchema schema) {
+        this.schemaName = schemaName;
+        this.schema = schema;
+    }
+
+    @Override
+    protected boolean matchesSafely(String content) {
+        try {
+            JsonNode contentNode = JsonLoader.fromString(content);
+            this.report = this.schema.validate(contentNode, true);
+            return this.report.isSuccess();
+        } catch (IOException | ProcessingException e) {
+            this.failure = e.getMessage();
+            return false;
+        }
+    }
+
+    @Override
+    public void describeTo(Description description) {
+        description.appendText("The content to match the JSON schema '").appendText(this.schemaName).appendText("'");
+        if (this.report != null) {
+            description.appendText(":\n").appendText(this.report.toString());
+        } else if (this.failure != null) {
+            description.appendText(": ").appendText(this.failure);
+        }
+    }
+}
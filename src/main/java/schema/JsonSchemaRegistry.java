@@ -0,0 +1,158 @@
+package schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import org.hamcrest.Matcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Loads and compiles JSON schemas once and hands out matchers backed by the compiled schema.
+ * <p>
+ * {@link io.restassured.module.jsv.JsonSchemaValidator#matchesJsonSchema(java.io.File)} reads and compiles the
+ * schema file every time it is called. This registry compiles every {@code *.json} file of a folder up front and
+ * caches the compiled {@link JsonSchema} by schema name, the file name without {@code .json}. Compiled schemas
+ * are immutable and thread safe, so one registry can serve every test thread.
+ * <pre>{@code
+ * .then().assertThat().body(JsonSchemaRegistry.getDefault().matcher("getBookingByIdSchema"))
+ * }</pre>
+ * A name that was not preloaded is looked up in the folder once and counted as a miss.
+ */
+public class JsonSchemaRegistry {
+
+    public static final Path DEFAULT_SCHEMA_DIRECTORY = Path.of("src", "test", "resources", "schema");
+
+    private static final String SCHEMA_EXTENSION = ".json";
+
+    private final Path schemaDirectory;
+    private final JsonSchemaFactory schemaFactory;
+    private final Map<String, JsonSchema> schemas = new ConcurrentHashMap<>();
+    private final Map<String, Long> compileNanos = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a registry and compiles every schema in the given folder.
+     *
+     * @param schemaDirectory folder containing {@code *.json} schema files
+     */
+    public JsonSchemaRegistry(Path schemaDirectory) {
+        this(schemaDirectory, JsonSchemaFactory.byDefault());
+    }
+
+    public JsonSchemaRegistry(Path schemaDirectory, JsonSchemaFactory schemaFactory) {
+        this.schemaDirectory = schemaDirectory;
+        this.schemaFactory = schemaFactory;
+        this.preload();
+    }
+
+    /**
+     * @return the shared registry for {@link #DEFAULT_SCHEMA_DIRECTORY}
+     */
+    public static JsonSchemaRegistry getDefault() {
+        return DefaultHolder.REGISTRY;
+    }
+
+    /**
+     * Returns a new matcher for the named schema. The matcher is cheap and holds the last report, so use
+     * one per assertion rather than sharing it between threads.
+     *
+     * @param schemaName file name of the schema without {@code .json}
+     * @return a matcher validating a JSON string against the compiled schema
+     */
+    public Matcher<String> matcher(String schemaName) {
+        return new CompiledSchemaMatcher(schemaName, this.get(schemaName));
+    }
+
+    /**
+     * @param schemaName file name of the schema without {@code .json}
+     * @return the compiled schema
+     * @throws IllegalArgumentException if there is no such schema file
+     */
+    public JsonSchema get(String schemaName) {
+        JsonSchema schema = this.schemas.get(schemaName);
+        if (schema != null) {
+            this.hits.increment();
+            return schema;
+        }
+        this.misses.increment();
+        return this.schemas.computeIfAbsent(schemaName, name -> {
+            Path schemaFile = this.schemaDirectory.resolve(name + SCHEMA_EXTENSION);
+            if (!Files.isRegularFile(schemaFile)) {
+                throw new IllegalArgumentException("No schema named '" + name + "' in " + this.schemaDirectory);
+            }
+            return this.compile(name, schemaFile);
+        });
+    }
+
+    public Stats stats() {
+        return new Stats(this.schemas.size(), this.hits.sum(), this.misses.sum(), Map.copyOf(this.compileNanos));
+    }
+
+    private void preload() {
+        if (!Files.isDirectory(this.schemaDirectory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(this.schemaDirectory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SCHEMA_EXTENSION))
+                 .forEach(file -> {
+                     String fileName = file.getFileName().toString();
+                     String name = fileName.substring(0, fileName.length() - SCHEMA_EXTENSION.length());
+                     this.schemas.put(name, this.compile(name, file));
+                 });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list schemas in " + this.schemaDirectory, e);
+        }
+    }
+
+    private JsonSchema compile(String name, Path schemaFile) {
+        long start = System.nanoTime();
+        try {
+            JsonNode schemaNode = JsonLoader.fromFile(schemaFile.toFile());
+            JsonSchema schema = this.schemaFactory.getJsonSchema(schemaNode);
+            this.compileNanos.put(name, System.nanoTime() - start);
+            return schema;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read schema " + schemaFile, e);
+        } catch (ProcessingException e) {
+            throw new IllegalStateException("Could not compile schema " + schemaFile, e);
+        }
+    }
+
+    /**
+     * Snapshot of the registry counters.
+     *
+     * @param schemaCount  number of compiled schemas
+     * @param hits         lookups served from the cache
+     * @param misses       lookups that had to load a schema from disk
+     * @param compileNanos compile time per schema name, in nanoseconds
+     */
+    public record Stats(int schemaCount, long hits, long misses, Map<String, Long> compileNanos) {
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder()
+                    .append("schemas=").append(this.schemaCount)
+                    .append(", hits=").append(this.hits)
+                    .append(", misses=").append(this.misses);
+            this.compileNanos.forEach((name, nanos) -> builder.append(", ").append(name).append(" compiled in ")
+                                                               .append(nanos / 1_000).append("us"));
+            return builder.toString();
+        }
+    }
+
+    private static final class DefaultHolder {
+
+        private static final JsonSchemaRegistry REGISTRY = new JsonSchemaRegistry(DEFAULT_SCHEMA_DIRECTORY);
+    }
+}
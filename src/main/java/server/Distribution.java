@@ -0,0 +1,72 @@
+package server;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * A random distribution of non-negative whole numbers, used for the latency and the document sizes of
+ * {@link SchemaStubServer}.
+ * <p>
+ * Latencies are rarely uniform: {@link #logNormal(long, long)} gives the long right tail of real services from a
+ * median and a 99th percentile, e.g. {@code logNormal(20, 250)} milliseconds.
+ */
+@FunctionalInterface
+public interface Distribution {
+
+    long sample(SplittableRandom random);
+
+    static Distribution fixed(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative");
+        }
+        return random -> value;
+    }
+
+    /**
+     * @return values from {@code min} to {@code max}, both included, with the same probability
+     */
+    static Distribution uniform(long min, long max) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("Expected 0 <= min <= max but got " + min + " and " + max);
+        }
+        return random -> random.nextLong(min, max + 1);
+    }
+
+    /**
+     * @param median half of the values are below it
+     * @param p99    one value in a hundred is above it, must be at least the median
+     */
+    static Distribution logNormal(long median, long p99) {
+        if (median <= 0 || p99 < median) {
+            throw new IllegalArgumentException("Expected 0 < median <= p99 but got " + median + " and " + p99);
+        }
+        double mu = Math.log(median);
+        // 2.326 is the 99th percentile of the standard normal distribution
+        double sigma = Math.log((double) p99 / median) / 2.326;
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    /**
+     * Parses a distribution from a system property, e.g. {@code 5}, {@code uniform:1-10} or
+     * {@code lognormal:20-250}.
+     */
+    static Distribution parse(String value) {
+        String spec = value.trim();
+        int colon = spec.indexOf(':');
+        if (colon < 0) {
+            return fixed(Long.parseLong(spec));
+        }
+        String[] bounds = spec.substring(colon + 1).split("-", 2);
+        if (bounds.length != 2) {
+            throw new IllegalArgumentException("Expected <kind>:<a>-<b> but got " + value);
+        }
+        long first = Long.parseLong(bounds[0].trim());
+        long second = Long.parseLong(bounds[1].trim());
+        return switch (spec.substring(0, colon).trim().toLowerCase(Locale.ROOT)) {
+            case "uniform" -> uniform(first, second);
+            case "lognormal" -> logNormal(first, second);
+            default -> throw new IllegalArgumentException("Unknown distribution " + value
+                    + ", expected a number, uniform:<min>-<max> or lognormal:<median>-<p99>");
+        };
+    }
+}
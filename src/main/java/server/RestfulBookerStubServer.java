@@ -0,0 +1,577 @@
+package server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import pojo.request.BookingDates;
+import pojo.request.CreateBookingRequest;
+import pojo.response.Booking;
+import pojo.response.CreateBookingResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in-memory stand-in for <a href="https://restful-booker.herokuapp.com/apidoc/index.html">restful-booker</a>
+ * and the basic/digest auth pages of <a href="https://the-internet.herokuapp.com">the-internet</a>.
+ * <p>
+ * It runs on the JDK's built-in {@link HttpServer} bound to loopback, so the practice tests can run
+ * without any network access. Bookings are stored as {@link Booking} objects and request bodies are
+ * parsed as {@link CreateBookingRequest}, the same models the tests use.
+ * <p>
+ * Supported endpoints:
+ * <ul>
+ *     <li>{@code GET /ping}</li>
+ *     <li>{@code POST /auth}</li>
+ *     <li>{@code GET|POST /booking}</li>
+ *     <li>{@code GET|PUT|PATCH|DELETE /booking/{bookingId}}</li>
+ *     <li>{@code GET /basic_auth} and {@code GET /digest_auth} challenge endpoints</li>
+ *     <li>{@code POST /upload}, which reads and counts the request body, for upload tests</li>
+ * </ul>
+ * Like most production servers it gzips responses of {@value #COMPRESSION_THRESHOLD} bytes or more for clients that
+ * send {@code Accept-Encoding: gzip}, and accepts request bodies sent with {@code Content-Encoding: gzip}.
+ * Use {@link config.ApiHosts} instead of starting this class directly from a test.
+ */
+public class RestfulBookerStubServer implements AutoCloseable {
+
+    public static final String ADMIN_USERNAME = "admin";
+    public static final String ADMIN_PASSWORD = "password123";
+    public static final String CHALLENGE_USERNAME = "admin";
+    public static final String CHALLENGE_PASSWORD = "admin";
+    public static final String DIGEST_REALM = "Protected Area";
+    public static final int COMPRESSION_THRESHOLD = 256;
+    /**
+     * Bookings {@code 1} to {@code SEEDED_BOOKINGS} exist when the server starts, the benchmarks read them. Tests
+     * that change or delete a booking lease one from {@code data.BookingFixturePool} instead of using these ids.
+     */
+    public static final int SEEDED_BOOKINGS = 20;
+
+    private static final Pattern BOOKING_ID_PATH = Pattern.compile("^/booking/(\\d+)/?$");
+    private static final Pattern DIGEST_PARAM = Pattern.compile("(\\w+)=(?:\"([^\"]*)\"|([^,\\s]*))");
+    private static final String ADMIN_BASIC_HEADER = basicHeader(ADMIN_USERNAME, ADMIN_PASSWORD);
+    private static final String CHALLENGE_BASIC_HEADER = basicHeader(CHALLENGE_USERNAME, CHALLENGE_PASSWORD);
+
+    static {
+        enableNoDelay();
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Integer, Booking> bookings = new ConcurrentHashMap<>();
+    private final AtomicInteger nextBookingId = new AtomicInteger(1);
+    private final Set<String> tokens = ConcurrentHashMap.newKeySet();
+    private final Map<String, DigestNonce> digestNonces = new ConcurrentHashMap<>();
+    private volatile Duration digestNonceLifetime = Duration.ofMinutes(5);
+    private final SecureRandom random = new SecureRandom();
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+
+    private RestfulBookerStubServer(HttpServer httpServer) {
+        this.httpServer = httpServer;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.httpServer.setExecutor(this.executor);
+        this.httpServer.createContext("/", this::handle);
+        this.seedBookings();
+    }
+
+    /**
+     * Starts a new server on an ephemeral loopback port.
+     *
+     * @return the running server
+     * @throws IOException if the port could not be bound
+     */
+    public static RestfulBookerStubServer start() throws IOException {
+        return start(0);
+    }
+
+    /**
+     * Starts a new server on the given loopback port, {@code 0} picks a free port.
+     *
+     * @param port the port to bind
+     * @return the running server
+     * @throws IOException if the port could not be bound
+     */
+    public static RestfulBookerStubServer start(int port) throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        RestfulBookerStubServer server = new RestfulBookerStubServer(httpServer);
+        httpServer.start();
+        return server;
+    }
+
+    public int getPort() {
+        return this.httpServer.getAddress().getPort();
+    }
+
+    /**
+     * @return the base URI without a trailing slash, e.g. {@code http://127.0.0.1:54321}
+     */
+    public String getBaseUri() {
+        return "http://" + this.httpServer.getAddress().getHostString() + ":" + this.getPort();
+    }
+
+    /**
+     * Adds a booking directly to the store, bypassing HTTP.
+     *
+     * @return the new booking id
+     */
+    public int addBooking(Booking booking) {
+        int bookingId = this.nextBookingId.getAndIncrement();
+        this.bookings.put(bookingId, booking);
+        return bookingId;
+    }
+
+    public int getBookingCount() {
+        return this.bookings.size();
+    }
+
+    /**
+     * @param digestNonceLifetime how long a digest nonce is accepted, later requests get a {@code stale=true}
+     *                            challenge; 5 minutes by default
+     */
+    public void setDigestNonceLifetime(Duration digestNonceLifetime) {
+        this.digestNonceLifetime = digestNonceLifetime;
+    }
+
+    @Override
+    public void close() {
+        this.httpServer.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Seeds ids 1 to {@link #SEEDED_BOOKINGS} so the ids the benchmarks read exist, with the values of
+     * {@code data.BookingFixturePool#fixtureBooking()} the practice tests assert on.
+     */
+    private void seedBookings() {
+        for (int i = 1; i <= SEEDED_BOOKINGS; i++) {
+            this.addBooking(newBooking("Guest" + i, "Seeded", 111, "2018-01-01", "2019-01-01"));
+        }
+    }
+
+    private static Booking newBooking(String firstName, String lastName, int totalPrice, String checkIn, String checkOut) {
+        BookingDates bookingDates = new BookingDates();
+        bookingDates.setCheckIn(checkIn);
+        bookingDates.setCheckOut(checkOut);
+        Booking booking = new Booking();
+        booking.setFirstName(firstName);
+        booking.setLastName(lastName);
+        booking.setTotalPrice(totalPrice);
+        booking.setDepositPaid(true);
+        booking.setAdditionalNeeds("Breakfast");
+        booking.setBookingDates(bookingDates);
+        return booking;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            Matcher bookingIdMatcher = BOOKING_ID_PATH.matcher(path);
+
+            if (path.equals("/ping")) {
+                sendText(exchange, 201, "Created");
+            } else if (path.equals("/auth") && method.equals("POST")) {
+                this.createToken(exchange);
+            } else if (path.equals("/booking") || path.equals("/booking/")) {
+                switch (method) {
+                    case "GET" -> this.listBookings(exchange);
+                    case "POST" -> this.createBooking(exchange);
+                    default -> sendText(exchange, 405, "Method Not Allowed");
+                }
+            } else if (bookingIdMatcher.matches()) {
+                int bookingId = Integer.parseInt(bookingIdMatcher.group(1));
+                switch (method) {
+                    case "GET" -> this.getBooking(exchange, bookingId);
+                    case "PUT" -> this.updateBooking(exchange, bookingId, false);
+                    case "PATCH" -> this.updateBooking(exchange, bookingId, true);
+                    case "DELETE" -> this.deleteBooking(exchange, bookingId);
+                    default -> sendText(exchange, 405, "Method Not Allowed");
+                }
+            } else if (path.equals("/basic_auth")) {
+                this.basicAuthChallenge(exchange);
+            } else if (path.equals("/digest_auth")) {
+                this.digestAuthChallenge(exchange);
+            } else if (path.equals("/upload") && method.equals("POST")) {
+                this.upload(exchange);
+            } else {
+                sendText(exchange, 404, "Not Found");
+            }
+        } catch (RuntimeException e) {
+            sendText(exchange, 500, "Internal Server Error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void createToken(HttpExchange exchange) throws IOException {
+        JsonNode credentials = this.readJson(exchange);
+        if (credentials != null
+                && ADMIN_USERNAME.equals(credentials.path("username").asText())
+                && ADMIN_PASSWORD.equals(credentials.path("password").asText())) {
+            String token = this.randomHex(8).substring(0, 15);
+            this.tokens.add(token);
+            this.sendJson(exchange, 200, Map.of("token", token));
+        } else {
+            this.sendJson(exchange, 200, Map.of("reason", "Bad credentials"));
+        }
+    }
+
+    /**
+     * Answers with the size of the body, decompressed if it was sent gzipped, and whether it came in chunks.
+     */
+    private void upload(HttpExchange exchange) throws IOException {
+        long bytes;
+        try (InputStream body = requestBody(exchange)) {
+            bytes = body.transferTo(OutputStream.nullOutputStream());
+        }
+        String transferEncoding = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+        this.sendJson(exchange, 200, Map.of("bytes", bytes,
+                "chunked", transferEncoding != null && transferEncoding.equalsIgnoreCase("chunked")));
+    }
+
+    private void listBookings(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI());
+        List<Map<String, Integer>> ids = new ArrayList<>();
+        this.bookings.forEach((bookingId, booking) -> {
+            if (matches(query.get("firstname"), booking.getFirstName())
+                    && matches(query.get("lastname"), booking.getLastName())
+                    && matches(query.get("checkin"), booking.getBookingDates().getCheckIn())
+                    && matches(query.get("checkout"), booking.getBookingDates().getCheckOut())) {
+                ids.add(Map.of("bookingid", bookingId));
+            }
+        });
+        this.sendJson(exchange, 200, ids);
+    }
+
+    private void createBooking(HttpExchange exchange) throws IOException {
+        CreateBookingRequest request = this.readBody(exchange, CreateBookingRequest.class);
+        if (request == null || request.getFirstName() == null || request.getBookingDates() == null) {
+            sendText(exchange, 500, "Internal Server Error");
+            return;
+        }
+        Booking booking = toBooking(request);
+        CreateBookingResponse response = new CreateBookingResponse();
+        response.setBookingId(this.addBooking(booking));
+        response.setBooking(booking);
+        this.sendJson(exchange, 200, response);
+    }
+
+    private void getBooking(HttpExchange exchange, int bookingId) throws IOException {
+        Booking booking = this.bookings.get(bookingId);
+        if (booking == null) {
+            sendText(exchange, 404, "Not Found");
+        } else {
+            this.sendJson(exchange, 200, booking);
+        }
+    }
+
+    private void updateBooking(HttpExchange exchange, int bookingId, boolean partial) throws IOException {
+        if (!this.isAuthorized(exchange)) {
+            sendText(exchange, 403, "Forbidden");
+            return;
+        }
+        Booking existing = this.bookings.get(bookingId);
+        if (existing == null) {
+            sendText(exchange, 405, "Method Not Allowed");
+            return;
+        }
+        Booking updated;
+        if (partial) {
+            JsonNode patch = this.readJson(exchange);
+            if (patch == null) {
+                sendText(exchange, 400, "Bad Request");
+                return;
+            }
+            ObjectNode merged = this.objectMapper.valueToTree(existing);
+            patch.fields().forEachRemaining(field -> merged.set(field.getKey(), field.getValue()));
+            updated = this.objectMapper.treeToValue(merged, Booking.class);
+        } else {
+            CreateBookingRequest request = this.readBody(exchange, CreateBookingRequest.class);
+            if (request == null || request.getFirstName() == null || request.getBookingDates() == null) {
+                sendText(exchange, 400, "Bad Request");
+                return;
+            }
+            updated = toBooking(request);
+        }
+        this.bookings.put(bookingId, updated);
+        this.sendJson(exchange, 200, updated);
+    }
+
+    private void deleteBooking(HttpExchange exchange, int bookingId) throws IOException {
+        if (!this.isAuthorized(exchange)) {
+            sendText(exchange, 403, "Forbidden");
+        } else if (this.bookings.remove(bookingId) == null) {
+            sendText(exchange, 405, "Method Not Allowed");
+        } else {
+            sendText(exchange, 201, "Created");
+        }
+    }
+
+    /**
+     * Restful-booker accepts either a {@code token} cookie from {@code /auth} or the admin basic auth header.
+     */
+    private boolean isAuthorized(HttpExchange exchange) {
+        if (ADMIN_BASIC_HEADER.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            return true;
+        }
+        List<String> cookies = exchange.getRequestHeaders().getOrDefault("Cookie", List.of());
+        for (String cookieHeader : cookies) {
+            for (String cookie : cookieHeader.split(";")) {
+                String[] pair = cookie.trim().split("=", 2);
+                if (pair.length == 2 && pair[0].equals("token") && this.tokens.contains(pair[1])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void basicAuthChallenge(HttpExchange exchange) throws IOException {
+        if (CHALLENGE_BASIC_HEADER.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            sendHtml(exchange, 200, "<p>Congratulations! You must have the proper credentials.</p>");
+        } else {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"Restricted Area\"");
+            sendText(exchange, 401, "Not authorized");
+        }
+    }
+
+    /**
+     * Accepts a nonce for {@link #setDigestNonceLifetime(Duration)} and every nonce count once, like servers that
+     * guard against replays. A valid response with an expired nonce gets a new challenge with {@code stale=true}.
+     */
+    private void digestAuthChallenge(HttpExchange exchange) throws IOException {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        boolean stale = false;
+        if (authorization != null && authorization.startsWith("Digest ")) {
+            Map<String, String> params = parseDigestParams(authorization);
+            if (this.isValidDigest(exchange.getRequestMethod(), params)) {
+                DigestNonce nonce = this.digestNonces.get(params.get("nonce"));
+                if (nonce != null && nonce.isFresh(this.digestNonceLifetime)) {
+                    if (nonce.useCount(params.get("nc"))) {
+                        sendHtml(exchange, 200, "<p>Congratulations! You must have the proper credentials.</p>");
+                        return;
+                    }
+                } else {
+                    stale = true;
+                    this.digestNonces.remove(params.get("nonce"));
+                }
+            }
+        }
+        this.digestNonces.values().removeIf(expired -> !expired.isFresh(this.digestNonceLifetime));
+        String nonce = this.randomHex(16);
+        this.digestNonces.put(nonce, new DigestNonce(System.nanoTime()));
+        exchange.getResponseHeaders().set("WWW-Authenticate",
+                "Digest realm=\"" + DIGEST_REALM + "\", qop=\"auth\", algorithm=MD5, nonce=\"" + nonce
+                        + "\", opaque=\"" + this.randomHex(16) + "\"" + (stale ? ", stale=true" : ""));
+        sendText(exchange, 401, "Not authorized");
+    }
+
+    /**
+     * Checks the credentials behind the response, for any nonce the server handed out before.
+     */
+    private boolean isValidDigest(String method, Map<String, String> params) {
+        String nonce = params.get("nonce");
+        if (nonce == null || !CHALLENGE_USERNAME.equals(params.get("username"))
+                || !DIGEST_REALM.equals(params.get("realm"))) {
+            return false;
+        }
+        String ha1 = md5Hex(CHALLENGE_USERNAME + ":" + DIGEST_REALM + ":" + CHALLENGE_PASSWORD);
+        String ha2 = md5Hex(method + ":" + params.get("uri"));
+        String expected = params.containsKey("qop")
+                ? md5Hex(ha1 + ":" + nonce + ":" + params.get("nc") + ":" + params.get("cnonce") + ":"
+                + params.get("qop") + ":" + ha2)
+                : md5Hex(ha1 + ":" + nonce + ":" + ha2);
+        return expected.equals(params.get("response"));
+    }
+
+    private static Map<String, String> parseDigestParams(String authorization) {
+        Map<String, String> params = new HashMap<>();
+        Matcher matcher = DIGEST_PARAM.matcher(authorization.substring("Digest ".length()));
+        while (matcher.find()) {
+            params.put(matcher.group(1), matcher.group(2) != null ? matcher.group(2) : matcher.group(3));
+        }
+        return params;
+    }
+
+    private static Booking toBooking(CreateBookingRequest request) {
+        Booking booking = new Booking();
+        booking.setFirstName(request.getFirstName());
+        booking.setLastName(request.getLastName());
+        booking.setTotalPrice(request.getTotalPrice());
+        booking.setDepositPaid(request.isDepositPaid());
+        booking.setAdditionalNeeds(request.getAdditionalNeeds());
+        booking.setBookingDates(request.getBookingDates());
+        return booking;
+    }
+
+    private static boolean matches(String expected, String actual) {
+        return expected == null || expected.equals(actual);
+    }
+
+    private static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = uri.getRawQuery();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            String[] keyValue = pair.split("=", 2);
+            query.put(URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8),
+                    keyValue.length > 1 ? URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8) : "");
+        }
+        return query;
+    }
+
+    private JsonNode readJson(HttpExchange exchange) {
+        try (InputStream body = requestBody(exchange)) {
+            return this.objectMapper.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private <T> T readBody(HttpExchange exchange, Class<T> type) {
+        try (InputStream body = requestBody(exchange)) {
+            return this.objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        send(exchange, status, this.objectMapper.writeValueAsBytes(body));
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sendHtml(HttpExchange exchange, int status, String body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        send(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream requestBody(HttpExchange exchange) throws IOException {
+        String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        return contentEncoding != null && contentEncoding.trim().equalsIgnoreCase("gzip")
+                ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody();
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body.length >= COMPRESSION_THRESHOLD && acceptsGzip(exchange)) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        }
+    }
+
+    /**
+     * Turns off Nagle's algorithm on the connections of the JDK server, read once when the first server starts.
+     * Otherwise the end of a chunked response on a keep-alive connection waits for the client's delayed ACK, about
+     * 40 ms per request.
+     */
+    static void enableNoDelay() {
+        System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+    }
+
+    /**
+     * @return whether {@code Accept-Encoding} lists gzip without {@code q=0}
+     */
+    static boolean acceptsGzip(HttpExchange exchange) {
+        List<String> acceptEncodings = exchange.getRequestHeaders().get("Accept-Encoding");
+        if (acceptEncodings == null) {
+            return false;
+        }
+        for (String acceptEncoding : acceptEncodings) {
+            for (String coding : acceptEncoding.split(",")) {
+                String[] parts = coding.split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")
+                        && (parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String randomHex(int bytes) {
+        byte[] buffer = new byte[bytes];
+        this.random.nextBytes(buffer);
+        return HexFormat.of().formatHex(buffer);
+    }
+
+    private static String basicHeader(String username, String password) {
+        return "Basic " + Base64.getEncoder()
+                                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String md5Hex(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5")
+                                                         .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    /**
+     * A nonce handed out in a challenge and the nonce counts used with it. Counts may arrive out of order from
+     * parallel clients, only a repeated count is rejected.
+     */
+    private record DigestNonce(long issuedNanos, Set<String> usedCounts) {
+
+        private DigestNonce(long issuedNanos) {
+            this(issuedNanos, ConcurrentHashMap.newKeySet());
+        }
+
+        private boolean isFresh(Duration lifetime) {
+            return System.nanoTime() - this.issuedNanos < lifetime.toNanos();
+        }
+
+        /**
+         * @return false if the count was used before, requests without qop have no count and are always accepted
+         */
+        private boolean useCount(String nonceCount) {
+            return nonceCount == null || this.usedCounts.add(nonceCount);
+        }
+    }
+}
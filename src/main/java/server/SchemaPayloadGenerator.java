@@ -0,0 +1,301 @@
+package server;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Writes random documents that are valid against a JSON schema, straight to a {@link JsonGenerator}.
+ * <p>
+ * The schema is compiled once into a tree of writers, {@code $ref}s to {@code #/definitions/...} included, so
+ * generating a document does not look at the schema again and builds no intermediate tree. Supported keywords:
+ * {@code type} (a single type or a list), {@code properties}, {@code required}, {@code items}, {@code minItems},
+ * {@code maxItems}, {@code minimum}, {@code maximum}, {@code exclusiveMinimum}, {@code exclusiveMaximum},
+ * {@code minLength}, {@code maxLength}, {@code format} ({@code date}, {@code date-time}, {@code email},
+ * {@code uuid}, {@code uri}), {@code enum}, {@code const}, {@code oneOf}, {@code anyOf} and {@code allOf} of
+ * objects. No additional properties are ever written, so {@code additionalProperties: false} holds.
+ * <p>
+ * Array lengths come from a {@link Distribution} clamped to {@code minItems}/{@code maxItems}. Recursive schemas
+ * are cut at the maximum depth: below it optional properties are left out and arrays get their minimum length.
+ * Instances are immutable and can be shared between threads, the randomness comes from the caller.
+ */
+public class SchemaPayloadGenerator {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+    private static final long FIRST_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final long LAST_DAY = LocalDate.of(2030, 12, 31).toEpochDay();
+
+    private final Writer root;
+    private final Distribution arrayLength;
+    private final int maxDepth;
+
+    /**
+     * @param schema      the schema, with its {@code definitions}
+     * @param arrayLength length of arrays, clamped to their {@code minItems} and {@code maxItems}
+     * @param maxDepth    nesting below which recursive schemas stop growing
+     */
+    public SchemaPayloadGenerator(JsonNode schema, Distribution arrayLength, int maxDepth) {
+        this.arrayLength = arrayLength;
+        this.maxDepth = maxDepth;
+        this.root = new Compiler(schema).compile(schema);
+    }
+
+    /**
+     * Writes one document.
+     */
+    public void write(JsonGenerator generator, SplittableRandom random) throws IOException {
+        this.root.write(generator, random, 0);
+    }
+
+    /**
+     * @return one document as a String, for tests and debugging
+     */
+    public String generate(SplittableRandom random) {
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(json)) {
+            this.write(generator, random);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return json.toString();
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+
+        void write(JsonGenerator generator, SplittableRandom random, int depth) throws IOException;
+    }
+
+    /**
+     * Turns schema nodes into writers, sharing one writer per {@code $ref} so recursive schemas terminate.
+     */
+    private final class Compiler {
+
+        private final JsonNode document;
+        private final Map<String, Writer> references = new HashMap<>();
+
+        Compiler(JsonNode document) {
+            this.document = document;
+        }
+
+        Writer compile(JsonNode schema) {
+            if (schema.has("$ref")) {
+                return this.reference(schema.get("$ref").asText());
+            }
+            if (schema.has("const")) {
+                JsonNode value = schema.get("const");
+                return (generator, random, depth) -> generator.writeTree(value);
+            }
+            if (schema.has("enum")) {
+                JsonNode values = schema.get("enum");
+                return (generator, random, depth) -> generator.writeTree(values.get(random.nextInt(values.size())));
+            }
+            if (schema.has("oneOf") || schema.has("anyOf")) {
+                List<Writer> alternatives = new ArrayList<>();
+                schema.get(schema.has("oneOf") ? "oneOf" : "anyOf").forEach(alternative ->
+                        alternatives.add(this.compile(alternative)));
+                return (generator, random, depth) ->
+                        alternatives.get(random.nextInt(alternatives.size())).write(generator, random, depth);
+            }
+            if (schema.has("allOf")) {
+                return this.compile(this.mergeAllOf(schema));
+            }
+            return switch (this.type(schema)) {
+                case "object" -> this.object(schema);
+                case "array" -> this.array(schema);
+                case "string" -> this.string(schema);
+                case "integer" -> this.integer(schema);
+                case "number" -> this.number(schema);
+                case "boolean" -> (generator, random, depth) -> generator.writeBoolean(random.nextBoolean());
+                case "null" -> (generator, random, depth) -> generator.writeNull();
+                default -> throw new IllegalArgumentException("Unsupported schema " + schema);
+            };
+        }
+
+        private Writer reference(String reference) {
+            Writer compiled = this.references.get(reference);
+            if (compiled != null) {
+                return compiled;
+            }
+            if (!reference.startsWith("#")) {
+                throw new IllegalArgumentException("Only local references are supported, got " + reference);
+            }
+            JsonNode target = this.document.at(reference.substring(1));
+            if (target.isMissingNode()) {
+                throw new IllegalArgumentException("Unresolved reference " + reference);
+            }
+            // Registered before compiling the target, so a reference back to it reuses this writer
+            Writer[] resolved = new Writer[1];
+            this.references.put(reference, (generator, random, depth) -> resolved[0].write(generator, random, depth));
+            resolved[0] = this.compile(target);
+            return this.references.get(reference);
+        }
+
+        private String type(JsonNode schema) {
+            JsonNode type = schema.get("type");
+            if (type == null) {
+                return schema.has("properties") ? "object" : schema.has("items") ? "array" : "string";
+            }
+            if (type.isArray()) {
+                // Prefer a real value over null when several types are allowed
+                for (JsonNode candidate : type) {
+                    if (!candidate.asText().equals("null")) {
+                        return candidate.asText();
+                    }
+                }
+                return "null";
+            }
+            return type.asText();
+        }
+
+        private Writer object(JsonNode schema) {
+            Map<String, Writer> required = new LinkedHashMap<>();
+            Map<String, Writer> optional = new LinkedHashMap<>();
+            List<String> requiredNames = new ArrayList<>();
+            schema.path("required").forEach(name -> requiredNames.add(name.asText()));
+            schema.path("properties").fields().forEachRemaining(property -> {
+                Writer writer = this.compile(property.getValue());
+                (requiredNames.contains(property.getKey()) ? required : optional).put(property.getKey(), writer);
+            });
+            int maxDepth = SchemaPayloadGenerator.this.maxDepth;
+            return (generator, random, depth) -> {
+                generator.writeStartObject();
+                for (Map.Entry<String, Writer> property : required.entrySet()) {
+                    generator.writeFieldName(property.getKey());
+                    property.getValue().write(generator, random, depth + 1);
+                }
+                if (depth < maxDepth) {
+                    for (Map.Entry<String, Writer> property : optional.entrySet()) {
+                        generator.writeFieldName(property.getKey());
+                        property.getValue().write(generator, random, depth + 1);
+                    }
+                }
+                generator.writeEndObject();
+            };
+        }
+
+        private Writer array(JsonNode schema) {
+            JsonNode items = schema.path("items");
+            Writer item = this.compile(items.isArray() ? items.get(0) : items.isMissingNode()
+                    ? OBJECT_MAPPER.createObjectNode().put("type", "string") : items);
+            long minItems = schema.path("minItems").asLong(0);
+            long maxItems = schema.path("maxItems").asLong(Integer.MAX_VALUE);
+            Distribution arrayLength = SchemaPayloadGenerator.this.arrayLength;
+            int maxDepth = SchemaPayloadGenerator.this.maxDepth;
+            return (generator, random, depth) -> {
+                long length = depth < maxDepth
+                        ? Math.max(minItems, Math.min(maxItems, arrayLength.sample(random)))
+                        : minItems;
+                generator.writeStartArray();
+                for (long i = 0; i < length; i++) {
+                    item.write(generator, random, depth + 1);
+                }
+                generator.writeEndArray();
+            };
+        }
+
+        private Writer string(JsonNode schema) {
+            String format = schema.path("format").asText("");
+            switch (format) {
+                case "date":
+                    return (generator, random, depth) ->
+                            generator.writeString(LocalDate.ofEpochDay(random.nextLong(FIRST_DAY, LAST_DAY + 1)).toString());
+                case "date-time":
+                    return (generator, random, depth) -> generator.writeString(Instant.ofEpochSecond(
+                            random.nextLong(FIRST_DAY, LAST_DAY + 1) * 86_400 + random.nextInt(86_400)).toString());
+                case "uuid":
+                    return (generator, random, depth) ->
+                            generator.writeString(new UUID(random.nextLong(), random.nextLong()).toString());
+                case "email":
+                    return (generator, random, depth) ->
+                            generator.writeString(word(random, 8) + "@" + word(random, 6) + ".test");
+                case "uri":
+                    return (generator, random, depth) ->
+                            generator.writeString("https://" + word(random, 8) + ".test/" + word(random, 6));
+                default:
+                    break;
+            }
+            int minLength = schema.path("minLength").asInt(5);
+            int maxLength = Math.max(minLength, schema.path("maxLength").asInt(Math.max(minLength, 12)));
+            return (generator, random, depth) -> {
+                char[] chars = new char[random.nextInt(minLength, maxLength + 1)];
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+                }
+                generator.writeString(chars, 0, chars.length);
+            };
+        }
+
+        private Writer integer(JsonNode schema) {
+            long minimum = schema.has("exclusiveMinimum") && schema.get("exclusiveMinimum").isNumber()
+                    ? schema.get("exclusiveMinimum").asLong() + 1 : schema.path("minimum").asLong(0);
+            long maximum = schema.has("exclusiveMaximum") && schema.get("exclusiveMaximum").isNumber()
+                    ? schema.get("exclusiveMaximum").asLong() - 1 : schema.path("maximum").asLong(minimum + 10_000);
+            if (maximum < minimum) {
+                throw new IllegalArgumentException("No integer between the bounds of " + schema);
+            }
+            return (generator, random, depth) -> generator.writeNumber(random.nextLong(minimum, maximum + 1));
+        }
+
+        private Writer number(JsonNode schema) {
+            boolean exclusiveMinimum = schema.path("exclusiveMinimum").isNumber();
+            boolean exclusiveMaximum = schema.path("exclusiveMaximum").isNumber();
+            double minimum = exclusiveMinimum
+                    ? schema.get("exclusiveMinimum").asDouble() : schema.path("minimum").asDouble(0);
+            double maximum = exclusiveMaximum
+                    ? schema.get("exclusiveMaximum").asDouble() : schema.path("maximum").asDouble(minimum + 10_000);
+            double lowest = exclusiveMinimum ? Math.nextUp(minimum) : minimum;
+            double highest = exclusiveMaximum ? Math.nextDown(maximum) : maximum;
+            if (highest < lowest) {
+                throw new IllegalArgumentException("No number between the bounds of " + schema);
+            }
+            if (highest == lowest) {
+                return (generator, random, depth) -> generator.writeNumber(lowest);
+            }
+            // Rounded to two decimals first, then clamped, so rounding cannot land on an exclusive bound
+            return (generator, random, depth) -> generator.writeNumber(
+                    Math.min(highest, Math.max(lowest, Math.round(random.nextDouble(lowest, highest) * 100) / 100.0)));
+        }
+
+        /**
+         * @return one object schema with the properties and required names of every {@code allOf} branch
+         */
+        private JsonNode mergeAllOf(JsonNode schema) {
+            ObjectNode merged = OBJECT_MAPPER.createObjectNode().put("type", "object");
+            ObjectNode properties = merged.putObject("properties");
+            ArrayNode required = merged.putArray("required");
+            for (JsonNode branch : schema.get("allOf")) {
+                JsonNode resolved = branch.has("$ref") ? this.document.at(branch.get("$ref").asText().substring(1))
+                        : branch;
+                resolved.path("properties").fields().forEachRemaining(property ->
+                        properties.set(property.getKey(), property.getValue()));
+                resolved.path("required").forEach(required::add);
+            }
+            return merged;
+        }
+    }
+
+    private static String word(SplittableRandom random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET[random.nextInt(26)];
+        }
+        return new String(chars);
+    }
+}
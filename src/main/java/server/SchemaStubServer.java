@@ -0,0 +1,440 @@
+package server;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A local server answering with random documents that are valid against the JSON schemas of a folder, e.g.
+ * {@code src/test/resources/schema}, so parsing, extraction and assertions can be loaded at scale without a live
+ * service.
+ * <p>
+ * Every {@code <name>.json} schema of the folder gets two endpoints:
+ * <ul>
+ *     <li>{@code GET /<name>}: one document</li>
+ *     <li>{@code GET /<name>/list}: an array of documents, as many as the list size distribution says or
+ *     {@code ?count=N}</li>
+ * </ul>
+ * Both accept {@code ?seed=N} to get the same document again, otherwise every response is different. Each response
+ * waits for a latency drawn from a {@link Distribution} first. The first 64 KB are held back, so a document that
+ * fails early is answered with a 500 and a smaller one with its {@code Content-Length}; anything larger is streamed
+ * with chunked encoding as it is generated, so huge documents never sit in the server's memory. A malformed
+ * {@code ?seed} or {@code ?count} gets a 400. Clients that send {@code Accept-Encoding: gzip}
+ * get it gzipped on the fly, {@link Stats#bytesWritten()} counts the compressed bytes:
+ * <pre>{@code
+ * try (SchemaStubServer server = SchemaStubServer.builder()
+ *                                                .latencyMillis(Distribution.logNormal(5, 50))
+ *                                                .listSize(Distribution.uniform(100, 1000))
+ *                                                .start()) {
+ *     RestAssured.get(server.getBaseUri() + "/getBookingByIdSchema/list").as(Booking[].class);
+ * }
+ * }</pre>
+ * See {@link SchemaPayloadGenerator} for the supported schema keywords and how nesting is bounded.
+ */
+public class SchemaStubServer implements AutoCloseable {
+
+    public static final Path DEFAULT_SCHEMA_DIRECTORY = Path.of("src", "test", "resources", "schema");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final String LIST_SUFFIX = "/list";
+    private static final int BUFFERED_BODY_BYTES = 64 * 1024;
+
+    static {
+        RestfulBookerStubServer.enableNoDelay();
+    }
+
+    private final Map<String, SchemaPayloadGenerator> generators;
+    private final Distribution latencyMillis;
+    private final Distribution listSize;
+    private final long seed;
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+
+    private SchemaStubServer(Builder builder, HttpServer httpServer) {
+        this.generators = Collections.unmodifiableMap(loadGenerators(builder));
+        this.latencyMillis = builder.latencyMillis;
+        this.listSize = builder.listSize;
+        this.seed = builder.seed;
+        this.httpServer = httpServer;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.httpServer.setExecutor(this.executor);
+        this.httpServer.createContext("/", this::handle);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the base URI without a trailing slash, e.g. {@code http://127.0.0.1:54321}
+     */
+    public String getBaseUri() {
+        return "http://" + this.httpServer.getAddress().getHostString() + ":" + this.httpServer.getAddress().getPort();
+    }
+
+    /**
+     * @return the schema names served, each under {@code /<name>} and {@code /<name>/list}
+     */
+    public Set<String> getSchemaNames() {
+        return this.generators.keySet();
+    }
+
+    /**
+     * @return the generator of the named schema, e.g. to build documents without HTTP
+     */
+    public SchemaPayloadGenerator getGenerator(String schemaName) {
+        SchemaPayloadGenerator generator = this.generators.get(schemaName);
+        if (generator == null) {
+            throw new IllegalArgumentException("No schema " + schemaName + ", known: " + this.generators.keySet());
+        }
+        return generator;
+    }
+
+    public Stats stats() {
+        return new Stats(this.requests.sum(), this.documents.sum(), this.bytesWritten.sum());
+    }
+
+    @Override
+    public void close() {
+        this.httpServer.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        boolean abort = false;
+        try {
+            this.requests.increment();
+            String path = exchange.getRequestURI().getPath();
+            boolean list = path.endsWith(LIST_SUFFIX);
+            String name = path.substring(1, list ? path.length() - LIST_SUFFIX.length() : path.length());
+            SchemaPayloadGenerator generator = this.generators.get(name);
+            if (generator == null) {
+                sendText(exchange, 404, "Not Found");
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendText(exchange, 405, "Method Not Allowed");
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String invalid = invalidParameter(query);
+            if (invalid != null) {
+                sendText(exchange, 400, invalid);
+                return;
+            }
+            long requestSeed = this.seed * GOLDEN_GAMMA + this.sequence.getAndIncrement();
+            // The latency has its own random, so ?seed=N gives the same document whatever the latency
+            long latency = this.latencyMillis.sample(new SplittableRandom(~requestSeed));
+            SplittableRandom random = new SplittableRandom(query.containsKey("seed")
+                    ? Long.parseLong(query.get("seed")) : requestSeed);
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+            long count = list ? (query.containsKey("count") ? Long.parseLong(query.get("count"))
+                    : this.listSize.sample(random)) : 1;
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            boolean gzip = RestfulBookerStubServer.acceptsGzip(exchange);
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            DeferredBody deferred = new DeferredBody(exchange);
+            CountingOutputStream body = new CountingOutputStream(deferred);
+            OutputStream document = gzip ? new GZIPOutputStream(body, 8192) : body;
+            try {
+                try (JsonGenerator json = JSON_FACTORY.createGenerator(document)) {
+                    if (list) {
+                        json.writeStartArray();
+                    }
+                    for (long i = 0; i < count; i++) {
+                        generator.write(json, random);
+                    }
+                    if (list) {
+                        json.writeEndArray();
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (deferred.committed()) {
+                    // Part of a 200 is on the wire: leave it unterminated, the server drops the connection
+                    abort = true;
+                    throw e;
+                }
+                exchange.getResponseHeaders().remove("Content-Encoding");
+                sendText(exchange, 500, "Internal Server Error");
+                return;
+            }
+            deferred.finish();
+            this.documents.add(count);
+            this.bytesWritten.add(body.count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!abort) {
+                exchange.close();
+            }
+        }
+    }
+
+    private static Map<String, SchemaPayloadGenerator> loadGenerators(Builder builder) {
+        Map<String, SchemaPayloadGenerator> generators = new TreeMap<>();
+        try (Stream<Path> files = Files.list(builder.schemaDirectory)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".json")).sorted()::iterator) {
+                JsonNode schema = OBJECT_MAPPER.readTree(file.toFile());
+                String fileName = file.getFileName().toString();
+                generators.put(fileName.substring(0, fileName.length() - ".json".length()),
+                        new SchemaPayloadGenerator(schema, builder.arrayLength, builder.maxDepth));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the schemas in " + builder.schemaDirectory, e);
+        }
+        if (generators.isEmpty()) {
+            throw new IllegalStateException("No *.json schema in " + builder.schemaDirectory);
+        }
+        return generators;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new TreeMap<>();
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0) {
+                    query.put(parameter.substring(0, equals), parameter.substring(equals + 1));
+                }
+            }
+        }
+        return query;
+    }
+
+    /**
+     * @return why {@code ?seed} or {@code ?count} is unusable, or {@code null} when both are missing or valid
+     */
+    private static String invalidParameter(Map<String, String> query) {
+        for (String name : new String[]{"seed", "count"}) {
+            String value = query.get(name);
+            if (value == null) {
+                continue;
+            }
+            try {
+                if (Long.parseLong(value) < 0 && name.equals("count")) {
+                    return "?count must not be negative, got " + value;
+                }
+            } catch (NumberFormatException e) {
+                return "?" + name + " must be a whole number, got " + value;
+            }
+        }
+        return null;
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * @param requests     requests received
+     * @param documents    documents generated
+     * @param bytesWritten response bytes written, after compression for gzipped responses
+     */
+    public record Stats(long requests, long documents, long bytesWritten) {
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            this.out.write(bytes, offset, length);
+            this.count += length;
+        }
+    }
+
+    /**
+     * Holds the start of a response until {@value #BUFFERED_BODY_BYTES} bytes, so a document that fails early still
+     * gets a 500 and a small one gets a {@code Content-Length}. Past that, the headers go out and the rest streams
+     * with chunked encoding. Only {@link #finish()} ends the response: closing it does not, so a failed document
+     * never looks complete.
+     */
+    private static final class DeferredBody extends OutputStream {
+
+        private final HttpExchange exchange;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        private OutputStream out;
+
+        DeferredBody(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        boolean committed() {
+            return this.out != null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (this.out == null) {
+                if (this.buffer.size() + length <= BUFFERED_BODY_BYTES) {
+                    this.buffer.write(bytes, offset, length);
+                    return;
+                }
+                this.exchange.sendResponseHeaders(200, 0);
+                this.out = this.exchange.getResponseBody();
+                this.buffer.writeTo(this.out);
+                this.buffer.reset();
+            }
+            this.out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (this.out != null) {
+                this.out.flush();
+            }
+        }
+
+        void finish() throws IOException {
+            if (this.out == null) {
+                this.exchange.sendResponseHeaders(200, this.buffer.size() == 0 ? -1 : this.buffer.size());
+                this.out = this.exchange.getResponseBody();
+                this.buffer.writeTo(this.out);
+            }
+            this.out.close();
+        }
+    }
+
+    public static class Builder {
+
+        private Path schemaDirectory = DEFAULT_SCHEMA_DIRECTORY;
+        private Distribution latencyMillis = Distribution.fixed(0);
+        private Distribution listSize = Distribution.fixed(100);
+        private Distribution arrayLength = Distribution.uniform(1, 5);
+        private int maxDepth = 8;
+        private long seed = 42;
+        private int port;
+
+        private Builder() {
+        }
+
+        /**
+         * @param schemaDirectory folder of {@code *.json} schemas, {@link #DEFAULT_SCHEMA_DIRECTORY} by default
+         */
+        public Builder schemaDirectory(Path schemaDirectory) {
+            this.schemaDirectory = schemaDirectory;
+            return this;
+        }
+
+        /**
+         * @param latencyMillis wait before each response, none by default
+         */
+        public Builder latencyMillis(Distribution latencyMillis) {
+            this.latencyMillis = latencyMillis;
+            return this;
+        }
+
+        /**
+         * @param listSize documents per {@code /<name>/list} response without {@code ?count}, 100 by default
+         */
+        public Builder listSize(Distribution listSize) {
+            this.listSize = listSize;
+            return this;
+        }
+
+        /**
+         * @param arrayLength length of arrays inside documents, 1 to 5 by default
+         */
+        public Builder arrayLength(Distribution arrayLength) {
+            this.arrayLength = arrayLength;
+            return this;
+        }
+
+        /**
+         * @param maxDepth nesting below which recursive schemas stop growing, 8 by default
+         */
+        public Builder maxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        /**
+         * @param seed makes the sequence of responses repeatable
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * @param port loopback port to bind, {@code 0} (the default) picks a free one
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * @throws UncheckedIOException if the schemas cannot be read or the port cannot be bound
+         */
+        public SchemaStubServer start() {
+            try {
+                HttpServer httpServer = HttpServer.create(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), this.port), 0);
+                SchemaStubServer server = new SchemaStubServer(this, httpServer);
+                httpServer.start();
+                return server;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start the schema stub server", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits test methods into shards of about the same total duration, so parallel CI nodes finish together.
+ * <p>
+ * Methods that depend on each other, directly or through a chain, form one unit that always lands on the same
+ * shard, since TestNG skips a method whose dependency did not run. Units are packed longest first onto the shard
+ * with the least time so far (the LPT heuristic, at most a third above the best possible split). The plan only
+ * depends on the method names, their durations and their dependencies, so every node computes the same plan and
+ * each method runs on exactly one of them.
+ */
+public final class ShardPlanner {
+
+    private ShardPlanner() {
+    }
+
+    /**
+     * @param durations    estimated milliseconds of every method, in the order the methods should run
+     * @param dependencies names each method depends on, methods missing from {@code durations} are ignored
+     * @param shardCount   number of shards, at least 1
+     * @return the methods of each shard, in the order of {@code durations}
+     */
+    public static List<Shard> plan(Map<String, Long> durations, Map<String, ? extends Collection<String>> dependencies,
+                                   int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1 but was " + shardCount);
+        }
+        Map<String, String> parents = new HashMap<>();
+        durations.keySet().forEach(method -> parents.put(method, method));
+        dependencies.forEach((method, dependsOn) -> {
+            if (parents.containsKey(method)) {
+                dependsOn.stream().filter(parents::containsKey).forEach(other -> union(parents, method, other));
+            }
+        });
+
+        Map<String, List<String>> units = new LinkedHashMap<>();
+        durations.keySet().forEach(method -> units.computeIfAbsent(find(parents, method), root -> new ArrayList<>())
+                                                  .add(method));
+        // Ties are broken by the root, the smallest name of the unit, not by the order TestNG listed the methods in
+        List<Map.Entry<String, List<String>>> sortedUnits = new ArrayList<>(units.entrySet());
+        sortedUnits.sort(Comparator.comparingLong(
+                                           (Map.Entry<String, List<String>> unit) -> total(unit.getValue(), durations))
+                                   .reversed()
+                                   .thenComparing(Map.Entry::getKey));
+
+        long[] loads = new long[shardCount];
+        Map<String, Integer> shardOf = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : sortedUnits) {
+            List<String> unit = entry.getValue();
+            int lightest = 0;
+            for (int shard = 1; shard < shardCount; shard++) {
+                if (loads[shard] < loads[lightest]) {
+                    lightest = shard;
+                }
+            }
+            loads[lightest] += total(unit, durations);
+            for (String method : unit) {
+                shardOf.put(method, lightest);
+            }
+        }
+
+        List<List<String>> methods = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            methods.add(new ArrayList<>());
+        }
+        durations.keySet().forEach(method -> methods.get(shardOf.get(method)).add(method));
+        List<Shard> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards.add(new Shard(shard, List.copyOf(methods.get(shard)), loads[shard]));
+        }
+        return shards;
+    }
+
+    private static long total(List<String> unit, Map<String, Long> durations) {
+        long total = 0;
+        for (String method : unit) {
+            total += durations.get(method);
+        }
+        return total;
+    }
+
+    private static String find(Map<String, String> parents, String method) {
+        String root = method;
+        while (!parents.get(root).equals(root)) {
+            root = parents.get(root);
+        }
+        // Path compression, later lookups go straight to the root
+        String current = method;
+        while (!current.equals(root)) {
+            String next = parents.get(current);
+            parents.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+    private static void union(Map<String, String> parents, String first, String second) {
+        String firstRoot = find(parents, first);
+        String secondRoot = find(parents, second);
+        if (!firstRoot.equals(secondRoot)) {
+            // The smaller name wins, so the roots do not depend on the order dependencies were listed in
+            if (firstRoot.compareTo(secondRoot) < 0) {
+                parents.put(secondRoot, firstRoot);
+            } else {
+                parents.put(firstRoot, secondRoot);
+            }
+        }
+    }
+
+    /**
+     * @param index           position of the shard, from 0
+     * @param methods         methods to run on this shard
+     * @param estimatedMillis sum of their estimated durations
+     */
+    public record Shard(int index, List<String> methods, long estimatedMillis) {
+    }
+}
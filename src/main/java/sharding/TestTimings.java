@@ -0,0 +1,201 @@
+package sharding;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Durations of test methods from earlier runs, kept in a small text file with one {@code <class>#<method>=<millis>}
+ * line per method, sorted so the file diffs well when it is committed or cached by CI.
+ * <p>
+ * A new measurement is averaged with the stored one, {@code (old + new) / 2}, so one slow run against a busy
+ * service does not move a method to another shard on its own, while a test that became slower settles within a
+ * few runs. Methods that did not run keep their duration.
+ * <p>
+ * Each shard of a sharded run writes the methods it ran to its own file next to the main one, see
+ * {@link #shardFile(Path, int)}, so CI nodes never write the same file. Shards plan from {@link #read(Path)}, the
+ * main file only, so a shard file one node left behind cannot change the split on that node.
+ * {@link #readWithShardFiles(Path)} adds the shard files, oldest first, so the latest measurement of each method
+ * wins; a run without shards uses it to fold them back into the main file.
+ */
+public final class TestTimings {
+
+    private final Map<String, Long> millis;
+
+    private TestTimings(Map<String, Long> millis) {
+        this.millis = millis;
+    }
+
+    public static TestTimings empty() {
+        return new TestTimings(new TreeMap<>());
+    }
+
+    /**
+     * @return the timings in the file, empty if there are none yet
+     * @throws IllegalArgumentException if a line is not {@code <key>=<millis>}
+     */
+    public static TestTimings read(Path file) {
+        Map<String, Long> millis = new TreeMap<>();
+        readInto(file, millis);
+        return new TestTimings(millis);
+    }
+
+    /**
+     * @return the timings in the file and its shard files, empty if there are none yet
+     * @throws IllegalArgumentException if a line is not {@code <key>=<millis>}
+     */
+    public static TestTimings readWithShardFiles(Path file) {
+        Map<String, Long> millis = new TreeMap<>();
+        readInto(file, millis);
+        shardFiles(file).forEach(shardFile -> readInto(shardFile, millis));
+        return new TestTimings(millis);
+    }
+
+    /**
+     * @return the shard files next to the main file, oldest first
+     */
+    public static List<Path> shardFiles(Path file) {
+        String name = file.getFileName().toString();
+        String extension = extension(name);
+        String prefix = name.substring(0, name.length() - extension.length()) + "-shard";
+        Path directory = file.toAbsolutePath().getParent();
+        List<Path> shardFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path candidate : files) {
+                String candidateName = candidate.getFileName().toString();
+                if (candidateName.startsWith(prefix) && candidateName.endsWith(extension)) {
+                    shardFiles.add(candidate);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return shardFiles;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list " + directory, e);
+        }
+        shardFiles.sort(Comparator.comparing(TestTimings::lastModified));
+        return shardFiles;
+    }
+
+    /**
+     * @return the file shard {@code index} writes, e.g. {@code test-timings-shard2.properties}
+     */
+    public static Path shardFile(Path file, int index) {
+        String name = file.getFileName().toString();
+        String extension = extension(name);
+        return file.resolveSibling(name.substring(0, name.length() - extension.length()) + "-shard" + index
+                + extension);
+    }
+
+    private static void readInto(Path file, Map<String, Long> millis) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int equals = line.lastIndexOf('=');
+                if (equals <= 0) {
+                    throw new IllegalArgumentException("Expected <class>#<method>=<millis> in " + file + " but got "
+                            + line);
+                }
+                millis.put(line.substring(0, equals).trim(), Long.parseLong(line.substring(equals + 1).trim()));
+            }
+        } catch (NoSuchFileException e) {
+            // No history yet
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file, e);
+        }
+    }
+
+    private static String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(dot) : "";
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the modification time of " + file, e);
+        }
+    }
+
+    /**
+     * @return the stored duration of the method, see {@link #key(String, String)}
+     */
+    public OptionalLong get(String key) {
+        Long stored = this.millis.get(key);
+        return stored == null ? OptionalLong.empty() : OptionalLong.of(stored);
+    }
+
+    /**
+     * @return the median of the stored durations, the best guess for a method that never ran
+     */
+    public OptionalLong median() {
+        if (this.millis.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        List<Long> sorted = new ArrayList<>(this.millis.values());
+        Collections.sort(sorted);
+        return OptionalLong.of(sorted.get(sorted.size() / 2));
+    }
+
+    /**
+     * @return these timings with the measurements of this run averaged in
+     */
+    public TestTimings merge(Map<String, Long> measuredMillis) {
+        Map<String, Long> merged = new TreeMap<>(this.millis);
+        measuredMillis.forEach((key, measured) -> merged.merge(key, measured, (stored, now) -> (stored + now) / 2));
+        return new TestTimings(merged);
+    }
+
+    /**
+     * @return only the timings of these methods, e.g. those one shard ran
+     */
+    public TestTimings retain(Set<String> keys) {
+        Map<String, Long> retained = new TreeMap<>(this.millis);
+        retained.keySet().retainAll(keys);
+        return new TestTimings(retained);
+    }
+
+    public int size() {
+        return this.millis.size();
+    }
+
+    public void write(Path file) {
+        StringBuilder text = new StringBuilder("# Test method durations in milliseconds, written ")
+                .append(Instant.now()).append('\n');
+        this.millis.forEach((key, value) -> text.append(key).append('=').append(value).append('\n'));
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.writeString(file, text, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file, e);
+        }
+    }
+
+    /**
+     * @return the key of a test method, e.g. {@code practiceTests.SimplePostApi#simplePostApiWithPojoToCreateBooking}
+     */
+    public static String key(String className, String methodName) {
+        return className + "#" + methodName;
+    }
+}
@@ -0,0 +1,82 @@
+package specs;
+
+import config.ApiHosts;
+import filters.AsyncLoggingFilter;
+import http.Http2ClientFactory;
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.specification.RequestSpecification;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Hands out request specifications that are safe to use from parallel tests.
+ * <p>
+ * A {@link RequestSpecification} is mutable: calling {@code .basePath(...)} or {@code .pathParam(...)} on a spec
+ * kept in a field changes it for every later test, and for every other thread using the same field. This factory
+ * keeps one base spec per worker thread (base URI and filters) that is never modified, and {@link #newRequest()}
+ * returns a fresh copy of it for each call:
+ * <pre>{@code
+ * private final RequestSpecFactory requestSpecFactory = RequestSpecFactory.restfulBooker();
+ *
+ * this.requestSpecFactory.newRequest()
+ *         .and().basePath("/booking/{bookingId}")
+ *         .and().pathParam("bookingId", 20)
+ *         .when().get();
+ * }</pre>
+ */
+public class RequestSpecFactory {
+
+    private final Supplier<RequestSpecification> baseSpecSupplier;
+    private final ThreadLocal<RequestSpecification> baseSpec;
+
+    /**
+     * @param baseSpecSupplier builds the base spec, called once per thread
+     */
+    public RequestSpecFactory(Supplier<RequestSpecification> baseSpecSupplier) {
+        this.baseSpecSupplier = baseSpecSupplier;
+        this.baseSpec = ThreadLocal.withInitial(baseSpecSupplier);
+    }
+
+    /**
+     * @return a factory for restful-booker with asynchronous request and response logging,
+     * see {@link ApiHosts#restfulBooker()}
+     */
+    public static RequestSpecFactory restfulBooker() {
+        return forBaseUri(ApiHosts.restfulBooker());
+    }
+
+    /**
+     * @return a factory for the given base URI that logs through the shared {@link AsyncLoggingFilter}
+     */
+    public static RequestSpecFactory forBaseUri(String baseUri) {
+        return forBaseUri(baseUri, () -> List.of(AsyncLoggingFilter.getDefault()));
+    }
+
+    /**
+     * @param filters creates the filters for one thread, so stateful filters are never shared between threads
+     * @return a factory for the given base URI with the given filters
+     */
+    public static RequestSpecFactory forBaseUri(String baseUri, Supplier<List<Filter>> filters) {
+        return new RequestSpecFactory(() -> new RequestSpecBuilder().setBaseUri(baseUri)
+                                                                    .addFilters(filters.get())
+                                                                    .build());
+    }
+
+    /**
+     * @return a factory with the same base settings whose specs send over HTTP/2 through the shared
+     * {@link Http2ClientFactory}, multiplexing parallel requests on one connection per host
+     */
+    public RequestSpecFactory overHttp2() {
+        return new RequestSpecFactory(() -> this.baseSpecSupplier.get().config(Http2ClientFactory.getDefault().config()));
+    }
+
+    /**
+     * @return a new spec with the base settings of this thread, free to modify
+     */
+    public RequestSpecification newRequest() {
+        return RestAssured.given().spec(this.baseSpec.get());
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point used by the {@code benchmark} Maven profile: {@code mvn -Pbenchmark verify}.
+ * <p>
+ * Every benchmark runs twice so each number is reported in a readable unit:
+ * <ul>
+ *     <li>{@link Mode#Throughput} in ops/s</li>
+ *     <li>{@link Mode#SampleTime} in µs/op, which includes p50/p99/p99.9</li>
+ * </ul>
+ * Both runs attach the {@link GCProfiler}, so {@code gc.alloc.rate.norm} shows the bytes allocated per call.
+ * Results are written as JSON to the output directory so they can be compared across builds.
+ * <p>
+ * Arguments: {@code [include regex] [output directory]}, run a single class with
+ * {@code mvn -Pbenchmark verify -Djmh.include=SerializationBenchmark}.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = args.length > 0 ? args[0] : "benchmarks\\..*";
+        Path outputDirectory = Path.of(args.length > 1 ? args[1] : "target/jmh");
+        Files.createDirectories(outputDirectory);
+
+        run(include, Mode.Throughput, TimeUnit.SECONDS, outputDirectory.resolve("throughput.json"));
+        run(include, Mode.SampleTime, TimeUnit.MICROSECONDS, outputDirectory.resolve("sample-time.json"));
+    }
+
+    private static void run(String include, Mode mode, TimeUnit timeUnit, Path resultFile) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(include)
+                .exclude(BenchmarkRunner.class.getSimpleName())
+                .mode(mode)
+                .timeUnit(timeUnit)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.toString())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import pojo.request.BookingDates;
+import pojo.request.CreateBookingRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The same payloads the practice tests send, built the same way, so the benchmarks measure
+ * what {@code SimplePostApi} actually does per call.
+ */
+final class BookingPayloads {
+
+    private BookingPayloads() {
+    }
+
+    /**
+     * Same as {@code SimplePostApi#getCreateBookingPayload}.
+     */
+    static Map<String, Object> createBookingMap(String firstName, String lastName, int totalPrice) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("firstname", firstName);
+        requestBody.put("lastname", lastName);
+        requestBody.put("totalprice", totalPrice);
+        requestBody.put("depositpaid", false);
+        requestBody.put("additionalneeds", "Nothing else");
+
+        Map<String, Object> bookingDatesMap = new HashMap<>();
+        bookingDatesMap.put("checkin", "2024-01-01");
+        bookingDatesMap.put("checkout", "2024-02-01");
+        requestBody.put("bookingdates", bookingDatesMap);
+        return requestBody;
+    }
+
+    /**
+     * Same as {@code SimplePostApi#getCreateBookingRequestPojo}.
+     */
+    static CreateBookingRequest createBookingPojo(String firstName, String lastName, int totalPrice) {
+        CreateBookingRequest requestBody = new CreateBookingRequest();
+        requestBody.setFirstName(firstName);
+        requestBody.setLastName(lastName);
+        requestBody.setTotalPrice(totalPrice);
+        requestBody.setDepositPaid(false);
+        requestBody.setAdditionalNeeds("Nothing else");
+
+        BookingDates bookingDates = new BookingDates();
+        bookingDates.setCheckIn("2024-01-01");
+        bookingDates.setCheckOut("2024-02-01");
+        requestBody.setBookingDates(bookingDates);
+        return requestBody;
+    }
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import config.ApiHosts;
+import io.restassured.RestAssured;
+import io.restassured.config.ObjectMapperConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import mapping.SharedObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojo.response.CreateBookingResponse;
+
+/**
+ * Creating a booking against the local stub server like {@code SimplePostApi}, with the POJO serialized on the way
+ * out and {@link CreateBookingResponse} parsed on the way back. Compare {@code gc.alloc.rate.norm}:
+ * <ul>
+ *     <li>{@code defaultObjectMapper}: RestAssured's default, a new Jackson mapper per body</li>
+ *     <li>{@code sharedObjectMapper}: the same calls with {@link SharedObjectMapper} installed</li>
+ *     <li>{@code sharedObjectMapperBytes}: byte[] bodies both ways, no intermediate String</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BookingRoundTripBenchmark {
+
+    private String baseUri;
+    private RestAssuredConfig defaultConfig;
+    private RestAssuredConfig sharedMapperConfig;
+    private SharedObjectMapper sharedObjectMapper;
+
+    @Setup
+    public void setUp() {
+        this.baseUri = ApiHosts.localServer().getBaseUri();
+        // A plain mapper per body like RestAssured's default, without findAndRegisterModules() also registering
+        // Afterburner from the classpath
+        this.defaultConfig = RestAssuredConfig.config().objectMapperConfig(
+                new ObjectMapperConfig().jackson2ObjectMapperFactory((type, charset) -> new ObjectMapper()));
+        this.sharedObjectMapper = SharedObjectMapper.getDefault();
+        this.sharedMapperConfig = RestAssuredConfig.config()
+                                                   .objectMapperConfig(this.sharedObjectMapper.objectMapperConfig());
+    }
+
+    @Benchmark
+    public CreateBookingResponse defaultObjectMapper() {
+        return this.createBookingRequest(this.defaultConfig)
+                   .and().body(BookingPayloads.createBookingPojo("Sam", "Alton", 500))
+                   .when().post()
+                   .as(CreateBookingResponse.class);
+    }
+
+    @Benchmark
+    public CreateBookingResponse sharedObjectMapper() {
+        return this.createBookingRequest(this.sharedMapperConfig)
+                   .and().body(BookingPayloads.createBookingPojo("Sam", "Alton", 500))
+                   .when().post()
+                   .as(CreateBookingResponse.class);
+    }
+
+    @Benchmark
+    public CreateBookingResponse sharedObjectMapperBytes() {
+        byte[] body = this.sharedObjectMapper.toBytes(BookingPayloads.createBookingPojo("Sam", "Alton", 500));
+        Response response = this.createBookingRequest(this.sharedMapperConfig)
+                                .and().body(body)
+                                .when().post();
+        return this.sharedObjectMapper.read(response, CreateBookingResponse.class);
+    }
+
+    private RequestSpecification createBookingRequest(RestAssuredConfig config) {
+        return RestAssured.given()
+                          .and().config(config)
+                          .and().baseUri(this.baseUri)
+                          .and().basePath("/booking")
+                          .and().contentType(ContentType.JSON);
+    }
+}
@@ -0,0 +1,94 @@
+package benchmarks;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import http.PooledHttpClientFactory;
+import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
+import io.restassured.config.RestAssuredConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import server.SchemaStubServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counting the bookings of a generated list, parsed from {@code response.asInputStream()}:
+ * <ul>
+ *     <li>{@code identity}: uncompressed, through the pooled client</li>
+ *     <li>{@code gzipBuffered}: gzipped, RestAssured's own client, which buffers the compressed body before
+ *     inflating it</li>
+ *     <li>{@code gzipStreamed}: gzipped, through the pooled client, which inflates while the parser reads</li>
+ * </ul>
+ * Over loopback the wire is free, so this shows the CPU and allocation cost of decompression; the bandwidth saved
+ * on a real network is in the {@code transfer} numbers of {@code filters.MetricsFilter}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CompressionBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Param({"100", "5000"})
+    private int bookings;
+
+    private SchemaStubServer server;
+    private PooledHttpClientFactory factory;
+    private RestAssuredConfig identityConfig;
+    private RestAssuredConfig pooledConfig;
+    private String listUri;
+
+    @Setup
+    public void setUp() {
+        this.server = SchemaStubServer.builder().start();
+        this.factory = PooledHttpClientFactory.builder().build();
+        this.pooledConfig = RestAssured.config().httpClient(this.factory.httpClientConfig());
+        this.identityConfig = this.pooledConfig.decoderConfig(DecoderConfig.decoderConfig().noContentDecoders());
+        this.listUri = this.server.getBaseUri() + "/getBookingByIdSchema/list?seed=1&count=" + this.bookings;
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.factory.close();
+        this.server.close();
+    }
+
+    @Benchmark
+    public long identity() throws IOException {
+        return this.countBookings(this.identityConfig);
+    }
+
+    @Benchmark
+    public long gzipBuffered() throws IOException {
+        return this.countBookings(RestAssured.config());
+    }
+
+    @Benchmark
+    public long gzipStreamed() throws IOException {
+        return this.countBookings(this.pooledConfig);
+    }
+
+    private long countBookings(RestAssuredConfig config) throws IOException {
+        InputStream body = RestAssured.given().config(config).when().get(this.listUri).asInputStream();
+        long count = 0;
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(body)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import config.ApiHosts;
+import io.restassured.RestAssured;
+import io.restassured.filter.log.RequestLoggingFilter;
+import io.restassured.filter.log.ResponseLoggingFilter;
+import io.restassured.specification.RequestSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import server.RestfulBookerStubServer;
+
+/**
+ * Cost of building a {@link RequestSpecification} the way {@code ReuseRequestSpec} and {@code Assertions} do.
+ * Nothing is sent, so this is pure client-side overhead.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RequestSpecBenchmark {
+
+    private String baseUri;
+
+    @Setup
+    public void setUp() {
+        this.baseUri = ApiHosts.localServer().getBaseUri();
+    }
+
+    @Benchmark
+    public RequestSpecification buildSharedSpec() {
+        return RestAssured.given()
+                          .and().baseUri(this.baseUri)
+                          .and().filters(new RequestLoggingFilter(), new ResponseLoggingFilter());
+    }
+
+    @Benchmark
+    public RequestSpecification buildSpecWithPathParam() {
+        return RestAssured.given()
+                          .and().baseUri(this.baseUri)
+                          .and().filters(new RequestLoggingFilter(), new ResponseLoggingFilter())
+                          .and().basePath("/booking/{bookingId}")
+                          .and().pathParam("bookingId", RestfulBookerStubServer.SEEDED_BOOKINGS);
+    }
+}
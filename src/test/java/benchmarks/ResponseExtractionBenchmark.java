@@ -0,0 +1,122 @@
+package benchmarks;
+
+import config.ApiHosts;
+import extraction.BodyExpectations;
+import extraction.ParsedResponse;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pojo.response.CreateBookingResponse;
+import server.RestfulBookerStubServer;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * Round trips against the local stub server and the extraction calls from
+ * {@code ResponseExtraction#extractJsonPathFieldsFromResponse}.
+ * <p>
+ * The extraction benchmarks reuse one fetched {@link Response}, so they only measure parsing and path
+ * evaluation. {@code jsonPathPerField} calls {@link Response#jsonPath()} per field like the test does,
+ * {@code jsonPathOnce} parses once and reads every field from the same {@link JsonPath}, {@code parsedResponse}
+ * does the same with {@link ParsedResponse}. {@code bodyAssertions} checks three fields with
+ * {@code .body(path, matcher)} like {@code Assertions#nonNullFieldValidation}, {@code bodyExpectations} checks the
+ * same fields with {@link BodyExpectations}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ResponseExtractionBenchmark {
+
+    private static final BodyExpectations BOOKING_EXPECTATIONS = BodyExpectations.builder()
+            .body("totalprice", is(equalTo(111)))
+            .rootPath("bookingdates")
+            .body("checkin", is(notNullValue()))
+            .body("checkout", is(notNullValue()))
+            .build();
+
+    private String baseUri;
+    private Response bookingResponse;
+
+    @Setup
+    public void setUp() {
+        this.baseUri = ApiHosts.localServer().getBaseUri();
+        this.bookingResponse = RestAssured.given()
+                                          .and().baseUri(this.baseUri)
+                                          .and().basePath("/booking/{bookingId}")
+                                          .and().pathParam("bookingId", RestfulBookerStubServer.SEEDED_BOOKINGS)
+                                          .when().get();
+        // Buffer the body once so later reads do not touch the connection
+        this.bookingResponse.asByteArray();
+    }
+
+    @Benchmark
+    public Response getBookingRoundTrip() {
+        Response response = RestAssured.given()
+                                       .and().baseUri(this.baseUri)
+                                       .and().basePath("/booking/{bookingId}")
+                                       .and().pathParam("bookingId", RestfulBookerStubServer.SEEDED_BOOKINGS)
+                                       .when().get();
+        response.asByteArray();
+        return response;
+    }
+
+    @Benchmark
+    public CreateBookingResponse createBookingRoundTrip() {
+        return RestAssured.given()
+                          .and().baseUri(this.baseUri)
+                          .and().basePath("/booking")
+                          .and().contentType(ContentType.JSON)
+                          .and().body(BookingPayloads.createBookingPojo("Sam", "Alton", 500))
+                          .when().post()
+                          .as(CreateBookingResponse.class);
+    }
+
+    @Benchmark
+    public void jsonPathPerField(Blackhole blackhole) {
+        blackhole.consume(this.bookingResponse.jsonPath().getInt("totalprice"));
+        blackhole.consume(this.bookingResponse.jsonPath().getString("bookingdates.checkin"));
+        blackhole.consume(this.bookingResponse.jsonPath().getMap("bookingdates"));
+    }
+
+    @Benchmark
+    public void jsonPathOnce(Blackhole blackhole) {
+        JsonPath jsonPath = this.bookingResponse.jsonPath();
+        blackhole.consume(jsonPath.getInt("totalprice"));
+        blackhole.consume(jsonPath.getString("bookingdates.checkin"));
+        blackhole.consume(jsonPath.getMap("bookingdates"));
+    }
+
+    @Benchmark
+    public void parsedResponse(Blackhole blackhole) {
+        ParsedResponse parsedResponse = ParsedResponse.of(this.bookingResponse);
+        blackhole.consume(parsedResponse.getInt("totalprice"));
+        blackhole.consume(parsedResponse.getString("bookingdates.checkin"));
+        blackhole.consume(parsedResponse.getMap("bookingdates"));
+    }
+
+    @Benchmark
+    public void bodyAssertions() {
+        this.bookingResponse.then()
+                            .body("totalprice", is(equalTo(111)))
+                            .rootPath("bookingdates")
+                            .body("checkin", is(notNullValue()))
+                            .body("checkout", is(notNullValue()));
+    }
+
+    @Benchmark
+    public void bodyExpectations() {
+        BOOKING_EXPECTATIONS.assertThat(this.bookingResponse);
+    }
+}
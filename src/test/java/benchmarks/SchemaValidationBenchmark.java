@@ -0,0 +1,48 @@
+package benchmarks;
+
+import io.restassured.module.jsv.JsonSchemaValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import schema.JsonSchemaRegistry;
+
+import java.io.File;
+
+/**
+ * Validating a booking against {@code getBookingByIdSchema.json}, reading the file per call like
+ * {@code ResponseExtraction#jsonSchemaValidations} against the compiled schema from {@link JsonSchemaRegistry}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SchemaValidationBenchmark {
+
+    private static final String BOOKING_JSON = """
+            {"firstname":"Sam","lastname":"Alton","totalprice":111,"depositpaid":true,
+            "bookingdates":{"checkin":"2018-01-01","checkout":"2019-01-01"},"additionalneeds":"Breakfast"}
+            """;
+
+    private final File schemaFile = JsonSchemaRegistry.DEFAULT_SCHEMA_DIRECTORY
+            .resolve("getBookingByIdSchema.json").toFile();
+    private JsonSchemaRegistry registry;
+
+    @Setup
+    public void setUp() {
+        this.registry = new JsonSchemaRegistry(JsonSchemaRegistry.DEFAULT_SCHEMA_DIRECTORY);
+    }
+
+    @Benchmark
+    public boolean validateWithSchemaFile() {
+        return JsonSchemaValidator.matchesJsonSchema(this.schemaFile).matches(BOOKING_JSON);
+    }
+
+    @Benchmark
+    public boolean validateWithRegistry() {
+        return this.registry.matcher("getBookingByIdSchema").matches(BOOKING_JSON);
+    }
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mapping.BookingPayloadTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pojo.request.BookingPayload;
+import pojo.response.CreateBookingResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the two request payload styles from {@code SimplePostApi}, a {@code Map<String, Object>} against
+ * {@link pojo.request.CreateBookingRequest}, and measures reading the create booking response back into
+ * {@link CreateBookingResponse}. Payload construction is included because the tests build it per call.
+ * <p>
+ * RestAssured serializes with Jackson 2 when it is on the classpath, so a plain {@link ObjectMapper}
+ * matches what {@code .body(requestBody)} and {@code .as(CreateBookingResponse.class)} do.
+ * <p>
+ * {@code serializeImmutablePayload} and {@code renderPayloadTemplate} build the same JSON from {@link BookingPayload}
+ * and {@link BookingPayloadTemplate}; run with {@code -prof gc} to compare the allocation per payload.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BookingPayloadTemplate bookingTemplate = BookingPayloadTemplate.of(BookingPayload.builder().build());
+    private byte[] createBookingResponseJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        this.createBookingResponseJson = ("{\"bookingid\":1,\"booking\":"
+                + this.objectMapper.writeValueAsString(BookingPayloads.createBookingPojo("Sam", "Alton", 500))
+                + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] serializeMapPayload() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(BookingPayloads.createBookingMap("Sam", "Alton", 500));
+    }
+
+    @Benchmark
+    public byte[] serializePojoPayload() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(BookingPayloads.createBookingPojo("Sam", "Alton", 500));
+    }
+
+    @Benchmark
+    public byte[] serializeImmutablePayload() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(BookingPayload.builder()
+                                                                 .firstName("Sam")
+                                                                 .lastName("Alton")
+                                                                 .totalPrice(500)
+                                                                 .build());
+    }
+
+    @Benchmark
+    public byte[] renderPayloadTemplate() {
+        return this.bookingTemplate.render("Sam", "Alton", 500);
+    }
+
+    @Benchmark
+    public CreateBookingResponse deserializeCreateBookingResponse() throws IOException {
+        return this.objectMapper.readValue(this.createBookingResponseJson, CreateBookingResponse.class);
+    }
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import com.jayway.jsonpath.JsonPath;
+import extraction.StreamingJsonPathExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The three book filters of {@code JSONPathExamples}: {@code JsonPath.read} on the body as a String per filter
+ * against one pass of {@link StreamingJsonPathExtractor} over the body bytes. Run with {@code -prof gc} (the
+ * default of {@link BenchmarkRunner}) to compare the allocation per catalog.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StreamingExtractionBenchmark {
+
+    private static final String TITLE_FILTER = "$[?(@.title =~ /.*Ruin.*/i)]";
+    private static final String CATEGORY_AND_PRICE_FILTER = "$[?(@.price < 500 && @.category == 'Fiction')]";
+    private static final String NEGATED_FILTER = "$[?(!(@.price < 214 || @.title =~ /.*Harry.*/))]";
+
+    @Param({"100", "10000"})
+    private int books;
+
+    private byte[] catalog;
+    private StreamingJsonPathExtractor extractor;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("[");
+        String[] categories = {"Fiction", "Mystery", "Romance", "Biography"};
+        for (int i = 0; i < this.books; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"bookId\":").append(i)
+                   .append(",\"title\":\"").append(i % 10 == 0 ? "Harry Potter " : "The Ruins of ").append(i)
+                   .append("\",\"author\":\"Author ").append(i % 97)
+                   .append("\",\"category\":\"").append(categories[i % categories.length])
+                   .append("\",\"price\":").append(100 + i % 900)
+                   .append(",\"coverFileName\":\"").append(i).append(".jpg\"}");
+        }
+        this.catalog = builder.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        this.extractor = StreamingJsonPathExtractor.builder()
+                                                   .filter("title", TITLE_FILTER)
+                                                   .filter("categoryAndPrice", CATEGORY_AND_PRICE_FILTER)
+                                                   .filter("negated", NEGATED_FILTER)
+                                                   .build();
+    }
+
+    @Benchmark
+    public void jsonPathReadPerFilter(Blackhole blackhole) {
+        String body = new String(this.catalog, StandardCharsets.UTF_8);
+        blackhole.consume(JsonPath.<Object>read(body, TITLE_FILTER));
+        blackhole.consume(JsonPath.<Object>read(body, CATEGORY_AND_PRICE_FILTER));
+        blackhole.consume(JsonPath.<Object>read(body, NEGATED_FILTER));
+    }
+
+    @Benchmark
+    public StreamingJsonPathExtractor.Summary streamingSinglePass(Blackhole blackhole) {
+        return this.extractor.extract(new ByteArrayInputStream(this.catalog),
+                (filterName, match) -> blackhole.consume(match));
+    }
+}
@@ -0,0 +1,92 @@
+package benchmarks;
+
+import config.ApiHosts;
+import http.Http2ClientFactory;
+import http.PooledHttpClientFactory;
+import io.restassured.RestAssured;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.http.HttpClient;
+
+/**
+ * Fetching a booking from 16 threads at once like the parallel suite, through each transport:
+ * <ul>
+ *     <li>{@code pooledHttp11}: Apache HttpClient with the shared {@link PooledHttpClientFactory} pool</li>
+ *     <li>{@code jdkHttp11}: {@link Http2ClientFactory} held to HTTP/1.1, the same client without multiplexing</li>
+ *     <li>{@code http2}: {@link Http2ClientFactory}, one connection per host with a stream per request</li>
+ * </ul>
+ * The local stub only speaks HTTP/1.1, so {@code http2} falls back to it here and the numbers compare the
+ * clients. The connection and stream counters of each transport are printed at the end of the run, against an
+ * HTTP/2 host they show the requests multiplexed on one connection.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransportBenchmark {
+
+    private String baseUri;
+    private PooledHttpClientFactory pooledFactory;
+    private Http2ClientFactory jdkHttp11Factory;
+    private Http2ClientFactory http2Factory;
+    private RestAssuredConfig pooledConfig;
+    private RestAssuredConfig jdkHttp11Config;
+    private RestAssuredConfig http2Config;
+
+    @Setup
+    public void setUp() {
+        this.baseUri = ApiHosts.localServer().getBaseUri();
+        this.pooledFactory = PooledHttpClientFactory.builder().maxTotal(32).maxPerRoute(32).build();
+        this.jdkHttp11Factory = Http2ClientFactory.builder().version(HttpClient.Version.HTTP_1_1).build();
+        this.http2Factory = Http2ClientFactory.builder().build();
+        this.pooledConfig = RestAssured.config().httpClient(this.pooledFactory.httpClientConfig());
+        this.jdkHttp11Config = this.jdkHttp11Factory.config();
+        this.http2Config = this.http2Factory.config();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("pooledHttp11: " + this.pooledFactory.stats());
+        System.out.println("jdkHttp11: " + this.jdkHttp11Factory.stats());
+        System.out.println("http2: " + this.http2Factory.stats());
+        this.pooledFactory.close();
+        this.jdkHttp11Factory.close();
+        this.http2Factory.close();
+    }
+
+    @Benchmark
+    public byte[] pooledHttp11() {
+        return this.getBooking(this.pooledConfig);
+    }
+
+    @Benchmark
+    public byte[] jdkHttp11() {
+        return this.getBooking(this.jdkHttp11Config);
+    }
+
+    @Benchmark
+    public byte[] http2() {
+        return this.getBooking(this.http2Config);
+    }
+
+    private byte[] getBooking(RestAssuredConfig config) {
+        Response response = RestAssured.given()
+                                       .and().config(config)
+                                       .and().baseUri(this.baseUri)
+                                       .and().basePath("/booking/{bookingId}")
+                                       .and().pathParam("bookingId", 1)
+                                       .when().get();
+        return response.asByteArray();
+    }
+}
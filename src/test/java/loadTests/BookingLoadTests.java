@@ -0,0 +1,58 @@
+package loadTests;
+
+import config.ApiHosts;
+import load.BookingScenarios;
+import load.LoadDriver;
+import load.LoadReport;
+import org.testng.annotations.Test;
+import specs.RequestSpecFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Replays the booking flows of the practice tests as load with {@link LoadDriver}.
+ * <p>
+ * These tests are not part of {@code testng.xml}, run them with their own suite, ideally against the local stub:
+ * <pre>
+ * mvn test -Dtestng.suite=src/test/resources/load.xml -Dapi.hosts=local
+ * </pre>
+ * The load shape and SLOs come from system properties:
+ * <ul>
+ *     <li>{@code load.rps}: calls per second (open model), when unset {@code load.concurrency} is used</li>
+ *     <li>{@code load.concurrency}: number of virtual users (closed model), default one per core</li>
+ *     <li>{@code load.warmupSeconds}: default 3</li>
+ *     <li>{@code load.durationSeconds}: default 5</li>
+ *     <li>{@code load.p99Millis}: default 500</li>
+ *     <li>{@code load.maxErrorRate}: default 0.01</li>
+ * </ul>
+ */
+
+public class BookingLoadTests {
+
+    @Test
+    public void bookingScenarioMix() {
+        // Logging every request would make the console the bottleneck
+        BookingScenarios scenarios = new BookingScenarios(RequestSpecFactory.forBaseUri(ApiHosts.restfulBooker(), List::of));
+
+        LoadDriver.Builder builder = LoadDriver.builder()
+                                               .scenario("createBooking", 2, scenarios::createBooking)
+                                               .scenario("getBooking", 5, scenarios::getBooking)
+                                               .scenario("updateBooking", 2, scenarios::updateBooking)
+                                               .scenario("deleteBooking", 1, scenarios::deleteBooking)
+                                               .warmup(Duration.ofSeconds(Long.getLong("load.warmupSeconds", 3)))
+                                               .duration(Duration.ofSeconds(Long.getLong("load.durationSeconds", 5)))
+                                               .maxP99(Duration.ofMillis(Long.getLong("load.p99Millis", 500)))
+                                               .maxErrorRate(Double.parseDouble(System.getProperty("load.maxErrorRate", "0.01")));
+        String rps = System.getProperty("load.rps");
+        if (rps != null) {
+            builder.arrivalRate(Double.parseDouble(rps));
+        } else {
+            builder.concurrency(Integer.getInteger("load.concurrency", Runtime.getRuntime().availableProcessors()));
+        }
+
+        LoadReport report = builder.build().run();
+        System.out.println(report);
+        report.assertSlos();
+    }
+}
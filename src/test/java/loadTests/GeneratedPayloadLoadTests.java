@@ -0,0 +1,123 @@
+package loadTests;
+
+import extraction.BodyExpectations;
+import extraction.StreamingJsonPathExtractor;
+import io.restassured.response.Response;
+import load.LoadDriver;
+import load.LoadReport;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import pojo.response.Booking;
+import schema.JsonSchemaRegistry;
+import server.Distribution;
+import server.SchemaStubServer;
+import specs.RequestSpecFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * Loads the parsing, extraction and assertion paths of {@code ResponseParsing} and {@code ResponseExtraction} with
+ * documents generated from the JSON schemas by {@link SchemaStubServer}, without any live service.
+ * <p>
+ * Run with the load suite, the shape of the generated responses comes from system properties on top of the
+ * {@code load.*} ones of {@link BookingLoadTests}:
+ * <ul>
+ *     <li>{@code stub.latencyMillis}: latency of each response, default {@code lognormal:2-20}</li>
+ *     <li>{@code stub.listSize}: bookings per list response, default {@code uniform:100-1000}</li>
+ * </ul>
+ * Distributions are a number, {@code uniform:<min>-<max>} or {@code lognormal:<median>-<p99>}.
+ */
+
+public class GeneratedPayloadLoadTests {
+
+    private static final String BOOKING_SCHEMA = "getBookingByIdSchema";
+    private static final BodyExpectations BOOKING_EXPECTATIONS = BodyExpectations.builder()
+            .body("firstname", notNullValue())
+            .body("totalprice", greaterThanOrEqualTo(0))
+            .rootPath("bookingdates")
+            .body("checkin", notNullValue())
+            .body("checkout", notNullValue())
+            .build();
+    private static final StreamingJsonPathExtractor EXPENSIVE_BOOKINGS = StreamingJsonPathExtractor.builder()
+            .filter("expensive", "$[?(@.totalprice > 9000)].totalprice")
+            .build();
+
+    private SchemaStubServer server;
+    private RequestSpecFactory requestSpecFactory;
+
+    @BeforeClass
+    public void startServer() {
+        this.server = SchemaStubServer.builder()
+                                      .latencyMillis(Distribution.parse(System.getProperty("stub.latencyMillis", "lognormal:2-20")))
+                                      .listSize(Distribution.parse(System.getProperty("stub.listSize", "uniform:100-1000")))
+                                      .start();
+        // Logging every request would make the console the bottleneck
+        this.requestSpecFactory = RequestSpecFactory.forBaseUri(this.server.getBaseUri(), List::of);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        System.out.println("Schema stub server: " + this.server.stats());
+        this.server.close();
+    }
+
+    @Test
+    public void generatedPayloadMix() {
+        LoadDriver.Builder builder = LoadDriver.builder()
+                                               .scenario("parseBooking", 4, this::parseBooking)
+                                               .scenario("assertBookingFields", 4, this::assertBookingFields)
+                                               .scenario("validateBookingSchema", 1, this::validateBookingSchema)
+                                               .scenario("parseBookingList", 1, this::parseBookingList)
+                                               .scenario("streamBookingList", 1, this::streamBookingList)
+                                               .warmup(Duration.ofSeconds(Long.getLong("load.warmupSeconds", 3)))
+                                               .duration(Duration.ofSeconds(Long.getLong("load.durationSeconds", 5)))
+                                               .maxP99(Duration.ofMillis(Long.getLong("load.p99Millis", 500)))
+                                               .maxErrorRate(Double.parseDouble(System.getProperty("load.maxErrorRate", "0.01")));
+        String rps = System.getProperty("load.rps");
+        if (rps != null) {
+            builder.arrivalRate(Double.parseDouble(rps));
+        } else {
+            builder.concurrency(Integer.getInteger("load.concurrency", Runtime.getRuntime().availableProcessors()));
+        }
+
+        LoadReport report = builder.build().run();
+        System.out.println(report);
+        report.assertSlos();
+    }
+
+    private Response parseBooking() {
+        Response response = this.requestSpecFactory.newRequest().basePath("/" + BOOKING_SCHEMA).get();
+        response.as(Booking.class);
+        return response;
+    }
+
+    private Response assertBookingFields() {
+        Response response = this.requestSpecFactory.newRequest().basePath("/" + BOOKING_SCHEMA).get();
+        BOOKING_EXPECTATIONS.assertThat(response);
+        return response;
+    }
+
+    private Response validateBookingSchema() {
+        return this.requestSpecFactory.newRequest().basePath("/" + BOOKING_SCHEMA).get()
+                .then().body(JsonSchemaRegistry.getDefault().matcher(BOOKING_SCHEMA))
+                .extract().response();
+    }
+
+    private Response parseBookingList() {
+        Response response = this.requestSpecFactory.newRequest().basePath("/" + BOOKING_SCHEMA + "/list").get();
+        response.as(Booking[].class);
+        return response;
+    }
+
+    private Response streamBookingList() {
+        Response response = this.requestSpecFactory.newRequest().basePath("/" + BOOKING_SCHEMA + "/list").get();
+        EXPENSIVE_BOOKINGS.extract(response.asInputStream(), (filterName, match) -> {
+        });
+        return response;
+    }
+}
@@ -1,12 +1,12 @@
 package practiceTests;
 
-import io.restassured.RestAssured;
-import io.restassured.filter.log.RequestLoggingFilter;
-import io.restassured.filter.log.ResponseLoggingFilter;
+import data.BookingFixturePool;
+import extraction.BodyExpectations;
+import extraction.ParsedResponse;
 import io.restassured.response.Response;
 import io.restassured.response.ValidatableResponse;
-import io.restassured.specification.RequestSpecification;
 import org.testng.annotations.Test;
+import specs.RequestSpecFactory;
 
 import static org.hamcrest.Matchers.*;
 
@@ -22,16 +22,22 @@ import static org.hamcrest.Matchers.*;
 
 public class Assertions {
 
-    private final RequestSpecification requestSpecification = RestAssured.given()
-                                                                         .and().baseUri("https://restful-booker.herokuapp.com")
-                                                                         .and().filters(new RequestLoggingFilter(), new ResponseLoggingFilter());
+    // Compiled once and shared by every test, see multiFieldValidation
+    private static final BodyExpectations BOOKING_EXPECTATIONS = BodyExpectations.builder()
+            .body("totalprice", is(equalTo(111)))
+            .body("bookingdates.checkin", equalTo("2018-01-01"))
+            .body("bookingdates.checkout", is(notNullValue()))
+            .build();
+
+    private final RequestSpecFactory requestSpecFactory = RequestSpecFactory.restfulBooker();
+    private final BookingFixturePool fixtures = BookingFixturePool.getDefault();
 
     @Test
     public void assertHttpStatusCode() {
         // Single URL param
-        ValidatableResponse validatableResponse = this.requestSpecification
+        ValidatableResponse validatableResponse = this.requestSpecFactory.newRequest()
                 .and().basePath("/booking/{bookingId}")
-                .and().pathParam("bookingId", 20)
+                .and().pathParam("bookingId", this.fixtures.shared().bookingId())
                 .when().get()
                 .then().assertThat().statusCode(200);
 
@@ -43,9 +49,9 @@ public class Assertions {
     @Test
     public void useJsonPathForFieldValidation() {
         // Single URL param
-        ValidatableResponse validatableResponse = this.requestSpecification
+        ValidatableResponse validatableResponse = this.requestSpecFactory.newRequest()
                 .and().basePath("/booking/{bookingId}")
-                .and().pathParam("bookingId", 20)
+                .and().pathParam("bookingId", this.fixtures.shared().bookingId())
                 .when().get()
                 .then().assertThat().body("totalprice", equalTo(111))
                 .and().body("bookingdates.checkin", equalTo("2018-01-01"));
@@ -55,9 +61,9 @@ public class Assertions {
     @Test
     public void nonNullFieldValidation() {
         // Single URL param
-        ValidatableResponse validatableResponse = this.requestSpecification
+        ValidatableResponse validatableResponse = this.requestSpecFactory.newRequest()
                 .and().basePath("/booking/{bookingId}")
-                .and().pathParam("bookingId", 20)
+                .and().pathParam("bookingId", this.fixtures.shared().bookingId())
                 .when().get()
                 .then().assertThat()
                 .body("totalprice", is(equalTo(111)))
@@ -65,13 +71,42 @@ public class Assertions {
 
         Response response = validatableResponse.extract().response();
 
-        Response inlineValidatedResponse = this.requestSpecification
+        Response inlineValidatedResponse = this.requestSpecFactory.newRequest()
                 .and().basePath("/booking/{bookingId}")
-                .and().pathParam("bookingId", 20)
+                .and().pathParam("bookingId", this.fixtures.shared().bookingId())
                 .when().get()
                 .then().assertThat()
                 .body("totalprice", is(equalTo(111)))
                 .and().body("bookingdates.checkin", is(notNullValue()))
                 .extract().response();
     }
+
+    @Test
+    public void parseOnceFieldValidation() {
+        Response response = this.requestSpecFactory.newRequest()
+                .and().basePath("/booking/{bookingId}")
+                .and().pathParam("bookingId", this.fixtures.shared().bookingId())
+                .when().get()
+                .then().assertThat().statusCode(200)
+                .extract().response();
+
+        // The body is parsed on the first assertion only, see ParsedResponse
+        ParsedResponse.of(response)
+                .body("totalprice", is(equalTo(111)))
+                .body("bookingdates.checkin", equalTo("2018-01-01"))
+                .body("bookingdates.checkout", is(notNullValue()));
+    }
+
+    @Test
+    public void multiFieldValidation() {
+        Response response = this.requestSpecFactory.newRequest()
+                .and().basePath("/booking/{bookingId}")
+                .and().pathParam("bookingId", this.fixtures.shared().bookingId())
+                .when().get()
+                .then().assertThat().statusCode(200)
+                .extract().response();
+
+        // Every field is checked in a single pass over the body and all failures are reported together
+        BOOKING_EXPECTATIONS.assertThat(response);
+    }
 }
@@ -0,0 +1,162 @@
+package practiceTests;
+
+import config.ApiHosts;
+import http.AsyncRequestExecutor;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+import pojo.request.BookingPayload;
+import specs.RequestSpecFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * This class explains how to send requests without blocking the test thread, with {@link AsyncRequestExecutor}.
+ * <p>
+ * Each call returns a {@link CompletableFuture} of the usual {@link Response}, so the {@code then()} assertions of
+ * the blocking examples work unchanged. Dependent calls are chained with {@code thenCompose}, independent ones are
+ * sent together and joined with {@link AsyncRequestExecutor#allOf(List)}.
+ * <p>
+ * The fan-out examples create hundreds of bookings, so they always run against the local stub; only the single
+ * create, fetch and update chain goes to the configured restful-booker host.
+ * <p>
+ * Refer to {@link SimplePostApi}, {@link SimpleGetApi} and {@link SimplePutApi} for the blocking calls.
+ */
+
+public class AsyncRequests {
+
+    private final RequestSpecFactory requestSpecFactory = RequestSpecFactory.restfulBooker();
+    private final RequestSpecFactory localSpecFactory =
+            RequestSpecFactory.forBaseUri(ApiHosts.localServer().getBaseUri());
+    private final AsyncRequestExecutor async = AsyncRequestExecutor.getDefault();
+
+    /**
+     * Create, fetch and update one booking. No thread waits for a response in between, the next call is sent by
+     * the thread that completed the previous one.
+     */
+    @Test
+    public void createFetchAndUpdateBooking() {
+        Response updated = this.createBooking(this.requestSpecFactory, "Sam", 500)
+                               .thenCompose(bookingId -> this.async.get(this.requestSpecFactory.newRequest()
+                                               .and().basePath("/booking/{bookingId}")
+                                               .and().pathParam("bookingId", bookingId))
+                                       .thenApply(response -> response.then().assertThat().statusCode(200)
+                                                                      .and().body("firstname", equalTo("Sam"))
+                                                                      .extract().response())
+                                       .thenCompose(fetched -> this.async.put(this.requestSpecFactory.newRequest()
+                                               .and().basePath("/booking/{bookingId}")
+                                               .and().contentType(ContentType.JSON)
+                                               .and().body(BookingPayload.builder()
+                                                                         .firstName("Sam")
+                                                                         .lastName("Alton")
+                                                                         .totalPrice(1000)
+                                                                         .build())
+                                               .and().pathParam("bookingId", bookingId)
+                                               .and().auth().preemptive().basic("admin", "password123"))))
+                               .join();
+
+        updated.then().assertThat().statusCode(200)
+               .and().body("totalprice", equalTo(1000));
+    }
+
+    /**
+     * Independent calls are all in flight at once, the test thread only waits for the last one.
+     */
+    @Test
+    public void fanOutIndependentCalls() {
+        List<CompletableFuture<Integer>> bookings = IntStream.range(0, 20)
+                .mapToObj(i -> this.createBooking(this.localSpecFactory, "Guest" + i, 100 + i))
+                .toList();
+        List<Integer> bookingIds = AsyncRequestExecutor.allOf(bookings).join();
+        assertThat(new HashSet<>(bookingIds), hasSize(20));
+
+        List<CompletableFuture<Response>> fetches = new ArrayList<>();
+        for (int bookingId : bookingIds) {
+            fetches.add(this.async.get(this.localSpecFactory.newRequest()
+                                      .and().basePath("/booking/{bookingId}")
+                                      .and().pathParam("bookingId", bookingId)));
+        }
+        for (Response response : AsyncRequestExecutor.allOf(fetches).join()) {
+            response.then().assertThat().statusCode(200);
+        }
+    }
+
+    /**
+     * Hundreds of scenarios in flight on two threads. Logging is left out of these specs, see
+     * {@link RequestSpecFactory#forBaseUri(String, java.util.function.Supplier)}.
+     */
+    @Test
+    public void manyScenariosOnFewThreads() {
+        RequestSpecFactory quietSpecs = RequestSpecFactory.forBaseUri(ApiHosts.localServer().getBaseUri(), List::of);
+        try (AsyncRequestExecutor executor = AsyncRequestExecutor.builder().threads(2).maxInFlight(64).build()) {
+            List<CompletableFuture<Response>> scenarios = IntStream.range(0, 200)
+                    .mapToObj(i -> executor.post(quietSpecs.newRequest()
+                                                           .and().basePath("/booking")
+                                                           .and().contentType(ContentType.JSON)
+                                                           .and().body(BookingPayload.builder()
+                                                                                     .firstName("Guest" + i)
+                                                                                     .lastName("Alton")
+                                                                                     .totalPrice(i)
+                                                                                     .build()))
+                                           .thenCompose(created -> executor.get(quietSpecs.newRequest()
+                                                   .and().basePath("/booking/{bookingId}")
+                                                   .and().pathParam("bookingId",
+                                                           created.then().statusCode(200)
+                                                                  .extract().<Integer>path("bookingid")))))
+                    .toList();
+            AsyncRequestExecutor.allOf(scenarios).join()
+                                .forEach(response -> response.then().assertThat().statusCode(200));
+
+            AsyncRequestExecutor.Stats stats = executor.stats();
+            System.out.println(stats);
+            assertThat(stats.completed(), is(400L));
+            assertThat(stats.peakInFlight(), greaterThan(2));
+        }
+    }
+
+    /**
+     * Auth that needs a challenge, like {@code auth().basic(...)}, cannot be answered off the filter chain. The call
+     * fails instead of going out without credentials, use {@code auth().preemptive()} or the blocking call.
+     */
+    @Test
+    public void challengedAuthIsRejected() {
+        CompletableFuture<Response> delete = this.async.delete(this.requestSpecFactory.newRequest()
+                                                                 .and().basePath("/booking/{bookingId}")
+                                                                 .and().pathParam("bookingId", 1)
+                                                                 .and().auth().basic("admin", "password123"));
+        CompletionException failure = Assert.expectThrows(CompletionException.class, delete::join);
+        assertThat(failure.getCause(), is(instanceOf(IllegalArgumentException.class)));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void printStats() {
+        System.out.println("Async requests: " + this.async.stats());
+    }
+
+    private CompletableFuture<Integer> createBooking(RequestSpecFactory specs, String firstName, int totalPrice) {
+        return this.async.post(specs.newRequest()
+                                   .and().basePath("/booking")
+                                   .and().contentType(ContentType.JSON)
+                                   .and().body(BookingPayload.builder()
+                                                             .firstName(firstName)
+                                                             .lastName("Alton")
+                                                             .totalPrice(totalPrice)
+                                                             .build()))
+                         .thenApply(response -> response.then().assertThat().statusCode(200)
+                                                        .extract().<Integer>path("bookingid"));
+    }
+}
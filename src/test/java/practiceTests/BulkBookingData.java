@@ -0,0 +1,92 @@
+package practiceTests;
+
+import config.ApiHosts;
+import data.BookingGenerator;
+import data.BulkBookingCreator;
+import extraction.ParsedResponse;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import pojo.request.CreateBookingRequest;
+import specs.RequestSpecFactory;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * This class explains how to drive a test with generated data from a parallel TestNG {@link DataProvider}.
+ * <p>
+ * {@link BookingGenerator} creates the same bookings for the same seed, so the search test knows which bookings to
+ * expect without keeping them. {@link BulkBookingCreator} caps the create requests in flight and keeps the created
+ * ids in an {@code int[]} by booking index. Seed more bookings with {@code -Dbulk.bookings=5000}.
+ */
+
+public class BulkBookingData {
+
+    private static final int BOOKINGS = Integer.getInteger("bulk.bookings", 50);
+    private static final BookingGenerator GENERATOR = new BookingGenerator(Long.getLong("bulk.seed", 42));
+
+    // No logging filters, thousands of create calls would flood the log
+    private final RequestSpecFactory requestSpecFactory = RequestSpecFactory.forBaseUri(ApiHosts.restfulBooker(),
+            List::of);
+    private final BulkBookingCreator bulkBookingCreator =
+            BulkBookingCreator.fromSystemProperties(this.requestSpecFactory, BOOKINGS);
+
+    @DataProvider(name = "bookings", parallel = true)
+    public Iterator<Object[]> bookings() {
+        return GENERATOR.rows(BOOKINGS);
+    }
+
+    @Test(dataProvider = "bookings")
+    public void createGeneratedBooking(int index, CreateBookingRequest booking) {
+        assertThat(this.bulkBookingCreator.create(index, booking), is(greaterThan(0)));
+    }
+
+    /**
+     * Searches with the names of the first generated booking, every generated booking with the same names must be
+     * found.
+     */
+    @Test(dependsOnMethods = "createGeneratedBooking")
+    public void searchGeneratedBookingsByName() {
+        int[] bookingIds = this.bulkBookingCreator.bookingIds();
+        CreateBookingRequest first = GENERATOR.booking(0);
+        Integer[] expectedIds = IntStream.range(0, BOOKINGS)
+                                         .filter(index -> {
+                                             CreateBookingRequest booking = GENERATOR.booking(index);
+                                             return booking.getFirstName().equals(first.getFirstName())
+                                                     && booking.getLastName().equals(first.getLastName());
+                                         })
+                                         .mapToObj(index -> bookingIds[index])
+                                         .toArray(Integer[]::new);
+
+        List<Integer> foundIds = ParsedResponse.of(this.requestSpecFactory.newRequest()
+                                                                          .and().basePath("/booking")
+                                                                          .and().queryParam("firstname", first.getFirstName())
+                                                                          .and().queryParam("lastname", first.getLastName())
+                                                                          .when().get()
+                                                                          .then().assertThat().statusCode(200)
+                                                                          .extract().response())
+                                               .getList("$[*].bookingid");
+        assertThat(foundIds, hasItems(expectedIds));
+    }
+
+    @Test(dependsOnMethods = "createGeneratedBooking")
+    public void getGeneratedBookings() {
+        int[] bookingIds = this.bulkBookingCreator.bookingIds();
+        for (int index = 0; index < bookingIds.length; index += Math.max(1, bookingIds.length / 10)) {
+            ParsedResponse.of(this.requestSpecFactory.newRequest()
+                                                     .and().basePath("/booking/{bookingId}")
+                                                     .and().pathParam("bookingId", bookingIds[index])
+                                                     .when().get()
+                                                     .then().assertThat().statusCode(200)
+                                                     .extract().response())
+                          .body("totalprice", is(equalTo(GENERATOR.booking(index).getTotalPrice())));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package practiceTests;
+
+import config.ApiHosts;
+import http.MappedFile;
+import io.restassured.http.ContentType;
+import org.testng.annotations.Test;
+import specs.RequestSpecFactory;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * This class explains how to upload files as multipart form data without reading them into memory.
+ * <p>
+ * A {@link MappedFile} maps the fixture once, each {@link MappedFile#openStream()} reads the same mapping with its own
+ * position, so parallel uploads of one file share it. RestAssured sends the stream with chunked transfer encoding.
+ * The local stub answers {@code POST /upload} with the number of bytes it received. The real restful-booker has no
+ * such endpoint, so these tests always run against the stub, whatever {@code -Dapi.hosts} says.
+ */
+public class FileUploads {
+
+    private static final Path UPLOAD_PNG = Path.of("src", "main", "resources", "playwright-nodejs.png");
+
+    private final RequestSpecFactory requestSpecFactory =
+            RequestSpecFactory.forBaseUri(ApiHosts.localServer().getBaseUri());
+
+    @Test
+    public void uploadFromMappedFile() {
+        MappedFile image = MappedFile.of(UPLOAD_PNG);
+        AtomicReference<MappedFile.Upload> upload = new AtomicReference<>();
+
+        this.requestSpecFactory.newRequest()
+                .and().basePath("/upload")
+                .and().contentType(ContentType.MULTIPART)
+                .and().multiPart("image", image.fileName(), image.openStream(upload::set))
+                .and().multiPart("title", "playwright-with-nodejs")
+                .when().post()
+                .then().assertThat().statusCode(200)
+                .and().body("chunked", is(true))
+                // The image plus part headers and boundaries
+                .and().body("bytes", greaterThan((int) image.size()));
+
+        assertThat(upload.get().bytes(), equalTo(image.size()));
+        System.out.println(upload.get());
+    }
+
+    @Test(invocationCount = 8, threadPoolSize = 4)
+    public void concurrentUploadsShareOneMapping() {
+        MappedFile image = MappedFile.of(UPLOAD_PNG);
+        assertThat(MappedFile.of(Path.of(UPLOAD_PNG.toAbsolutePath().toString())), sameInstance(image));
+
+        this.requestSpecFactory.newRequest()
+                .and().basePath("/upload")
+                .and().contentType(ContentType.MULTIPART)
+                .and().multiPart("image", image.fileName(), image.openStream())
+                .when().post()
+                .then().assertThat().statusCode(200)
+                .and().body("bytes", greaterThan((int) image.size()));
+    }
+}
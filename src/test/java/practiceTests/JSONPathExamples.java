@@ -1,7 +1,7 @@
 package practiceTests;
 
 import com.jayway.jsonpath.JsonPath;
-
+import extraction.StreamingJsonPathExtractor;
 import io.restassured.RestAssured;
 
 /**
@@ -9,6 +9,7 @@ import io.restassured.RestAssured;
  * It covers examples of filtering JSON objects based on conditions. 
  * Using JSONPath we can do complex filtering of JSON objects before extracting fields. 
  * It will save manual iteration handling of JSON objects in Java.
+ * For large arrays, StreamingJsonPathExtractor applies several filters in one pass over the response stream.
  **/
 
 public class JSONPathExamples {
@@ -16,24 +17,26 @@ public class JSONPathExamples {
 
     public static void main(String[] args) {
 
-        var responseString = RestAssured.given().baseUri("https://bookcart.azurewebsites.net/api")
+        var bookFilters = StreamingJsonPathExtractor.builder()
+                                                    //Filter a book with title containing 'Ruin'
+                                                    .filter("Books containing title", "$[?(@.title =~ /.*Ruin.*/i)]")
+                                                    //Filter books for category 'Fiction' and price less than 500
+                                                    .filter("Books with price < 500 and category 'Fiction'",
+                                                            "$[?(@.price < 500 && @.category == 'Fiction')]")
+                                                    //Filter books with title not containing 'Harry'
+                                                    //and price not equals or less than 214
+                                                    .filter("Books with negated filters",
+                                                            "$[?(!(@.price < 214 || @.title =~ /.*Harry.*/))]")
+                                                    .build();
+
+        //The body is read once as a stream, every filter is applied to one book at a time
+        var responseStream = RestAssured.given().baseUri("https://bookcart.azurewebsites.net/api")
                                         .and().basePath("/book")
                                         .when().get().then().assertThat().statusCode(200)
-                                        .extract().asString();
-
-        //Filter a book with title containing 'Ruin'
-        var filteredBooksWithTitle = JsonPath.read(responseString, "$[?(@.title =~ /.*Ruin.*/i)]");
-        System.out.println("Books containing title:" + filteredBooksWithTitle);
-
-        //Filter books for category 'Fiction' and price less than 500
-        var filteredBookForCategoryAndPrice = JsonPath.read(responseString,
-                "$[?(@.price < 500 && @.category == 'Fiction')]");
-        System.out.println("Books with price < 500 and category 'Fiction':" + filteredBookForCategoryAndPrice);
-
-        //Filter books with title not containing 'Harry' and price not equals or less than 214
-        var booksWithTitleNotHarryAndPriceNegation = JsonPath.read(responseString,
-                "$[?(!(@.price < 214 || @.title =~ /.*Harry.*/))]");
-        System.out.println("Books with negated filters:" + booksWithTitleNotHarryAndPriceNegation);
+                                        .extract().asInputStream();
+        var summary = bookFilters.extract(responseStream,
+                (filterName, book) -> System.out.println(filterName + ": " + book));
+        System.out.println("Books read: " + summary.elements() + ", matches: " + summary.matchCounts());
 
 
         var nestedJson = """
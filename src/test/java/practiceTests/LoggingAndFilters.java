@@ -2,12 +2,29 @@ package practiceTests;
 
 import org.testng.annotations.Test;
 
+import com.sun.management.ThreadMXBean;
+import config.ApiHosts;
+import data.BookingFixturePool;
+import filters.AsyncLoggingFilter;
+import filters.BodySpoolingFilter;
+import http.PooledHttpClientFactory;
 import io.restassured.RestAssured;
+import io.restassured.filter.Filter;
 import io.restassured.filter.log.LogDetail;
 import io.restassured.filter.log.RequestLoggingFilter;
 import io.restassured.filter.log.ResponseLoggingFilter;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
+import server.SchemaStubServer;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
 
 /**
  * This class explains the usage of Logging and Filters in RestAssured. 
@@ -20,14 +37,15 @@ import io.restassured.specification.RequestSpecification;
 
 public class LoggingAndFilters {
 
+    private final BookingFixturePool fixtures = BookingFixturePool.getDefault();
 
     @Test
     public void prettyPrintResponse() {
         RequestSpecification requestSpecification = RestAssured.given();
         //Single URL param
-        Response response = requestSpecification.baseUri("https://restful-booker.herokuapp.com")
+        Response response = requestSpecification.baseUri(ApiHosts.restfulBooker())
                 .basePath("/booking/{bookingId}")
-                .pathParam("bookingId", 20)
+                .pathParam("bookingId", this.fixtures.shared().bookingId())
                 .get();
         //Pretty print the response
         response.prettyPrint();
@@ -49,9 +67,9 @@ public class LoggingAndFilters {
         //Create a new response logging filter
         ResponseLoggingFilter responseLoggingFilter = new ResponseLoggingFilter();
         //Single URL param
-        Response response = requestSpecification.baseUri("https://restful-booker.herokuapp.com")
+        Response response = requestSpecification.baseUri(ApiHosts.restfulBooker())
                 .basePath("/booking/{bookingId}")
-                .pathParam("bookingId", 20)
+                .pathParam("bookingId", this.fixtures.shared().bookingId())
                 .filters(requestLoggingFilter, responseLoggingFilter)
                 .get();
     }
@@ -67,10 +85,75 @@ public class LoggingAndFilters {
         //Create a new response logging filter
         ResponseLoggingFilter responseLoggingFilter = new ResponseLoggingFilter(LogDetail.BODY);
         //Single URL param
-        Response response = requestSpecification.baseUri("https://restful-booker.herokuapp.com")
+        Response response = requestSpecification.baseUri(ApiHosts.restfulBooker())
                 .basePath("/booking/{bookingId}")
-                .pathParam("bookingId", 20)
+                .pathParam("bookingId", this.fixtures.shared().bookingId())
                 .filters(requestLoggingFilter, responseLoggingFilter)
                 .get();
     }
+
+    /**
+     * {@link RequestLoggingFilter} and {@link ResponseLoggingFilter} print on the test thread. When many tests run
+     * in parallel, {@link AsyncLoggingFilter} hands the log records to a background writer instead. It can log
+     * one call in N, always log failures, and it never prints the value of auth headers.
+     */
+    @Test
+    public void asyncLoggingFilterResponse() {
+        AsyncLoggingFilter asyncLoggingFilter = AsyncLoggingFilter.builder()
+                                                                  .sampleEvery(2)
+                                                                  .alwaysLogFailures()
+                                                                  .build();
+        for (int i = 0; i < 4; i++) {
+            RestAssured.given()
+                       .baseUri(ApiHosts.restfulBooker())
+                       .basePath("/booking/{bookingId}")
+                       .pathParam("bookingId", this.fixtures.shared().bookingId())
+                       .auth().preemptive().basic("admin", "password123")
+                       .filter(asyncLoggingFilter)
+                       .get();
+        }
+        //Write everything still queued and stop the background writer
+        asyncLoggingFilter.close();
+        System.out.println("Async logging stats: " + asyncLoggingFilter.stats());
+    }
+
+    /**
+     * A chunked body has no {@code Content-Length}, so nothing says how large it is before it is read. The logging
+     * filter reads at most its limit of it and {@link BodySpoolingFilter} streams the rest to disk, so the test
+     * thread allocates far less than the body. Only with the pooled client, which streams bodies it cannot size.
+     */
+    @Test
+    public void largeChunkedBodyIsNotBufferedForLogging() {
+        AsyncLoggingFilter loggingFilter = AsyncLoggingFilter.builder()
+                                                             .outputStream(OutputStream.nullOutputStream())
+                                                             .maxBufferedBodyBytes(64 * 1024)
+                                                             .build();
+        BodySpoolingFilter spoolingFilter = BodySpoolingFilter.builder().threshold(64 * 1024).build();
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        try (SchemaStubServer server = SchemaStubServer.builder().start(); loggingFilter) {
+            // The first request of a thread allocates for RestAssured itself, keep that out of the measurement
+            this.getBookingList(server, 1, loggingFilter, spoolingFilter);
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            Response response = this.getBookingList(server, 50_000, loggingFilter, spoolingFilter);
+            long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            response.then().assertThat().statusCode(200).and().header("Content-Length", nullValue());
+
+            BodySpoolingFilter.Stats stats = spoolingFilter.stats();
+            System.out.printf("Chunked body of %d bytes, %d bytes allocated while reading it%n",
+                    stats.spooledBytes(), allocated);
+            assertThat(stats.spooled(), is(1L));
+            assertThat(allocated, lessThan(stats.spooledBytes() / 2));
+        }
+    }
+
+    private Response getBookingList(SchemaStubServer server, int count, Filter... filters) {
+        return RestAssured.given()
+                          .noFilters()
+                          .config(RestAssured.config().httpClient(PooledHttpClientFactory.getDefault().httpClientConfig()))
+                          .baseUri(server.getBaseUri())
+                          .basePath("/getBookingByIdSchema/list")
+                          .queryParam("count", count)
+                          .filters(List.of(filters))
+                          .get();
+    }
 }
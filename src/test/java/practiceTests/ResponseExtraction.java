@@ -9,12 +9,13 @@ import java.util.Map;
 
 import org.testng.annotations.Test;
 
-import io.restassured.RestAssured;
-import io.restassured.filter.log.RequestLoggingFilter;
-import io.restassured.filter.log.ResponseLoggingFilter;
+import data.BookingFixturePool;
+import extraction.BodyExpectations;
+import extraction.ParsedResponse;
 import io.restassured.module.jsv.JsonSchemaValidator;
 import io.restassured.response.Response;
-import io.restassured.specification.RequestSpecification;
+import schema.JsonSchemaRegistry;
+import specs.RequestSpecFactory;
 
 /**
  * This class explains how to extract fields from a response using RestAssured.
@@ -28,15 +29,14 @@ import io.restassured.specification.RequestSpecification;
 
 public class ResponseExtraction {
 
-    private final RequestSpecification requestSpecification = RestAssured.given()
-                                                                         .and().baseUri("https://restful-booker.herokuapp.com")
-                                                                         .and().filters(new RequestLoggingFilter(), new ResponseLoggingFilter());
+    private final RequestSpecFactory requestSpecFactory = RequestSpecFactory.restfulBooker();
+    private final BookingFixturePool fixtures = BookingFixturePool.getDefault();
 
     @Test
     public void extractJsonPathFieldsFromResponse() {
-        Response inlineValidatedResponse = this.requestSpecification
+        Response inlineValidatedResponse = this.requestSpecFactory.newRequest()
                 .and().basePath("/booking/{bookingId}")
-                .and().pathParam("bookingId", 20)
+                .and().pathParam("bookingId", this.fixtures.shared().bookingId())
                 .when().get()
                 .then().assertThat()
                 .body("totalprice", is(equalTo(111)))
@@ -53,11 +53,39 @@ public class ResponseExtraction {
         System.out.println("Booking dates map: " + bookingDatesMap);
     }
 
+    /**
+     * Every {@link Response#jsonPath()} call and every {@code .body(path, matcher)} parses the body again.
+     * {@link ParsedResponse} parses it once and serves the assertions and extractions from the same tree.
+     */
+    @Test
+    public void extractFieldsFromParsedResponse() {
+        Response response = this.requestSpecFactory.newRequest()
+                .and().basePath("/booking/{bookingId}")
+                .and().pathParam("bookingId", this.fixtures.shared().bookingId())
+                .when().get()
+                .then().assertThat().statusCode(200)
+                .extract().response();
+
+        ParsedResponse booking = ParsedResponse.of(response)
+                .body("totalprice", is(equalTo(111)))
+                .body("bookingdates.checkin", is(notNullValue()));
+
+        int totalPrice = booking.getInt("totalprice");
+        String checkinDate = booking.getString("bookingdates.checkin");
+        Map<String, Object> bookingDatesMap = booking.getMap("bookingdates");
+
+        System.out.printf("Checkin date is %s\n", checkinDate);
+        System.out.printf("Total Price is %d\n", totalPrice);
+
+        System.out.println("Booking dates map: " + bookingDatesMap);
+        System.out.println("Parsed responses: " + ParsedResponse.stats());
+    }
+
     @Test
     public void jsonSchemaValidations() {
-        Response inlineValidatedResponse = this.requestSpecification
+        Response inlineValidatedResponse = this.requestSpecFactory.newRequest()
                 .and().basePath("/booking/{bookingId}")
-                .and().pathParam("bookingId", 20)
+                .and().pathParam("bookingId", this.fixtures.shared().bookingId())
                 .when().get()
                 .then().assertThat()
                 .body("totalprice", is(equalTo(111)))
@@ -68,11 +96,30 @@ public class ResponseExtraction {
                 .extract().response();
     }
 
+    /**
+     * {@link JsonSchemaValidator#matchesJsonSchema(File)} reads and compiles the schema file on every call.
+     * {@link JsonSchemaRegistry} compiles every schema in {@code src/test/resources/schema} once and reuses it,
+     * which matters when the same schema is validated thousands of times.
+     */
+    @Test
+    public void cachedJsonSchemaValidations() {
+        Response inlineValidatedResponse = this.requestSpecFactory.newRequest()
+                .and().basePath("/booking/{bookingId}")
+                .and().pathParam("bookingId", this.fixtures.shared().bookingId())
+                .when().get()
+                .then().assertThat()
+                //Schema name is the file name without `.json`
+                .and().body(JsonSchemaRegistry.getDefault().matcher("getBookingByIdSchema"))
+                .extract().response();
+
+        System.out.println("Schema registry: " + JsonSchemaRegistry.getDefault().stats());
+    }
+
     @Test
     public void setRootPath() {
-        Response inlineValidatedResponse = this.requestSpecification
+        Response inlineValidatedResponse = this.requestSpecFactory.newRequest()
                 .and().basePath("/booking/{bookingId}")
-                .and().pathParam("bookingId", 20)
+                .and().pathParam("bookingId", this.fixtures.shared().bookingId())
                 .when().get()
                 .then().assertThat()
                 //Set the root path so that we can validate child booking dates
@@ -87,4 +134,25 @@ public class ResponseExtraction {
                 .body("totalprice", is(equalTo(111)))
                 .extract().response();
     }
+
+    @Test
+    public void setRootPathOnBodyExpectations() {
+        // The same root path scoping, compiled once and checked in a single pass over the body
+        BodyExpectations bookingExpectations = BodyExpectations.builder()
+                .rootPath("bookingdates")
+                .body("checkin", is(notNullValue()))
+                .body("checkout", is(notNullValue()))
+                .detachRootPath()
+                .body("totalprice", is(equalTo(111)))
+                .build();
+
+        Response response = this.requestSpecFactory.newRequest()
+                .and().basePath("/booking/{bookingId}")
+                .and().pathParam("bookingId", this.fixtures.shared().bookingId())
+                .when().get()
+                .then().assertThat().statusCode(200)
+                .extract().response();
+
+        bookingExpectations.assertThat(response);
+    }
 }
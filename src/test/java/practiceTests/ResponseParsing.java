@@ -7,15 +7,11 @@ import static org.hamcrest.Matchers.not;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import io.restassured.RestAssured;
-import io.restassured.filter.log.RequestLoggingFilter;
-import io.restassured.filter.log.ResponseLoggingFilter;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
-import io.restassured.specification.RequestSpecification;
-import pojo.request.BookingDates;
-import pojo.request.CreateBookingRequest;
+import pojo.request.BookingPayload;
 import pojo.response.CreateBookingResponse;
+import specs.RequestSpecFactory;
 
 /**
  * This class explains how to parse response into a POJO class using RestAssured.
@@ -27,9 +23,7 @@ import pojo.response.CreateBookingResponse;
 
 public class ResponseParsing {
 
-    private final RequestSpecification requestSpecification = RestAssured.given()
-            .and().baseUri("https://restful-booker.herokuapp.com")
-            .and().filters(new RequestLoggingFilter(), new ResponseLoggingFilter());
+    private final RequestSpecFactory requestSpecFactory = RequestSpecFactory.restfulBooker();
 
     /**
      * We are using RestAssured's {@link io.restassured.response.ResponseBodyExtractionOptions#as(Class)}
@@ -37,8 +31,12 @@ public class ResponseParsing {
      */
     @Test
     public void parseResponseIntoPojo() {
-        CreateBookingRequest requestBody = this.getCreateBookingRequestPojo("Sam", "Alton", 500);
-        Response createBookingApiResponse = this.requestSpecification.basePath("/booking")
+        BookingPayload requestBody = BookingPayload.builder()
+                                                   .firstName("Sam")
+                                                   .lastName("Alton")
+                                                   .totalPrice(500)
+                                                   .build();
+        Response createBookingApiResponse = this.requestSpecFactory.newRequest().basePath("/booking")
                 //Always use ContentType enum for defining contentType
                 .and().contentType(ContentType.JSON)
                 .and().body(requestBody)
@@ -55,19 +53,4 @@ public class ResponseParsing {
                 "The check-in date is not correct");
 
     }
-
-    private CreateBookingRequest getCreateBookingRequestPojo(String firstName, String lastName, int totalPrice) {
-        CreateBookingRequest requestBody = new CreateBookingRequest();
-        requestBody.setFirstName(firstName);
-        requestBody.setLastName(lastName);
-        requestBody.setTotalPrice(totalPrice);
-        requestBody.setDepositPaid(false);
-        requestBody.setAdditionalNeeds("Nothing else");
-        //Create booking date map
-        BookingDates bookingDates = new BookingDates();
-        bookingDates.setCheckIn("2024-01-01");
-        bookingDates.setCheckOut("2024-02-01");
-        requestBody.setBookingDates(bookingDates);
-        return requestBody;
-    }
 }
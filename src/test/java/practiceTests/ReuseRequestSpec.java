@@ -1,27 +1,33 @@
 package practiceTests;
 
-import io.restassured.RestAssured;
-import io.restassured.filter.log.RequestLoggingFilter;
-import io.restassured.filter.log.ResponseLoggingFilter;
+import data.BookingFixturePool;
 import io.restassured.response.Response;
-import io.restassured.specification.RequestSpecification;
 import org.testng.annotations.Test;
+import specs.RequestSpecFactory;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * This class explains how to reuse the common parts of a request (base URI, filters) across tests.
+ * <p>
+ * A {@link io.restassured.specification.RequestSpecification} kept in a field is mutable, so every test gets
+ * its own copy from {@link RequestSpecFactory#newRequest()}. Path and query params set in one test never leak
+ * into another, even when tests run in parallel.
+ */
+
 public class ReuseRequestSpec {
 
-    private final RequestSpecification requestSpecification = RestAssured.given()
-                                                                         .and().baseUri("https://restful-booker.herokuapp.com")
-                                                                         .and().filters(new RequestLoggingFilter(), new ResponseLoggingFilter());
+    private final RequestSpecFactory requestSpecFactory = RequestSpecFactory.restfulBooker();
+    private final RequestSpecFactory http2SpecFactory = this.requestSpecFactory.overHttp2();
+    private final BookingFixturePool fixtures = BookingFixturePool.getDefault();
 
     @Test
     public void prettyPrintResponse() {
         //Single URL param
-        Response response = this.requestSpecification
+        Response response = this.requestSpecFactory.newRequest()
                 .basePath("/booking/{bookingId}")
-                .pathParam("bookingId", 20)
+                .pathParam("bookingId", this.fixtures.shared().bookingId())
                 .get();
         //Pretty print the response
         response.prettyPrint();
@@ -30,16 +36,16 @@ public class ReuseRequestSpec {
     @Test
     public void restAssuredFiltersResponse() {
         //Single URL param
-        Response response = this.requestSpecification
+        Response response = this.requestSpecFactory.newRequest()
                 .basePath("/booking/{bookingId}")
-                .pathParam("bookingId", 20)
+                .pathParam("bookingId", this.fixtures.shared().bookingId())
                 .get();
     }
 
     @Test
     public void getApiWithQueryParams() {
         //Single query params as key value
-        Response response = this.requestSpecification
+        Response response = this.requestSpecFactory.newRequest()
                 .basePath("/booking")
                 .queryParam("firstname", "Elon")
                 .get();
@@ -50,10 +56,24 @@ public class ReuseRequestSpec {
         queryParamsMap.put("firstname", "John");
         queryParamsMap.put("lastname", "Doe");
 
-        Response responseTwo = this.requestSpecification
+        Response responseTwo = this.requestSpecFactory.newRequest()
                 .basePath("/booking")
                 .queryParams(queryParamsMap)
                 .get();
         System.out.println(responseTwo.asString());
     }
+
+    /**
+     * The same shared spec sent over HTTP/2, so the parallel tests multiplex their requests on one connection per
+     * host instead of opening one each. A host that only speaks HTTP/1.1 answers over HTTP/1.1.
+     */
+    @Test
+    public void getApiWithQueryParamsOverHttp2() {
+        Response response = this.http2SpecFactory.newRequest()
+                .basePath("/booking")
+                .queryParam("firstname", "Elon")
+                .get();
+        response.then().assertThat().statusCode(200);
+        System.out.println(response.getStatusLine());
+    }
 }
@@ -1,13 +1,23 @@
 package practiceTests;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import config.ApiHosts;
+import data.BookingFixturePool;
+import filters.MetricsFilter;
+import http.PooledHttpClientFactory;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.http.Header;
 import io.restassured.http.Headers;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
+import metrics.RouteStats;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,14 +30,17 @@ import java.util.Map;
 public class SimpleGetApi {
 
     @Test
-    public void simpleProductListApi() {
+    public void simpleProductListApi() throws IOException {
         // Init the request spec class
         RequestSpecification requestSpecification = RestAssured.given();
         Response response = requestSpecification.baseUri("https://automationexercise.com")
                                                 .basePath("/api/productsList")
                                                 .contentType(ContentType.JSON)
                                                 .get();
-        System.out.println(response.asString());
+        // Copy the body to the console in chunks instead of building one String of the whole list,
+        // with BodySpoolingSuiteListener a large body is read from a memory mapped file
+        response.asInputStream().transferTo(System.out);
+        System.out.println();
     }
 
     /**
@@ -85,20 +98,22 @@ public class SimpleGetApi {
 
     @Test
     public void getApiWithUrlParams() {
+        // An existing booking, shared with other tests that only read it
+        int bookingId = BookingFixturePool.getDefault().shared().bookingId();
         RequestSpecification requestSpecification = RestAssured.given();
         // Single URL param
         Response response = requestSpecification
-                .and().baseUri("https://restful-booker.herokuapp.com")
+                .and().baseUri(ApiHosts.restfulBooker())
                 .and().basePath("/booking/{bookingId}")
-                .and().pathParam("bookingId", 20)
+                .and().pathParam("bookingId", bookingId)
                 .when().get();
         System.out.println(response.asString());
 
         // Using the map for URL params
         Map<String, Object> paramsMap = new HashMap<>();
-        paramsMap.put("bookingId", 20);
+        paramsMap.put("bookingId", bookingId);
 
-        Response responseTwo = requestSpecification.baseUri("https://restful-booker.herokuapp.com")
+        Response responseTwo = requestSpecification.baseUri(ApiHosts.restfulBooker())
                                                    .basePath("/booking/{bookingId}")
                                                    .pathParams(paramsMap)
                                                    .get();
@@ -118,7 +133,7 @@ public class SimpleGetApi {
     public void getApiWithQueryParams() {
         RequestSpecification requestSpecification = RestAssured.given();
         // Single query params as key value
-        Response response = requestSpecification.baseUri("https://restful-booker.herokuapp.com")
+        Response response = requestSpecification.baseUri(ApiHosts.restfulBooker())
                                                 .basePath("/booking")
                                                 .queryParam("firstname", "Elon")
                                                 .get();
@@ -129,10 +144,40 @@ public class SimpleGetApi {
         queryParamsMap.put("firstname", "John");
         queryParamsMap.put("lastname", "Doe");
 
-        Response responseTwo = requestSpecification.baseUri("https://restful-booker.herokuapp.com")
+        Response responseTwo = requestSpecification.baseUri(ApiHosts.restfulBooker())
                                                    .basePath("/booking")
                                                    .queryParams(queryParamsMap)
                                                    .get();
         System.out.println(responseTwo.asString());
     }
+
+    /**
+     * This method explains how compressed responses are read. RestAssured asks for gzip and deflate, with
+     * PooledHttpClientFactory the body is inflated while the JSON parser pulls it from the connection, and
+     * MetricsFilter counts the bytes on the wire against the bytes after decompression.
+     */
+    @Test
+    public void getCompressedBookingList() throws IOException {
+        MetricsFilter metricsFilter = new MetricsFilter();
+        Response response = RestAssured.given()
+                                       .config(RestAssured.config().httpClient(
+                                               PooledHttpClientFactory.getDefault().httpClientConfig()))
+                                       .filter(metricsFilter)
+                                       .baseUri(ApiHosts.restfulBooker())
+                                       .basePath("/booking")
+                                       .get();
+        response.then().assertThat().statusCode(200);
+        // Parsed from the stream, the body never becomes a String
+        JsonNode bookingIds;
+        try (InputStream body = response.asInputStream()) {
+            bookingIds = new ObjectMapper().readTree(body);
+        }
+
+        RouteStats route = metricsFilter.snapshot().get(0);
+        System.out.println(bookingIds.size() + " bookings, Content-Encoding: " + response.getHeader("Content-Encoding")
+                + ", " + route.wireBytesSum() + " bytes on the wire, " + route.decodedBytesSum() + " decoded");
+        Assert.assertTrue(bookingIds.isArray());
+        Assert.assertEquals(route.bodiesRead(), 1);
+        Assert.assertTrue(route.decodedBytesSum() >= route.wireBytesSum());
+    }
 }
@@ -1,33 +1,37 @@
 package practiceTests;
 
-import io.restassured.RestAssured;
-import io.restassured.filter.log.RequestLoggingFilter;
-import io.restassured.filter.log.ResponseLoggingFilter;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
-import io.restassured.specification.RequestSpecification;
+import mapping.BookingPayloadTemplate;
+import mapping.SharedObjectMapper;
 import org.testng.annotations.Test;
 import pojo.request.BookingDates;
+import pojo.request.BookingPayload;
 import pojo.request.CreateBookingRequest;
+import pojo.response.CreateBookingResponse;
+import specs.RequestSpecFactory;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 
 /**
  * This class explains how to use HTTP POST Calls with RestAssured.
  * It covers examples using request payload as a {@link Map} as
- * well as a DTO Class {@link CreateBookingRequest}.
+ * well as a DTO Class {@link CreateBookingRequest} and a pre-serialized {@link BookingPayloadTemplate}.
  * <p>
  * Refer to {@link SimplePutApi} for related HTTP PUT Calls
  */
 
 public class SimplePostApi {
 
-    private final RequestSpecification requestSpecification = RestAssured.given()
-                                                                         .and().baseUri("https://restful-booker.herokuapp.com")
-                                                                         .and().filters(new RequestLoggingFilter(), new ResponseLoggingFilter());
+    private static final BookingPayloadTemplate BOOKING_TEMPLATE =
+            BookingPayloadTemplate.of(BookingPayload.builder().build());
+
+    private final RequestSpecFactory requestSpecFactory = RequestSpecFactory.restfulBooker();
+    private final RequestSpecFactory http2SpecFactory = this.requestSpecFactory.overHttp2();
 
     /**
      * Simple POST API to create a new Booking with a request payload. This test
@@ -40,14 +44,14 @@ public class SimplePostApi {
     @Test()
     public void simplePostApiToCreateBooking() {
         Map<String, Object> requestBody = getCreateBookingPayload("Sam", "Alton", 500);
-        Response createBookingApiResponse = this.requestSpecification.basePath("/booking")
-                                                                     // Always use ContentType enum for defining contentType
-                                                                     .and().contentType(ContentType.JSON)
-                                                                     .and().body(requestBody)
-                                                                     .when().post()
-                                                                     .then().assertThat().statusCode(200)
-                                                                     .and().body("bookingid", is(not(equalTo(0))))
-                                                                     .extract().response();
+        Response createBookingApiResponse = this.requestSpecFactory.newRequest().basePath("/booking")
+                                                                                // Always use ContentType enum for defining contentType
+                                                                                .and().contentType(ContentType.JSON)
+                                                                                .and().body(requestBody)
+                                                                                .when().post()
+                                                                                .then().assertThat().statusCode(200)
+                                                                                .and().body("bookingid", is(not(equalTo(0))))
+                                                                                .extract().response();
     }
 
     /**
@@ -58,15 +62,55 @@ public class SimplePostApi {
     @Test
     public void simplePostApiWithPojoToCreateBooking() {
         CreateBookingRequest requestBody = this.getCreateBookingRequestPojo("Sam", "Alton", 500);
-        Response createBookingApiResponse = this.requestSpecification.basePath("/booking")
-                                                                     // Always use ContentType enum for defining contentType
-                                                                     .and().contentType(ContentType.JSON)
-                                                                     .and().body(requestBody)
-                                                                     .when().post()
-                                                                     .then().assertThat().statusCode(200)
-                                                                     .and().body("bookingid", is(not(equalTo(0))))
-                                                                     .extract().response();
+        Response createBookingApiResponse = this.requestSpecFactory.newRequest().basePath("/booking")
+                                                                                // Always use ContentType enum for defining contentType
+                                                                                .and().contentType(ContentType.JSON)
+                                                                                .and().body(requestBody)
+                                                                                .when().post()
+                                                                                .then().assertThat().statusCode(200)
+                                                                                .and().body("bookingid", is(not(equalTo(0))))
+                                                                                .extract().response();
+
+    }
+
+    /**
+     * RestAssured serializes a POJO to a String and then encodes it, and {@code .as(...)} decodes the response to a
+     * String before parsing it. {@link SharedObjectMapper} sends and reads bytes directly.
+     * <p>
+     * The request body is rendered from a {@link BookingPayloadTemplate}, serialized once for the class, with only
+     * the names and price changed per booking.
+     */
+    @Test
+    public void simplePostApiWithPreSerializedPojo() {
+        SharedObjectMapper objectMapper = SharedObjectMapper.getDefault();
+        byte[] requestBody = BOOKING_TEMPLATE.render("Sam", "Alton", 500);
+        Response createBookingApiResponse = this.requestSpecFactory.newRequest().basePath("/booking")
+                                                                                .and().contentType(ContentType.JSON)
+                                                                                .and().body(requestBody)
+                                                                                .when().post()
+                                                                                .then().assertThat().statusCode(200)
+                                                                                .extract().response();
 
+        CreateBookingResponse createBookingResponse = objectMapper.read(createBookingApiResponse,
+                CreateBookingResponse.class);
+        assertThat(createBookingResponse.getBookingId(), is(not(equalTo(0))));
+        assertThat(createBookingResponse.getBooking().getFirstName(), is(equalTo("Sam")));
+    }
+
+    /**
+     * The POJO example sent over HTTP/2 with {@link RequestSpecFactory#overHttp2()}, the request and the assertions
+     * do not change.
+     */
+    @Test
+    public void simplePostApiOverHttp2() {
+        CreateBookingRequest requestBody = this.getCreateBookingRequestPojo("Sam", "Alton", 500);
+        this.http2SpecFactory.newRequest().basePath("/booking")
+                             .and().contentType(ContentType.JSON)
+                             .and().body(requestBody)
+                             .when().post()
+                             .then().assertThat().statusCode(200)
+                             .and().body("bookingid", is(not(equalTo(0))))
+                             .and().body("booking.firstname", equalTo("Sam"));
     }
 
     private Map<String, Object> getCreateBookingPayload(String firstName, String lastName, int totalPrice) {
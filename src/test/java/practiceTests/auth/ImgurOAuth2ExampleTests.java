@@ -1,16 +1,25 @@
 package practiceTests.auth;
 
+import auth.AccessToken;
+import auth.OAuth2RefreshTokenSource;
+import auth.TokenProvider;
+import extraction.ParsedResponse;
+import filters.TokenAuthFilter;
+import http.MappedFile;
 import io.restassured.RestAssured;
 import io.restassured.filter.log.RequestLoggingFilter;
 import io.restassured.filter.log.ResponseLoggingFilter;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
-import io.restassured.specification.RequestSpecification;
 import org.testng.annotations.Test;
+import specs.RequestSpecFactory;
 
 import java.io.File;
+import java.nio.file.Path;
 
-import static java.io.File.separator;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.emptyOrNullString;
+import static org.hamcrest.Matchers.not;
 
 /**
  * This class demonstrates how to use OAuth2 authentication with RestAssured. We
@@ -24,6 +33,9 @@ import static java.io.File.separator;
  * access token here: [Registrations
  * Quickstart](<a href=
  * "https://apidocs.imgur.com/#:~:text=Register%20an%20Application%20(IMPORTANT)">...</a>)
+ * <p>
+ * The access token is read from IMGUR_TOKEN once and shared by every test through a {@link TokenProvider}. Without
+ * it, or once Imgur rejects it, the provider gets a new one with the refresh token.
  *
  * @see <a href="https://apidocs.imgur.com/#authorization-and-oauth/">Imgur API
  * Authorization</a>
@@ -31,13 +43,13 @@ import static java.io.File.separator;
 
 public class ImgurOAuth2ExampleTests {
 
-    private final RequestSpecification requestSpecification = RestAssured.given()
-                                                                         .and().baseUri("https://api.imgur.com/3")
-                                                                         .and().filters(new RequestLoggingFilter(), new ResponseLoggingFilter());
-    private final String uploadPngFilePath = "src".concat(separator)
-                                                  .concat("main").concat(separator)
-                                                  .concat("resources").concat(separator)
-                                                  .concat("playwright-nodejs.png");
+    private static final OAuth2RefreshTokenSource.Client IMGUR_CLIENT =
+            OAuth2RefreshTokenSource.Client.fromEnvironment("IMGUR");
+    private static final TokenProvider<OAuth2RefreshTokenSource.Client> IMGUR_TOKENS = imgurTokens();
+
+    private final RequestSpecFactory requestSpecFactory = RequestSpecFactory.forBaseUri("https://api.imgur.com/3");
+    private static final MappedFile UPLOAD_PNG =
+            MappedFile.of(Path.of("src", "main", "resources", "playwright-nodejs.png"));
 
     private String deleteImageHash;
 
@@ -45,32 +57,33 @@ public class ImgurOAuth2ExampleTests {
      * This test demonstrates how to upload an image to Imgur using OAuth2
      * authentication.
      * <p>
-     * We are using
-     * {@link io.restassured.specification.AuthenticationSpecification#oauth2(String)}
-     * to authenticate with OAuth2.
+     * We are using {@link TokenAuthFilter#bearer(TokenProvider, Object)} to authenticate with OAuth2, it sends
+     * the same header as
+     * {@link io.restassured.specification.AuthenticationSpecification#oauth2(String)}.
      * <p>
      * This examples also demonstrates how to use
      * {@link io.restassured.specification.RequestSpecification#multiPart(String, File)}
      * and
+     * {@link io.restassured.specification.RequestSpecification#multiPart(String, String, java.io.InputStream)}, here
+     * with a stream over a {@link MappedFile} so the image is sent from a shared memory mapping, and
      * {@link io.restassured.specification.RequestSpecification#multiPart(String, String)}
      * methods to handle multipart form data.
      */
 
     @Test
     public void uploadImageWithOauth2() {
-        String accessToken = System.getenv("IMGUR_TOKEN");
-        Response uploadApiResponse = this.requestSpecification.basePath("/image")
-                                                              .and().auth().oauth2(accessToken)
-                                                              .and().contentType(ContentType.MULTIPART)
-                                                              .and().multiPart("image", new File(uploadPngFilePath))
-                                                              .and().multiPart("type", "image")
-                                                              .and().multiPart("title", "playwright-with-nodejs")
-                                                              .and().multiPart("description", "This is an upload from RestAssured")
-                                                              .when().post()
-                                                              .then().assertThat().statusCode(200)
-                                                              .extract().response();
+        Response uploadApiResponse = this.requestSpecFactory.newRequest().basePath("/image")
+                                                                         .and().filter(TokenAuthFilter.bearer(IMGUR_TOKENS, IMGUR_CLIENT))
+                                                                         .and().contentType(ContentType.MULTIPART)
+                                                                         .and().multiPart("image", UPLOAD_PNG.fileName(), UPLOAD_PNG.openStream(System.out::println))
+                                                                         .and().multiPart("type", "image")
+                                                                         .and().multiPart("title", "playwright-with-nodejs")
+                                                                         .and().multiPart("description", "This is an upload from RestAssured")
+                                                                         .when().post()
+                                                                         .then().assertThat().statusCode(200)
+                                                                         .extract().response();
 
-        this.deleteImageHash = uploadApiResponse.jsonPath().getString("data.deletehash");
+        this.deleteImageHash = ParsedResponse.of(uploadApiResponse).getString("data.deletehash");
     }
 
     /**
@@ -80,12 +93,11 @@ public class ImgurOAuth2ExampleTests {
 
     @Test(dependsOnMethods = "uploadImageWithOauth2")
     public void deleteImageWithOauth2() {
-        String accessToken = System.getenv("IMGUR_TOKEN");
         Response uploadApiResponse = RestAssured.given()
                                                 .and().baseUri("https://api.imgur.com/3")
                                                 .and().filters(new RequestLoggingFilter(), new ResponseLoggingFilter())
                                                 .and().basePath("/image/{imageHash}")
-                                                .and().auth().oauth2(accessToken)
+                                                .and().filter(TokenAuthFilter.bearer(IMGUR_TOKENS, IMGUR_CLIENT))
                                                 .and().pathParam("imageHash", this.deleteImageHash)
                                                 .and().contentType(ContentType.JSON)
                                                 .when().delete()
@@ -101,17 +113,20 @@ public class ImgurOAuth2ExampleTests {
      **/
     @Test
     public void generateNewAccessToken() {
-        RestAssured.given().baseUri("https://api.imgur.com/")
-                   .and().basePath("oauth2/token")
-                   .and().contentType(ContentType.MULTIPART)
-                   .and().filters(new RequestLoggingFilter(), new ResponseLoggingFilter())
-                   .and().multiPart("refresh_token", System.getenv("IMGUR_REFRESH_TOKEN"))
-                   .and().multiPart("client_id", System.getenv("IMGUR_CLIENT_ID"))
-                   .and().multiPart("client_secret", System.getenv("IMGUR_CLIENT_SECRET"))
-                   .and().multiPart("grant_type", "refresh_token")
-                   .when().post()
-                   .then().assertThat().statusCode(200)
-                   .extract().response();
+        AccessToken accessToken = IMGUR_TOKENS.refresh(IMGUR_CLIENT);
+        assertThat(accessToken.value(), not(emptyOrNullString()));
+    }
 
+    /**
+     * The token of IMGUR_TOKEN has no known expiry, it is used until Imgur rejects it.
+     */
+    private static TokenProvider<OAuth2RefreshTokenSource.Client> imgurTokens() {
+        TokenProvider<OAuth2RefreshTokenSource.Client> tokens =
+                TokenProvider.builder(new OAuth2RefreshTokenSource("https://api.imgur.com/oauth2/token")).build();
+        String accessToken = System.getenv("IMGUR_TOKEN");
+        if (accessToken != null && !accessToken.isEmpty()) {
+            tokens.seed(IMGUR_CLIENT, AccessToken.withoutExpiry(accessToken));
+        }
+        return tokens;
     }
 }